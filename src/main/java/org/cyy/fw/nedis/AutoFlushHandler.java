@@ -0,0 +1,96 @@
+package org.cyy.fw.nedis;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesce the written requests and flush them together, the requests written
+ * within one event loop tick are flushed by one flush (one system call)
+ * instead of one flush per request. The flush happens when one of these
+ * conditions is satisfied:
+ * <ul>
+ * <li>the batched bytes reach the max bytes</li>
+ * <li>the batched requests reach the max commands</li>
+ * <li>the max delay elapsed since the first batched request, if the max delay
+ * is 0, it is flushed at the end of current event loop tick</li>
+ * </ul>
+ * The requests must be written by {@code Channel.write(Object)}, an explicit
+ * flush still flushes all batched requests immediately. One channel one
+ * instance, it is only accessed in the event loop of the channel.
+ * 
+ * @author yunyun
+ * 
+ */
+class AutoFlushHandler extends ChannelOutboundHandlerAdapter {
+
+	private final long maxDelayMicros;
+	private final int maxBytes;
+	private final int maxCommands;
+	private ChannelHandlerContext ctx;
+	private int batchedBytes;
+	private int batchedCommands;
+	private boolean isFlushScheduled;
+	private final Runnable flushTask = new Runnable() {
+
+		@Override
+		public void run() {
+			isFlushScheduled = false;
+			if (batchedCommands > 0) {
+				flushBatch();
+			}
+		}
+	};
+
+	AutoFlushHandler(long maxDelayMicros, int maxBytes, int maxCommands) {
+		super();
+		this.maxDelayMicros = maxDelayMicros;
+		this.maxBytes = maxBytes;
+		this.maxCommands = maxCommands;
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		this.ctx = ctx;
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg,
+			ChannelPromise promise) throws Exception {
+		if (msg instanceof ByteBuf) {
+			batchedBytes += ((ByteBuf) msg).readableBytes();
+		}
+		batchedCommands++;
+		ctx.write(msg, promise);
+		if (batchedBytes >= maxBytes || batchedCommands >= maxCommands) {
+			flushBatch();
+			return;
+		}
+		if (isFlushScheduled) {
+			return;
+		}
+		isFlushScheduled = true;
+		if (maxDelayMicros <= 0) {
+			// run after all the tasks which have already been submitted
+			ctx.executor().execute(flushTask);
+		} else {
+			ctx.executor().schedule(flushTask, maxDelayMicros,
+					TimeUnit.MICROSECONDS);
+		}
+	}
+
+	@Override
+	public void flush(ChannelHandlerContext ctx) throws Exception {
+		flushBatch();
+	}
+
+	private void flushBatch() {
+		batchedBytes = 0;
+		batchedCommands = 0;
+		ctx.flush();
+	}
+
+}
@@ -4,44 +4,116 @@ import org.cyy.fw.nedis.util.TextEncoder;
 
 public class BinaryCommand {
 	private byte[] command;
+	// null if the command is not one of RedisCommand
+	private RedisCommand redisCommand;
+	// the encoded bulk of the command
+	private byte[] header;
 	private byte[][] args;
+	// the string arguments are encoded into the request directly
+	private String[] textArgs;
+	private CommandArgs commandArgs;
 
 	public BinaryCommand(String command, String... args) {
 		super();
-		this.command = TextEncoder.encode(command);
-		if (args != null && args.length > 0) {
-			this.args = new byte[args.length][];
-			for (int i = 0; i < args.length; i++) {
-				this.args[i] = TextEncoder.encode(args[i]);
-			}
-		}
+		setCommand(TextEncoder.encode(command));
+		this.textArgs = args;
 	}
 
 	public BinaryCommand(String command, byte[]... args) {
+		this(TextEncoder.encode(command), args);
+	}
+
+	public BinaryCommand(byte[] command, byte[]... args) {
 		super();
-		this.command = TextEncoder.encode(command);
+		setCommand(command);
 		this.args = args;
 	}
 
-	public BinaryCommand(byte[] command, byte[]... args) {
+	public BinaryCommand(RedisCommand command, String... args) {
 		super();
-		this.command = command;
+		this.command = command.getBinary();
+		this.redisCommand = command;
+		this.header = command.getHeader();
+		this.textArgs = args;
+	}
+
+	public BinaryCommand(RedisCommand command, byte[]... args) {
+		super();
+		this.command = command.getBinary();
+		this.redisCommand = command;
+		this.header = command.getHeader();
 		this.args = args;
 	}
 
+	BinaryCommand(RedisCommand command, CommandArgs args) {
+		super();
+		this.command = command.getBinary();
+		this.redisCommand = command;
+		this.header = command.getHeader();
+		this.commandArgs = args;
+	}
+
+	private static byte[][] encodeArgs(String... args) {
+		if (args == null || args.length <= 0) {
+			return null;
+		}
+		byte[][] binaryArgs = new byte[args.length][];
+		for (int i = 0; i < args.length; i++) {
+			binaryArgs[i] = TextEncoder.encode(args[i]);
+		}
+		return binaryArgs;
+	}
+
 	public byte[] getCommand() {
 		return command;
 	}
 
 	public void setCommand(byte[] command) {
 		this.command = command;
+		this.header = RedisProtocol.encodeBulk(command);
+	}
+
+	RedisCommand getRedisCommand() {
+		return redisCommand;
+	}
+
+	byte[] getHeader() {
+		return header;
 	}
 
 	public byte[][] getArgs() {
+		if (args == null && textArgs != null) {
+			args = encodeArgs(textArgs);
+			textArgs = null;
+		}
+		if (args == null && commandArgs != null) {
+			args = commandArgs.toBytes();
+			commandArgs = null;
+		}
 		return args;
 	}
 
 	public void setArgs(byte[][] args) {
 		this.args = args;
+		this.textArgs = null;
+		this.commandArgs = null;
+	}
+
+	/**
+	 * The string arguments which have not been encoded
+	 * 
+	 * @return
+	 */
+	String[] getTextArgs() {
+		return textArgs;
+	}
+
+	/**
+	 * The arguments built with the numbers, which have not been encoded
+	 * 
+	 * @return
+	 */
+	CommandArgs getCommandArgs() {
+		return commandArgs;
 	}
 }
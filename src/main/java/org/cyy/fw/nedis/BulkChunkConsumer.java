@@ -0,0 +1,50 @@
+package org.cyy.fw.nedis;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * The consumer of a streamed bulk reply, the bulk is not aggregated, its
+ * chunks are passed to {@link #chunk(ByteBuf)} as they arrive off the wire,
+ * so the memory is flat no matter how large the value is. All the methods are
+ * called in the event loop of the connection, they must not block.
+ * 
+ * @author yunyun
+ * 
+ */
+public interface BulkChunkConsumer {
+
+	/**
+	 * The bulk starts, no chunk follows if the length is -1 (the key does not
+	 * exist).
+	 * 
+	 * @param length
+	 *            the total length of the bulk, -1 for the nil reply
+	 * @param control
+	 *            the read control of the connection, it can pause the
+	 *            receiving when the chunks can not be consumed in time
+	 */
+	void start(int length, BulkChunkControl control);
+
+	/**
+	 * A chunk of the bulk has arrived, the chunk is only valid in this method,
+	 * it must be retained if it is used later.
+	 * 
+	 * @param chunk
+	 */
+	void chunk(ByteBuf chunk);
+
+	/**
+	 * All the chunks have been consumed.
+	 */
+	void end();
+
+	/**
+	 * The reply is failed by some cause, it may be called after
+	 * {@link #start(int, BulkChunkControl)}, the remaining chunks are
+	 * discarded then.
+	 * 
+	 * @param cause
+	 *            the failed cause
+	 */
+	void failed(Throwable cause);
+}
@@ -0,0 +1,36 @@
+package org.cyy.fw.nedis;
+
+import io.netty.channel.Channel;
+
+/**
+ * The backpressure of a streamed bulk reply, it pauses and resumes reading
+ * the connection by the auto read of the channel. The chunks which have been
+ * received already are still passed after paused. The reading is resumed
+ * anyway when the bulk ends, so the connection can be reused.
+ * 
+ * @author yunyun
+ * 
+ */
+public final class BulkChunkControl {
+
+	private final Channel channel;
+
+	BulkChunkControl(Channel channel) {
+		super();
+		this.channel = channel;
+	}
+
+	/**
+	 * Stop reading the connection, it can be called in any thread.
+	 */
+	public void pause() {
+		channel.config().setAutoRead(false);
+	}
+
+	/**
+	 * Continue reading the connection, it can be called in any thread.
+	 */
+	public void resume() {
+		channel.config().setAutoRead(true);
+	}
+}
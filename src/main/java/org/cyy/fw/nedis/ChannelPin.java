@@ -0,0 +1,94 @@
+package org.cyy.fw.nedis;
+
+import io.netty.channel.Channel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One channel kept by a {@link Transaction} for all of its commands, because
+ * the server binds WATCH and MULTI to the connection which sends them.
+ * <p>
+ * The channel is obtained by the first batch sent, the batches sent before it
+ * is obtained wait here and they are written in order after it. The channel
+ * is not returned to the pool until the pin is released.
+ * 
+ * @author yunyun
+ * 
+ */
+final class ChannelPin {
+
+	private Channel channel;
+	private boolean isBinding;
+	private boolean isReleased;
+	private final List<CommandBatch> waitingBatches = new ArrayList<>();
+
+	synchronized Channel getChannel() {
+		return channel;
+	}
+
+	synchronized boolean isReleased() {
+		return isReleased;
+	}
+
+	/**
+	 * Start obtaining the channel for the batch, or hold the batch if the
+	 * channel is being obtained by another one.
+	 * 
+	 * @param batch
+	 * @return true if the caller must obtain the channel
+	 */
+	synchronized boolean startBinding(CommandBatch batch) {
+		if (isBinding) {
+			waitingBatches.add(batch);
+			return false;
+		}
+		isBinding = true;
+		return true;
+	}
+
+	/**
+	 * The channel is obtained, the waiting batches must be written right after
+	 * the first one, and while the lock of this pin is held.
+	 * 
+	 * @param ch
+	 * @return the waiting batches
+	 */
+	synchronized List<CommandBatch> bind(Channel ch) {
+		channel = ch;
+		isBinding = false;
+		List<CommandBatch> batches = new ArrayList<>(waitingBatches);
+		waitingBatches.clear();
+		return batches;
+	}
+
+	/**
+	 * No channel is obtained, the waiting batches fail too, and the next batch
+	 * tries again.
+	 * 
+	 * @param cause
+	 */
+	void bindFailed(Throwable cause) {
+		List<CommandBatch> batches;
+		synchronized (this) {
+			if (channel != null || !isBinding) {
+				return;
+			}
+			isBinding = false;
+			batches = new ArrayList<>(waitingBatches);
+			waitingBatches.clear();
+		}
+		for (CommandBatch batch : batches) {
+			batch.failed(cause);
+		}
+	}
+
+	/**
+	 * @return the channel to give back, or null if it has not been obtained
+	 *         yet, it is given back after obtained in that case
+	 */
+	synchronized Channel release() {
+		isReleased = true;
+		return channel;
+	}
+}
@@ -31,6 +31,34 @@ public interface ClientConfig<T extends ClientConfig<T>> {
 	 */
 	T setTcpNoDelay(boolean flag);
 
+	/**
+	 * Use the native epoll transport if it is available (Linux only), it is
+	 * disabled by default since it needs the native library of the platform.
+	 * Note all clients share one event loop group, only the first initialized
+	 * client decides the transport.
+	 * 
+	 * @param flag
+	 * @return
+	 */
+	T setEpollEnabled(boolean flag);
+
+	/**
+	 * TCP_QUICKACK, only for the epoll transport
+	 * 
+	 * @param flag
+	 * @return
+	 */
+	T setTcpQuickAck(boolean flag);
+
+	/**
+	 * Use the edge-triggered mode or the level-triggered mode, only for the
+	 * epoll transport, it is edge-triggered by default
+	 * 
+	 * @param flag
+	 * @return
+	 */
+	T setEpollEdgeTriggered(boolean flag);
+
 	/**
 	 * Set bytebuf allocator
 	 * 
@@ -79,4 +107,108 @@ public interface ClientConfig<T extends ClientConfig<T>> {
 	 */
 	T setMinIdleConnections(int minIdle);
 
+	/**
+	 * Multiplexed connections, if it is greater than 0, all commands share
+	 * these connections and many commands can be in flight on one connection
+	 * at the same time, otherwise one connection carries only one command at
+	 * a time. In multiplexed mode the blocking commands (BLPOP, BRPOP and
+	 * BRPOPLPUSH) are sent on a connection of their own, which is closed after
+	 * the reply, and SELECT, AUTH and QUIT fail because they would change or
+	 * close the shared connections.
+	 * 
+	 * @param connections
+	 * @return
+	 */
+	T setMultiplexConnections(int connections);
+
+	/**
+	 * The default response deadline of the commands, if the response has not
+	 * arrived in time, the callback fails with
+	 * {@link org.cyy.fw.nedis.util.ResponseTimeoutException} and the
+	 * connection is closed. 0 means never timeout, it is the default. It can
+	 * be overridden for a command by {@link ResponseTimeoutCallback}, e.g. a
+	 * blocking command.
+	 * 
+	 * @param mills
+	 * @return
+	 */
+	T setResponseTimeoutMills(long mills);
+
+	/**
+	 * Max number of the commands waiting for an idle connection when the pool
+	 * is exhausted, the waiting commands never block the caller thread and
+	 * fail if no connection is available within the acquire timeout
+	 * 
+	 * @param waiters
+	 * @return
+	 */
+	T setMaxConnectionWaiters(int waiters);
+
+	/**
+	 * How long a command waits for an idle connection when the pool is
+	 * exhausted, 1000 milliseconds by default, 0 means never timeout. It is
+	 * not the connect timeout, which bounds opening a new connection.
+	 * 
+	 * @param mills
+	 * @return
+	 */
+	T setAcquireTimeoutMills(long mills);
+
+	/**
+	 * Batch the written commands and flush them together instead of flushing
+	 * every command by one system call, it works best with the multiplexed
+	 * connections
+	 * 
+	 * @param flag
+	 * @return
+	 */
+	T setFlushBatching(boolean flag);
+
+	/**
+	 * Max delay of the batched commands before flushed, 0 means the commands
+	 * are flushed at the end of current event loop tick
+	 * 
+	 * @param micros
+	 * @return
+	 */
+	T setFlushMaxDelayMicros(long micros);
+
+	/**
+	 * The batched commands are flushed immediately once their bytes reach
+	 * this threshold
+	 * 
+	 * @param bytes
+	 * @return
+	 */
+	T setFlushMaxBytes(int bytes);
+
+	/**
+	 * The batched commands are flushed immediately once their number reach
+	 * this threshold
+	 * 
+	 * @param commands
+	 * @return
+	 */
+	T setFlushMaxCommands(int commands);
+
+	/**
+	 * Negotiate the RESP3 protocol by HELLO 3 when a connection is
+	 * established, the maps, sets, doubles, booleans and big numbers are
+	 * decoded into the native types, and the push messages are passed to the
+	 * push listener. The connection keeps RESP2 if the server does not support
+	 * it (before Redis 6)
+	 * 
+	 * @param flag
+	 * @return
+	 */
+	T setResp3(boolean flag);
+
+	/**
+	 * The listener of the out-of-band push messages of the RESP3 protocol
+	 * 
+	 * @param listener
+	 * @return
+	 */
+	T setPushListener(PushListener listener);
+
 }
@@ -0,0 +1,178 @@
+package org.cyy.fw.nedis;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.CharsetUtil;
+
+import java.util.Arrays;
+
+/**
+ * The builder of the arguments of a command. The integers are kept as the
+ * primitives and their decimal digits are written into the request directly,
+ * no string is created for them. The ASCII strings are written char by char,
+ * the others are encoded when they are added. The keywords are written as
+ * their pre-encoded bulks.
+ * 
+ * @author yunyun
+ * 
+ */
+final class CommandArgs {
+
+	private static final int DEFAULT_CAPACITY = 8;
+	// the doubles in this range are exact integers, written as the integers
+	private static final double MAX_INTEGRAL_DOUBLE = 1e15;
+	// a null argument fails the command when the request is generated
+	private static final Object NULL_ARG = new Object();
+	// String, byte[] or RedisKeyword, null if the argument is an integer
+	private Object[] values;
+	private long[] numbers;
+	private int size;
+
+	CommandArgs() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	CommandArgs(int capacity) {
+		super();
+		this.values = new Object[capacity];
+		this.numbers = new long[capacity];
+	}
+
+	CommandArgs add(String arg) {
+		ensureCapacity();
+		if (arg == null) {
+			values[size++] = NULL_ARG;
+		} else {
+			values[size++] = RedisProtocol.isAscii(arg) ? arg : arg
+					.getBytes(CharsetUtil.UTF_8);
+		}
+		return this;
+	}
+
+	CommandArgs add(byte[] arg) {
+		ensureCapacity();
+		values[size++] = arg == null ? NULL_ARG : arg;
+		return this;
+	}
+
+	CommandArgs add(RedisKeyword keyword) {
+		ensureCapacity();
+		values[size++] = keyword == null ? NULL_ARG : keyword;
+		return this;
+	}
+
+	CommandArgs add(long arg) {
+		ensureCapacity();
+		numbers[size++] = arg;
+		return this;
+	}
+
+	/**
+	 * The integral doubles (e.g. most of the scores) are written as the
+	 * integers, the others by {@link Double#toString(double)}
+	 * 
+	 * @param arg
+	 * @return
+	 */
+	CommandArgs add(double arg) {
+		if (arg == (long) arg && Math.abs(arg) < MAX_INTEGRAL_DOUBLE
+				&& Double.doubleToRawLongBits(arg) != Long.MIN_VALUE) {
+			return add((long) arg);
+		}
+		return add(Double.toString(arg));
+	}
+
+	CommandArgs addAll(String... args) {
+		if (args != null) {
+			for (String arg : args) {
+				add(arg);
+			}
+		}
+		return this;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * The length of the encoded argument
+	 * 
+	 * @param index
+	 * @return
+	 */
+	int length(int index) {
+		Object value = values[index];
+		if (value == null) {
+			return RedisProtocol.longLength(numbers[index]);
+		}
+		if (value instanceof String) {
+			return ((String) value).length();
+		}
+		if (value instanceof RedisKeyword) {
+			return ((RedisKeyword) value).getBinary().length;
+		}
+		if (value == NULL_ARG) {
+			throw new NullPointerException("The argument " + index
+					+ " is null.");
+		}
+		return ((byte[]) value).length;
+	}
+
+	/**
+	 * The pre-encoded bulk of the argument: $length\r\nargument\r\n
+	 * 
+	 * @param index
+	 * @return null if the argument is not a keyword
+	 */
+	byte[] encodedBulk(int index) {
+		Object value = values[index];
+		return value instanceof RedisKeyword ? ((RedisKeyword) value)
+				.getHeader() : null;
+	}
+
+	void write(int index, ByteBuf byteBuf) {
+		Object value = values[index];
+		if (value == null) {
+			RedisProtocol.writeLong(numbers[index], byteBuf);
+		} else if (value instanceof String) {
+			ByteBufUtil.writeAscii(byteBuf, (String) value);
+		} else if (value instanceof RedisKeyword) {
+			byteBuf.writeBytes(((RedisKeyword) value).getBinary());
+		} else {
+			byteBuf.writeBytes((byte[]) value);
+		}
+	}
+
+	/**
+	 * Encode all the arguments into the bytes
+	 * 
+	 * @return
+	 */
+	byte[][] toBytes() {
+		byte[][] args = new byte[size][];
+		for (int i = 0; i < size; i++) {
+			Object value = values[i];
+			if (value == null) {
+				args[i] = String.valueOf(numbers[i]).getBytes(
+						CharsetUtil.US_ASCII);
+			} else if (value instanceof String) {
+				args[i] = ((String) value).getBytes(CharsetUtil.US_ASCII);
+			} else if (value instanceof RedisKeyword) {
+				args[i] = ((RedisKeyword) value).getBinary();
+			} else if (value != NULL_ARG) {
+				args[i] = (byte[]) value;
+			}
+		}
+		return args;
+	}
+
+	private void ensureCapacity() {
+		if (size < values.length) {
+			return;
+		}
+		int capacity = Math.max(values.length << 1, DEFAULT_CAPACITY);
+		values = Arrays.copyOf(values, capacity);
+		numbers = Arrays.copyOf(numbers, capacity);
+	}
+}
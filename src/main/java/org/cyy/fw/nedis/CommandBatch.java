@@ -0,0 +1,115 @@
+package org.cyy.fw.nedis;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * The commands of a {@link Pipeline}, their requests are encoded into one
+ * buffer and written to one channel by one write and one flush, and all of
+ * them are put into the pending queue of the channel at once by
+ * {@link CommandWriter}, so the channel is not returned to the pool until the
+ * reply of the last one arrives.
+ * <p>
+ * The batch is passed to the pool in place of the adapter of a single
+ * command, so it obtains its channel in the same way as a single command, and
+ * all of its commands fail if the channel can not be obtained. It is also the
+ * listener of its write, its callback is told whether the batch is written,
+ * the replies are passed to the commands one by one.
+ * 
+ * @author yunyun
+ * 
+ */
+final class CommandBatch implements ResponeAdapter<Object, Void>,
+		ChannelFutureListener {
+
+	private ByteBuf request;
+	private final PendingCommand[] commands;
+	private ChannelPin pin;
+	private ResponseCallback<Void> respCallBack;
+
+	CommandBatch(ByteBuf request, PendingCommand[] commands) {
+		super();
+		this.request = request;
+		this.commands = commands;
+	}
+
+	/**
+	 * Take the encoded requests away, they will be released by the channel
+	 * after written.
+	 * 
+	 * @return
+	 */
+	ByteBuf detachRequest() {
+		ByteBuf msg = request;
+		request = null;
+		return msg;
+	}
+
+	PendingCommand[] getCommands() {
+		return commands;
+	}
+
+	/**
+	 * The pin which the channel obtained for this batch is bound to, it is
+	 * null if the batch does not obtain the channel by itself
+	 * 
+	 * @return
+	 */
+	ChannelPin getPin() {
+		return pin;
+	}
+
+	void setPin(ChannelPin pin) {
+		this.pin = pin;
+	}
+
+	@Override
+	public void setResponseCallback(ResponseCallback<Void> respCallBack) {
+		this.respCallBack = respCallBack;
+	}
+
+	/**
+	 * Written
+	 */
+	@Override
+	public void done(Object source) {
+		if (respCallBack != null) {
+			respCallBack.done(null);
+		}
+	}
+
+	/**
+	 * Fail all the commands, e.g. no channel was obtained
+	 */
+	@Override
+	public void failed(Throwable cause) {
+		ByteBuf msg = detachRequest();
+		if (msg != null) {
+			ReferenceCountUtil.release(msg);
+		}
+		for (PendingCommand command : commands) {
+			command.failed(cause);
+		}
+		if (pin != null) {
+			pin.bindFailed(cause);
+		}
+		if (respCallBack != null) {
+			respCallBack.failed(cause);
+		}
+	}
+
+	/**
+	 * Written, called in the event loop
+	 */
+	@Override
+	public void operationComplete(ChannelFuture future) throws Exception {
+		if (future.isSuccess()) {
+			done(null);
+			return;
+		}
+		failed(future.cause());
+		future.channel().close();
+	}
+}
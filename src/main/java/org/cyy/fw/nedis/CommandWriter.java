@@ -0,0 +1,57 @@
+package org.cyy.fw.nedis;
+
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.Timer;
+
+import java.util.Queue;
+
+/**
+ * Write the command requests and put the commands into the pending queue of
+ * the channel, this handler is called in the event loop at the moment the
+ * request is written, so the pending queue always keeps the same order as
+ * the requests on the wire, even if the requests are sent by several threads.
+ * The response deadline of the command starts here too.
+ * 
+ * @author yunyun
+ * 
+ */
+@Sharable
+class CommandWriter extends ChannelOutboundHandlerAdapter {
+
+	private final Timer timer;
+
+	CommandWriter(Timer timer) {
+		super();
+		this.timer = timer;
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg,
+			ChannelPromise promise) throws Exception {
+		if (msg instanceof PendingCommand) {
+			PendingCommand command = (PendingCommand) msg;
+			ctx.channel().attr(ConnectionPool.RESP_QUEUE_ATTR_KEY).get()
+					.offer(command);
+			command.startTimer(timer, ctx.channel());
+			ctx.write(command.detachRequest(), promise);
+			return;
+		}
+		if (msg instanceof CommandBatch) {
+			// all at once, no reply can be read in the middle of them
+			CommandBatch batch = (CommandBatch) msg;
+			Queue<PendingCommand> pendingCommands = ctx.channel()
+					.attr(ConnectionPool.RESP_QUEUE_ATTR_KEY).get();
+			for (PendingCommand command : batch.getCommands()) {
+				pendingCommands.offer(command);
+				command.startTimer(timer, ctx.channel());
+			}
+			ctx.write(batch.detachRequest(), promise);
+			return;
+		}
+		ctx.write(msg, promise);
+	}
+
+}
@@ -6,26 +6,42 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.AttributeKey;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -45,17 +61,200 @@ public class ConnectionPool {
 				setIdleClosingFlag(ch, false);
 			}
 			removeIdleChannel(ch, future.cause());
+			failPendingResponses(ch, new NedisException(ch + " closed."));
+			dispatchWaiterWithNewChannel();
+		}
+	}
+
+	/**
+	 * Negotiate RESP3 before any command is written to the new connection
+	 */
+	private final class HelloFutureListener implements ChannelFutureListener {
+		@Override
+		public void operationComplete(ChannelFuture future) throws Exception {
+			if (future.isSuccess()) {
+				sendMessage(future.channel(), HELLO_COMMAND,
+						new HelloResponseAdapter(future.channel()));
+			}
+		}
+	}
+
+	/**
+	 * Load the registered scripts before any command is written to the new
+	 * connection, they may have been flushed by a restart of the server
+	 */
+	private final class ScriptLoadFutureListener implements
+			ChannelFutureListener {
+		@Override
+		public void operationComplete(ChannelFuture future) throws Exception {
+			if (!future.isSuccess()) {
+				return;
+			}
+			for (BinaryCommand command : scriptLoadCommands.values()) {
+				sendMessage(future.channel(), command,
+						new ScriptLoadResponseAdapter(future.channel()));
+			}
+		}
+	}
+
+	private static final class ScriptLoadResponseAdapter implements
+			ResponeAdapter<Object, Object> {
+		private final Channel channel;
+
+		ScriptLoadResponseAdapter(Channel channel) {
+			super();
+			this.channel = channel;
+		}
+
+		@Override
+		public void setResponseCallback(ResponseCallback<Object> respCallBack) {
+			// NOOP
+		}
+
+		@Override
+		public void done(Object source) {
+			LOGGER.log(Level.INFO, channel + " script loaded.");
+		}
+
+		@Override
+		public void failed(Throwable cause) {
+			LOGGER.log(Level.WARNING, channel + " script not loaded: "
+					+ cause.getMessage());
+		}
+	}
+
+	private static final class HelloResponseAdapter implements
+			ResponeAdapter<Object, Object> {
+		private final Channel channel;
+
+		HelloResponseAdapter(Channel channel) {
+			super();
+			this.channel = channel;
+		}
+
+		@Override
+		public void setResponseCallback(ResponseCallback<Object> respCallBack) {
+			// NOOP
+		}
+
+		@Override
+		public void done(Object source) {
+			LOGGER.log(Level.INFO, channel + " RESP3 negotiated.");
+		}
+
+		@Override
+		public void failed(Throwable cause) {
+			LOGGER.log(Level.WARNING, channel + " keeps RESP2: "
+					+ cause.getMessage());
+		}
+	}
+
+	private final class MultiplexConnectFutureListener implements
+			ChannelFutureListener {
+		@Override
+		public void operationComplete(ChannelFuture future) throws Exception {
+			if (future.isSuccess()) {
+				future.channel().closeFuture()
+						.addListener(channelCloseFutureListener);
+			} else {
+				LOGGER.log(Level.SEVERE, future.channel()
+						+ " connect failed, exception: " + future.cause());
+				poolSizeController.release();
+			}
+		}
+	}
+
+	/**
+	 * A command waiting for an idle channel because the pool is exhausted, it
+	 * is completed either by a returned channel or by its timeout, whichever
+	 * comes first.
+	 */
+	private final class ChannelWaiter implements Runnable {
+		private final BinaryCommand message;
+		private final ResponeAdapter<?, ?> responseAdapter;
+		private final AtomicBoolean isCompleted = new AtomicBoolean();
+		private ScheduledFuture<?> timeoutFuture;
+
+		ChannelWaiter(BinaryCommand message,
+				ResponeAdapter<?, ?> responseAdapter) {
+			super();
+			this.message = message;
+			this.responseAdapter = responseAdapter;
+		}
+
+		boolean complete() {
+			if (!isCompleted.compareAndSet(false, true)) {
+				return false;
+			}
+			waiterCount.getAndDecrement();
+			if (timeoutFuture != null) {
+				timeoutFuture.cancel(false);
+			}
+			return true;
+		}
+
+		void failed(Throwable cause) {
+			if (responseAdapter != null) {
+				responseAdapter.failed(cause);
+			}
+		}
+
+		/**
+		 * The timeout task
+		 */
+		@Override
+		public void run() {
+			if (!complete()) {
+				return;
+			}
+			waiters.remove(this);
+			LOGGER.log(Level.WARNING, "obtain channel from pool timeout");
+			failed(new NedisException("Obtain channel from pool timeout."));
+		}
+	}
+
+	/**
+	 * The channels bound to one event loop. A caller running in the event loop
+	 * borrows the channels of its own partition first, so the command is
+	 * written inline without a task hop to another event loop.
+	 */
+	private static final class PoolPartition {
+		private final int index;
+		private final EventLoop eventLoop;
+		private final IdleChannelStack idleChannels = new IdleChannelStack();
+		private Bootstrap bootstrap;
+
+		PoolPartition(int index, EventLoop eventLoop) {
+			super();
+			this.index = index;
+			this.eventLoop = eventLoop;
 		}
 	}
 
 	public static final class ConnectionPoolConfig {
 		private static final int DEFAULT_CONNECTION_POOL_SIZE = 200;
+		private static final int DEFAULT_FLUSH_MAX_BYTES = 64 * 1024;
+		private static final int DEFAULT_FLUSH_MAX_COMMANDS = 256;
+		private static final int DEFAULT_MAX_WAITERS = 10000;
+		private static final long DEFAULT_ACQUIRE_TIMEOUT_MILLS = 1000;
 		private int connectTimeoutMills = DEFAULT_CONNECTION_POOL_SIZE;
 		private int maxTotal;
 		private int maxIdle;
 		private int minIdle;
 		private int maxIdleTimeInMills;
+		private int multiplexConnections;
+		private long responseTimeoutMills;
+		private int maxWaiters = DEFAULT_MAX_WAITERS;
+		private long acquireTimeoutMills = DEFAULT_ACQUIRE_TIMEOUT_MILLS;
+		private boolean isFlushBatching;
+		private long flushMaxDelayMicros;
+		private int flushMaxBytes = DEFAULT_FLUSH_MAX_BYTES;
+		private int flushMaxCommands = DEFAULT_FLUSH_MAX_COMMANDS;
+		private boolean isResp3;
+		private PushListener pushListener;
 		private boolean isTcpNoDelay = true;
+		private boolean isTcpQuickAck;
+		private boolean isEpollEdgeTriggered = true;
 		private ByteBufAllocator allocator;
 		private RecvByteBufAllocator recvAllocator;
 		private MessageSizeEstimator estimator;
@@ -109,11 +308,174 @@ public class ConnectionPool {
 			return this;
 		}
 
+		public int getMultiplexConnections() {
+			return multiplexConnections;
+		}
+
+		/**
+		 * Set the number of multiplexed connections, if it is greater than 0,
+		 * the pool works in multiplexed mode: all commands share these
+		 * connections, each connection keeps a FIFO queue of the pending
+		 * responses and is never returned to the idle pool.
+		 * 
+		 * @param multiplexConnections
+		 * @return
+		 */
+		public ConnectionPoolConfig setMultiplexConnections(
+				int multiplexConnections) {
+			this.multiplexConnections = multiplexConnections;
+			return this;
+		}
+
+		public long getResponseTimeoutMills() {
+			return responseTimeoutMills;
+		}
+
+		/**
+		 * Set the default response deadline of the commands, 0 means never
+		 * timeout.
+		 * 
+		 * @param mills
+		 * @return
+		 */
+		public ConnectionPoolConfig setResponseTimeoutMills(long mills) {
+			this.responseTimeoutMills = mills;
+			return this;
+		}
+
+		public int getMaxWaiters() {
+			return maxWaiters;
+		}
+
+		/**
+		 * Set the max number of the commands waiting for an idle channel when
+		 * the pool is exhausted, the commands beyond it fail immediately.
+		 * 
+		 * @param maxWaiters
+		 * @return
+		 */
+		public ConnectionPoolConfig setMaxWaiters(int maxWaiters) {
+			this.maxWaiters = maxWaiters;
+			if (this.maxWaiters <= 0) {
+				this.maxWaiters = DEFAULT_MAX_WAITERS;
+			}
+			return this;
+		}
+
+		public long getAcquireTimeoutMills() {
+			return acquireTimeoutMills;
+		}
+
+		/**
+		 * Set how long a command waits for an idle channel when the pool is
+		 * exhausted, 0 means never timeout, a negative value means the
+		 * default.
+		 * 
+		 * @param mills
+		 * @return
+		 */
+		public ConnectionPoolConfig setAcquireTimeoutMills(long mills) {
+			this.acquireTimeoutMills = mills;
+			if (this.acquireTimeoutMills < 0) {
+				this.acquireTimeoutMills = DEFAULT_ACQUIRE_TIMEOUT_MILLS;
+			}
+			return this;
+		}
+
+		public boolean isFlushBatching() {
+			return isFlushBatching;
+		}
+
+		/**
+		 * Batch the written requests and flush them together, see
+		 * {@link AutoFlushHandler}
+		 * 
+		 * @param flag
+		 * @return
+		 */
+		public ConnectionPoolConfig setFlushBatching(boolean flag) {
+			this.isFlushBatching = flag;
+			return this;
+		}
+
+		public long getFlushMaxDelayMicros() {
+			return flushMaxDelayMicros;
+		}
+
+		public ConnectionPoolConfig setFlushMaxDelayMicros(long micros) {
+			this.flushMaxDelayMicros = micros;
+			return this;
+		}
+
+		public int getFlushMaxBytes() {
+			return flushMaxBytes;
+		}
+
+		public ConnectionPoolConfig setFlushMaxBytes(int bytes) {
+			this.flushMaxBytes = bytes;
+			if (this.flushMaxBytes <= 0) {
+				this.flushMaxBytes = DEFAULT_FLUSH_MAX_BYTES;
+			}
+			return this;
+		}
+
+		public int getFlushMaxCommands() {
+			return flushMaxCommands;
+		}
+
+		public ConnectionPoolConfig setFlushMaxCommands(int commands) {
+			this.flushMaxCommands = commands;
+			if (this.flushMaxCommands <= 0) {
+				this.flushMaxCommands = DEFAULT_FLUSH_MAX_COMMANDS;
+			}
+			return this;
+		}
+
+		public boolean isResp3() {
+			return isResp3;
+		}
+
+		public ConnectionPoolConfig setResp3(boolean flag) {
+			this.isResp3 = flag;
+			return this;
+		}
+
+		public PushListener getPushListener() {
+			return pushListener;
+		}
+
+		public ConnectionPoolConfig setPushListener(PushListener listener) {
+			this.pushListener = listener;
+			return this;
+		}
+
 		public ConnectionPoolConfig setTcpNoDelay(boolean flag) {
 			this.isTcpNoDelay = flag;
 			return this;
 		}
 
+		/**
+		 * Only for the epoll transport
+		 * 
+		 * @param flag
+		 * @return
+		 */
+		public ConnectionPoolConfig setTcpQuickAck(boolean flag) {
+			this.isTcpQuickAck = flag;
+			return this;
+		}
+
+		/**
+		 * Only for the epoll transport
+		 * 
+		 * @param flag
+		 * @return
+		 */
+		public ConnectionPoolConfig setEpollEdgeTriggered(boolean flag) {
+			this.isEpollEdgeTriggered = flag;
+			return this;
+		}
+
 		public ConnectionPoolConfig setByteBufAllocator(
 				ByteBufAllocator allocator) {
 			this.allocator = allocator;
@@ -134,22 +496,43 @@ public class ConnectionPool {
 	}
 
 	// private static final String RESP_CALLBACK = "resp_callback";
-	public static final AttributeKey<ResponeAdapter<?, ?>> RESP_ATTR_KEY = AttributeKey
-			.valueOf("resp_callback");
+	/**
+	 * The pending commands of a channel, the responses arrive in the same
+	 * order as the requests are written, so the head of this queue always
+	 * belongs to the next response. The queue is only accessed in the event
+	 * loop of the channel.
+	 */
+	static final AttributeKey<Queue<PendingCommand>> RESP_QUEUE_ATTR_KEY = AttributeKey
+			.valueOf("resp_queue");
 	private static final AttributeKey<Boolean> IDLE_CLOSING_FLAG = AttributeKey
 			.valueOf("idle_closing_flag");
+	private static final AttributeKey<PoolPartition> PARTITION_ATTR_KEY = AttributeKey
+			.valueOf("pool_partition");
+	/**
+	 * TRUE while the channel is kept by a {@link ChannelPin}, FALSE after it
+	 * is released
+	 */
+	private static final AttributeKey<Boolean> PINNED_ATTR_KEY = AttributeKey
+			.valueOf("pinned");
 	private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class
 			.getSimpleName());
+	private static final BinaryCommand HELLO_COMMAND = new BinaryCommand(
+			RedisCommand.HELLO, "3");
 	// private static final StringEncoder ENCODER = new StringEncoder();
-	private final BlockingQueue<Channel> idleChannels;
+	private PoolPartition[] partitions;
+	private DomainSocketAddress domainSocketAddress;
+	private final AtomicInteger partitionIndex = new AtomicInteger();
 	private final Object lock = new Object();
+	private final Set<Channel> subscriberChannels = Collections
+			.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
 	private EventLoopGroup group;
-	private final Bootstrap clientBootstrap;
 	private volatile boolean isClosed = true;
 	private ServerNode server;
 	private int connectTimeoutMills;
 
 	private boolean isTcpNoDelay = true;
+	private boolean isTcpQuickAck;
+	private boolean isEpollEdgeTriggered;
 	private ByteBufAllocator allocator;
 	private RecvByteBufAllocator recvAllocator;
 	private MessageSizeEstimator estimator;
@@ -161,24 +544,69 @@ public class ConnectionPool {
 
 	private Semaphore poolSizeController;
 	private ChannelFutureListener channelCloseFutureListener = new ChannelCloseFutureListener();
+	private ChannelFutureListener multiplexConnectFutureListener = new MultiplexConnectFutureListener();
+	private ChannelFutureListener helloFutureListener = new HelloFutureListener();
+	private ChannelFutureListener scriptLoadFutureListener = new ScriptLoadFutureListener();
+	private final ConcurrentMap<String, BinaryCommand> scriptLoadCommands = new ConcurrentHashMap<>();
 	private AtomicInteger closingIdleChannels;
 
+	private int multiplexConnections;
+	private Timer timer;
+	private long responseTimeoutMills;
+	private int maxWaiters;
+	private long acquireTimeoutMills;
+	private final ConcurrentLinkedDeque<ChannelWaiter> waiters = new ConcurrentLinkedDeque<>();
+	private final AtomicInteger waiterCount = new AtomicInteger();
+	private boolean isFlushBatching;
+	private long flushMaxDelayMicros;
+	private int flushMaxBytes;
+	private int flushMaxCommands;
+	private boolean isResp3;
+	private PushListener pushListener;
+	private AtomicReferenceArray<ChannelFuture> multiplexChannels;
+	private final AtomicInteger multiplexIndex = new AtomicInteger();
+
 	public ConnectionPool(EventLoopGroup group, ServerNode server,
 			ConnectionPoolConfig config) {
-		idleChannels = new LinkedBlockingQueue<>();
+		this(group, null, server, config);
+	}
+
+	/**
+	 * 
+	 * @param group
+	 * @param timer
+	 *            the timer of the response deadlines, no deadline if it is
+	 *            null
+	 * @param server
+	 * @param config
+	 */
+	public ConnectionPool(EventLoopGroup group, Timer timer,
+			ServerNode server, ConnectionPoolConfig config) {
 		this.connectTimeoutMills = config.getConnectTimeoutMills();
 		this.server = server;
 		// this.maxIdle = config.getMaxIdle();
 		this.maxTotal = config.getMaxTotal();
 		this.minIdle = config.getMinIdle();
 		this.maxIdleTimeInMilliSecondes = config.getMaxIdleTimeInMills();
+		this.multiplexConnections = config.getMultiplexConnections();
+		this.timer = timer;
+		this.responseTimeoutMills = config.getResponseTimeoutMills();
+		this.maxWaiters = config.getMaxWaiters();
+		this.acquireTimeoutMills = config.getAcquireTimeoutMills();
+		this.isFlushBatching = config.isFlushBatching();
+		this.flushMaxDelayMicros = config.getFlushMaxDelayMicros();
+		this.flushMaxBytes = config.getFlushMaxBytes();
+		this.flushMaxCommands = config.getFlushMaxCommands();
+		this.isResp3 = config.isResp3();
+		this.pushListener = config.getPushListener();
 		this.isTcpNoDelay = config.isTcpNoDelay;
+		this.isTcpQuickAck = config.isTcpQuickAck;
+		this.isEpollEdgeTriggered = config.isEpollEdgeTriggered;
 		this.allocator = config.allocator;
 		this.recvAllocator = config.recvAllocator;
 		this.estimator = config.estimator;
 
 		this.group = group;
-		this.clientBootstrap = new Bootstrap();
 		closingIdleChannels = new AtomicInteger();
 
 	}
@@ -207,43 +635,89 @@ public class ConnectionPool {
 	private void initClientBootstrap() {
 		final ResponseReceiver commandHandler = new ResponseReceiver();
 		commandHandler.setConnectionPool(this);
-		clientBootstrap
-				.group(group)
-				.channel(NioSocketChannel.class)
-				.option(ChannelOption.SO_KEEPALIVE, true)
-				.option(ChannelOption.TCP_NODELAY, isTcpNoDelay)
-				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
-						connectTimeoutMills)
-				.option(ChannelOption.ALLOCATOR, allocator)
-				.option(ChannelOption.RCVBUF_ALLOCATOR, recvAllocator)
-				.option(ChannelOption.MESSAGE_SIZE_ESTIMATOR, estimator)
-				.handler(new ChannelInitializer<SocketChannel>() {
-					@Override
-					public void initChannel(SocketChannel ch) throws Exception {
-						ch.pipeline().addLast(
-								LoggingHandler.class.getSimpleName(),
-								new LoggingHandler(LogLevel.INFO));
-						ch.pipeline().addLast(
-								ProtocolDecoder.class.getSimpleName(),
-								new ProtocolDecoder());
-						// ch.pipeline().addLast(
-						// ENCODER.getClass().getSimpleName(), ENCODER);
-						ch.pipeline().addLast(
-								IdleStateHandler.class.getSimpleName(),
-								new IdleStateHandler(0, 0,
-										maxIdleTimeInMilliSecondes,
-										TimeUnit.MILLISECONDS));
-						ch.pipeline().addLast(
-								commandHandler.getClass().getSimpleName(),
-								commandHandler);
-					}
-				});
+		commandHandler.setPushListener(pushListener);
+		final CommandWriter commandWriter = new CommandWriter(timer);
+		ChannelInitializer<Channel> initializer = new ChannelInitializer<Channel>() {
+			@Override
+			public void initChannel(Channel ch) throws Exception {
+				ch.attr(RESP_QUEUE_ATTR_KEY).set(
+						new ArrayDeque<PendingCommand>());
+				ch.pipeline().addLast(LoggingHandler.class.getSimpleName(),
+						new LoggingHandler(LogLevel.INFO));
+				ch.pipeline().addLast(ProtocolDecoder.class.getSimpleName(),
+						new ProtocolDecoder());
+				// ch.pipeline().addLast(
+				// ENCODER.getClass().getSimpleName(), ENCODER);
+				ch.pipeline().addLast(
+						IdleStateHandler.class.getSimpleName(),
+						new IdleStateHandler(0, 0, maxIdleTimeInMilliSecondes,
+								TimeUnit.MILLISECONDS));
+				ch.pipeline().addLast(
+						commandHandler.getClass().getSimpleName(),
+						commandHandler);
+				if (isFlushBatching) {
+					ch.pipeline().addLast(
+							AutoFlushHandler.class.getSimpleName(),
+							new AutoFlushHandler(flushMaxDelayMicros,
+									flushMaxBytes, flushMaxCommands));
+				}
+				ch.pipeline().addLast(
+						commandWriter.getClass().getSimpleName(),
+						commandWriter);
+			}
+		};
+		Transport transport = Transport.of(group);
+		if (server.isDomainSocket()) {
+			domainSocketAddress = new DomainSocketAddress(
+					server.getSocketPath());
+		}
+		// one partition per event loop, its channels are all registered to
+		// that event loop
+		List<PoolPartition> partitionList = new ArrayList<>();
+		Iterator<EventExecutor> it = group.iterator();
+		while (it.hasNext()) {
+			PoolPartition partition = new PoolPartition(partitionList.size(),
+					(EventLoop) it.next());
+			partition.bootstrap = new Bootstrap()
+					.group(partition.eventLoop)
+					.option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+							connectTimeoutMills)
+					.option(ChannelOption.ALLOCATOR, allocator)
+					.option(ChannelOption.RCVBUF_ALLOCATOR, recvAllocator)
+					.option(ChannelOption.MESSAGE_SIZE_ESTIMATOR, estimator)
+					.attr(PARTITION_ATTR_KEY, partition).handler(initializer);
+			if (domainSocketAddress != null) {
+				partition.bootstrap.channel(transport
+						.domainSocketChannelClass());
+				partitionList.add(partition);
+				continue;
+			}
+			partition.bootstrap.channel(transport.socketChannelClass())
+					.option(ChannelOption.SO_KEEPALIVE, true)
+					.option(ChannelOption.TCP_NODELAY, isTcpNoDelay);
+			if (transport == Transport.EPOLL) {
+				partition.bootstrap
+						.option(EpollChannelOption.TCP_QUICKACK, isTcpQuickAck)
+						.option(EpollChannelOption.EPOLL_MODE,
+								isEpollEdgeTriggered ? EpollMode.EDGE_TRIGGERED
+										: EpollMode.LEVEL_TRIGGERED);
+			}
+			partitionList.add(partition);
+		}
+		partitions = partitionList.toArray(new PoolPartition[partitionList
+				.size()]);
 	}
 
 	private void initPool() {
-		idleChannels.clear();
+		for (PoolPartition partition : partitions) {
+			partition.idleChannels.clear();
+		}
 		poolSizeController = new Semaphore(maxTotal);
 		closingIdleChannels.set(0);
+		if (isMultiplexed()) {
+			multiplexChannels = new AtomicReferenceArray<>(multiplexConnections);
+			return;
+		}
 		if (minIdle <= 0) {
 			return;
 		}
@@ -258,7 +732,11 @@ public class ConnectionPool {
 						if (future.isSuccess()) {
 							future.channel().closeFuture()
 									.addListener(channelCloseFutureListener);
-							addIdleChannel(future.channel());
+							// otherwise it is returned to the pool by the
+							// reply of the HELLO
+							if (!isResp3) {
+								addIdleChannel(future.channel());
+							}
 
 						} else {
 							LOGGER.log(Level.SEVERE,
@@ -274,15 +752,49 @@ public class ConnectionPool {
 	}
 
 	public int idleSize() {
-		return idleChannels.size();
+		int idleSize = 0;
+		for (PoolPartition partition : partitions) {
+			idleSize += partition.idleChannels.size();
+		}
+		return idleSize;
+	}
+
+	/**
+	 * Load the script by every new connection from now on
+	 * 
+	 * @param script
+	 */
+	void registerScript(Script script) {
+		CommandArgs args = new CommandArgs(2).add(RedisKeyword.LOAD).add(
+				script.getBody());
+		scriptLoadCommands.putIfAbsent(script.getSha1(), new BinaryCommand(
+				RedisCommand.SCRIPT, args));
+	}
+
+	public boolean isMultiplexed() {
+		return multiplexConnections > 0;
 	}
 
 	public <S, T> void sendCommand(BinaryCommand message,
-			ResponeAdapter<S, T> responseAdapter) throws InterruptedException {
+			ResponeAdapter<S, T> responseAdapter) {
 		if (isClosed) {
 			throw new IllegalStateException(
 					"The connection pool has not been initialized yet, must call init() to initialize.");
 		}
+		if (isMultiplexed()) {
+			RedisCommand command = message != null ? message
+					.getRedisCommand() : null;
+			if (isConnectionStateCommand(command)) {
+				throw new NedisException(command
+						+ " changes the shared connections, it is not supported in multiplexed mode.");
+			}
+			if (isBlockingCommand(command)) {
+				sendCommandWithDedicatedChannel(message, responseAdapter);
+				return;
+			}
+			sendCommandWithMultiplexChannel(message, responseAdapter);
+			return;
+		}
 		if (idleSize() < minIdle
 				&& sendCommandWithNewChannel(message, responseAdapter)) {
 			return;
@@ -292,11 +804,147 @@ public class ConnectionPool {
 		}
 		if (sendCommandWithNewChannel(message, responseAdapter))
 			return;
-		throw new NedisException("Connect failed.");
+		waitForChannel(message, responseAdapter);
+	}
+
+	private static boolean isBlockingCommand(RedisCommand command) {
+		return command == RedisCommand.BLPOP || command == RedisCommand.BRPOP
+				|| command == RedisCommand.BRPOPLPUSH;
+	}
+
+	private static boolean isConnectionStateCommand(RedisCommand command) {
+		return command == RedisCommand.SELECT || command == RedisCommand.AUTH
+				|| command == RedisCommand.QUIT;
+	}
+
+	/**
+	 * A blocking command would hold up all the commands behind it on a
+	 * multiplexed channel, so it is sent on a channel of its own, which is
+	 * closed after the reply arrives.
+	 * 
+	 * @param message
+	 * @param responseAdapter
+	 */
+	private <S, T> void sendCommandWithDedicatedChannel(BinaryCommand message,
+			ResponeAdapter<S, T> responseAdapter) {
+		ChannelPin pin = new ChannelPin();
+		List<ResponeAdapter<?, ?>> adapters = Collections
+				.<ResponeAdapter<?, ?>> singletonList(responseAdapter);
+		sendCommands(Collections.singletonList(message), adapters, pin);
+		releaseChannel(pin);
+	}
+
+	/**
+	 * Send the commands on one channel by one write and one flush, their
+	 * requests are encoded before a channel is obtained, so a bad argument
+	 * is thrown here without holding any channel, the other failures fail all
+	 * the commands.
+	 * 
+	 * @param messages
+	 * @param responseAdapters
+	 */
+	void sendCommands(List<BinaryCommand> messages,
+			List<ResponeAdapter<?, ?>> responseAdapters) {
+		sendCommands(messages, responseAdapters, null);
+	}
+
+	/**
+	 * Send the commands on the channel of the pin, the first batch obtains the
+	 * channel for the pin, a dedicated one instead of a shared one if the pool
+	 * is multiplexed.
+	 * 
+	 * @param messages
+	 * @param responseAdapters
+	 * @param pin
+	 *            null if the commands can be sent on any channel
+	 */
+	void sendCommands(List<BinaryCommand> messages,
+			List<ResponeAdapter<?, ?>> responseAdapters, ChannelPin pin) {
+		ByteBuf request = RedisProtocol.generateRequests(messages,
+				allocator != null ? allocator : ByteBufAllocator.DEFAULT);
+		PendingCommand[] commands = new PendingCommand[responseAdapters
+				.size()];
+		for (int i = 0; i < commands.length; i++) {
+			ResponeAdapter<?, ?> responseAdapter = responseAdapters.get(i);
+			commands[i] = new PendingCommand(null, responseAdapter,
+					responseTimeoutMills(responseAdapter));
+		}
+		CommandBatch batch = new CommandBatch(request, commands);
+		try {
+			if (pin != null) {
+				sendPinnedBatch(batch, pin);
+				return;
+			}
+			// the batch takes the place of the adapter until it is written
+			sendCommand(null, batch);
+		} catch (Throwable e) {
+			LOGGER.log(Level.WARNING, e.getMessage(), e);
+			batch.failed(e);
+		}
+	}
+
+	private void sendPinnedBatch(CommandBatch batch, ChannelPin pin) {
+		if (isClosed) {
+			throw new IllegalStateException(
+					"The connection pool has not been initialized yet, must call init() to initialize.");
+		}
+		synchronized (pin) {
+			if (pin.isReleased()) {
+				throw new IllegalStateException(
+						"The channel has already been released.");
+			}
+			Channel channel = pin.getChannel();
+			if (channel != null) {
+				if (!channel.isActive()) {
+					throw new NedisException(channel + " closed.");
+				}
+				channel.writeAndFlush(batch).addListener(batch);
+				return;
+			}
+			if (!pin.startBinding(batch)) {
+				return;
+			}
+		}
+		batch.setPin(pin);
+		if (!isMultiplexed()) {
+			sendCommand(null, batch);
+			return;
+		}
+		// the multiplexed channels are shared, a new one is kept instead, it
+		// waits for a kept one to be closed if the pool is exhausted
+		if (!sendCommandWithNewChannel(null, batch)) {
+			waitForChannel(null, batch);
+		}
+	}
+
+	/**
+	 * Give back the channel of the pin, it is returned to the pool after the
+	 * replies of its commands arrive, or closed if the pool is multiplexed.
+	 * 
+	 * @param pin
+	 */
+	void releaseChannel(ChannelPin pin) {
+		Channel ch = pin.release();
+		if (ch != null) {
+			unpin(ch);
+		}
+	}
+
+	private void unpin(final Channel ch) {
+		ch.eventLoop().execute(new Runnable() {
+
+			@Override
+			public void run() {
+				ch.attr(PINNED_ATTR_KEY).set(Boolean.FALSE);
+				if (ch.attr(RESP_QUEUE_ATTR_KEY).get().isEmpty()) {
+					returnToPool(ch);
+				}
+			}
+		});
 	}
 
 	private <S, T> boolean sendCommandWithPoolChannel(BinaryCommand message,
-			ResponeAdapter<S, T> responseAdapter) throws InterruptedException {
+			ResponeAdapter<S, T> responseAdapter) {
 		Channel channel = obtainFromPool();
 		if (channel != null) {
 			sendMessage(channel, message, responseAdapter);
@@ -328,6 +976,8 @@ public class ConnectionPool {
 						if (responseAdapter != null) {
 							responseAdapter.failed(future.cause());
 						}
+						// the permit is free again for the waiters
+						dispatchWaiterWithNewChannel();
 					}
 				}
 			});
@@ -336,12 +986,151 @@ public class ConnectionPool {
 		return false;
 	}
 
+	private <S, T> void sendCommandWithMultiplexChannel(
+			final BinaryCommand message,
+			final ResponeAdapter<S, T> responseAdapter) {
+		ChannelFuture connectFuture = obtainMultiplexChannel();
+		if (connectFuture == null) {
+			throw new NedisException("Connect failed.");
+		}
+		if (connectFuture.isDone()) {
+			sendMessage(connectFuture, message, responseAdapter);
+			return;
+		}
+		// the connection is being established, all the commands arrived in
+		// the mean time are sent after connected
+		connectFuture.addListener(new ChannelFutureListener() {
+
+			@Override
+			public void operationComplete(ChannelFuture future)
+					throws Exception {
+				sendMessage(future, message, responseAdapter);
+			}
+		});
+	}
+
+	private ChannelFuture obtainMultiplexChannel() {
+		ChannelFuture connectFuture = localMultiplexChannel();
+		if (connectFuture != null) {
+			return connectFuture;
+		}
+		int index = (multiplexIndex.getAndIncrement() & Integer.MAX_VALUE)
+				% multiplexConnections;
+		connectFuture = multiplexChannels.get(index);
+		if (isMultiplexChannelUsable(connectFuture)) {
+			return connectFuture;
+		}
+		synchronized (multiplexChannels) {
+			connectFuture = multiplexChannels.get(index);
+			if (isMultiplexChannelUsable(connectFuture)) {
+				return connectFuture;
+			}
+			connectFuture = createNewChannel();
+			if (connectFuture == null) {
+				return null;
+			}
+			connectFuture.addListener(multiplexConnectFutureListener);
+			multiplexChannels.set(index, connectFuture);
+			return connectFuture;
+		}
+	}
+
+	/**
+	 * The usable multiplexed channel registered on the event loop of the
+	 * caller, a command sent from a callback is then written without a task
+	 * switch
+	 * 
+	 * @return null if the caller is not in an event loop or no such channel
+	 */
+	private ChannelFuture localMultiplexChannel() {
+		if (currentPartition() == null) {
+			return null;
+		}
+		for (int i = 0; i < multiplexConnections; i++) {
+			ChannelFuture connectFuture = multiplexChannels.get(i);
+			if (isMultiplexChannelUsable(connectFuture)
+					&& connectFuture.channel().isRegistered()
+					&& connectFuture.channel().eventLoop().inEventLoop()) {
+				return connectFuture;
+			}
+		}
+		return null;
+	}
+
+	private boolean isMultiplexChannelUsable(ChannelFuture connectFuture) {
+		return connectFuture != null
+				&& (!connectFuture.isDone() || connectFuture.channel()
+						.isActive());
+	}
+
+	/**
+	 * Connect a channel out of the pool for a {@link Subscriber}, it has no
+	 * pending queue, no idle timeout and no HELLO, the handler reads all the
+	 * replies. It is closed with the pool.
+	 * 
+	 * @param isBulkRetained
+	 *            true if the bulks are read as retained slices
+	 * @param handler
+	 * @return
+	 */
+	ChannelFuture connectSubscriber(final boolean isBulkRetained,
+			final ChannelHandler handler) {
+		if (isClosed) {
+			throw new IllegalStateException("The pool has been closed.");
+		}
+		Bootstrap bootstrap = nextPartition().bootstrap.clone().handler(
+				new ChannelInitializer<Channel>() {
+					@Override
+					public void initChannel(Channel ch) throws Exception {
+						ch.pipeline().addLast(
+								LoggingHandler.class.getSimpleName(),
+								new LoggingHandler(LogLevel.INFO));
+						ch.pipeline().addLast(
+								ProtocolDecoder.class.getSimpleName(),
+								new ProtocolDecoder(isBulkRetained));
+						ch.pipeline().addLast(Subscriber.class.getSimpleName(),
+								handler);
+					}
+				});
+		ChannelFuture connectFuture;
+		if (domainSocketAddress != null) {
+			connectFuture = bootstrap.connect(domainSocketAddress);
+		} else {
+			connectFuture = bootstrap.connect(server.getHost(),
+					server.getPort());
+		}
+		final Channel ch = connectFuture.channel();
+		subscriberChannels.add(ch);
+		ch.closeFuture().addListener(new ChannelFutureListener() {
+
+			@Override
+			public void operationComplete(ChannelFuture future)
+					throws Exception {
+				subscriberChannels.remove(ch);
+			}
+		});
+		return connectFuture;
+	}
+
 	private ChannelFuture createNewChannel() {
 		ChannelFuture connectFuture = null;
 		if (poolSizeController.tryAcquire()) {
 			try {
-				connectFuture = clientBootstrap.connect(server.getHost(),
-						server.getPort());
+				Bootstrap bootstrap = nextPartition().bootstrap;
+				if (domainSocketAddress != null) {
+					connectFuture = bootstrap.connect(domainSocketAddress);
+				} else {
+					connectFuture = bootstrap.connect(server.getHost(),
+							server.getPort());
+				}
+				// it is the first listener, so the HELLO is written before
+				// any command
+				if (isResp3) {
+					connectFuture.addListener(helloFutureListener);
+				}
+				if (!scriptLoadCommands.isEmpty()) {
+					connectFuture.addListener(scriptLoadFutureListener);
+				}
 			} catch (Throwable e) {
 				LOGGER.log(Level.SEVERE, "connect failed", e);
 				poolSizeController.release();
@@ -350,54 +1139,309 @@ public class ConnectionPool {
 		return connectFuture;
 	}
 
+	private <S, T> void sendMessage(ChannelFuture connectFuture,
+			BinaryCommand message, ResponeAdapter<S, T> responseAdapter) {
+		if (connectFuture.isSuccess()) {
+			sendMessage(connectFuture.channel(), message, responseAdapter);
+		} else if (responseAdapter != null) {
+			responseAdapter.failed(connectFuture.cause());
+		}
+	}
+
 	private <S, T> void sendMessage(Channel ch, final BinaryCommand message,
 			final ResponeAdapter<S, T> responseAdapter) {
 		// LOGGER.log(Level.INFO,
 		// "channel:" + ch + ",send command:" + message.toString());
-		ch.attr(RESP_ATTR_KEY).set(responseAdapter);
+		if (responseAdapter instanceof CommandBatch) {
+			// it has been encoded, and it is flushed at once
+			CommandBatch batch = (CommandBatch) responseAdapter;
+			if (batch.getPin() != null) {
+				bindChannel(ch, batch);
+				return;
+			}
+			ch.writeAndFlush(batch).addListener(batch);
+			return;
+		}
 		ByteBuf msg = RedisProtocol.generateRequest(message, ch.alloc());
-		ch.writeAndFlush(msg).addListener(
-				ChannelFutureListener.CLOSE_ON_FAILURE);
+		final PendingCommand pendingCommand = new PendingCommand(msg,
+				responseAdapter, responseTimeoutMills(responseAdapter));
+		if (!isFlushBatching) {
+			ch.writeAndFlush(pendingCommand).addListener(pendingCommand);
+			return;
+		}
+		// flushed by AutoFlushHandler
+		if (ch.eventLoop().inEventLoop()) {
+			writeToBatch(ch, pendingCommand);
+			return;
+		}
+		// a write without flush does not wake up the event loop, so submit it
+		// as a task
+		final Channel channel = ch;
+		ch.eventLoop().execute(new Runnable() {
+
+			@Override
+			public void run() {
+				writeToBatch(channel, pendingCommand);
+			}
+		});
 	}
 
-	private Channel obtainFromPool() throws InterruptedException {
-		Channel channel = idleChannels.poll();
-		while (channel != null && !channel.isActive()) {
-			channel = idleChannels.poll();
+	private void bindChannel(Channel ch, CommandBatch batch) {
+		ChannelPin pin = batch.getPin();
+		// it is not returned to the pool when its pending queue gets empty
+		ch.attr(PINNED_ATTR_KEY).set(Boolean.TRUE);
+		boolean isReleased;
+		synchronized (pin) {
+			// the batches held are written behind the first one
+			List<CommandBatch> batches = pin.bind(ch);
+			isReleased = pin.isReleased();
+			ch.writeAndFlush(batch).addListener(batch);
+			for (CommandBatch waiting : batches) {
+				ch.writeAndFlush(waiting).addListener(waiting);
+			}
 		}
-		if (poolSizeController.availablePermits() != 0) {
-			return null;
+		// released before the channel was obtained
+		if (isReleased) {
+			unpin(ch);
 		}
-		if (channel == null || !channel.isActive()) {
-			channel = idleChannels.poll(connectTimeoutMills,
-					TimeUnit.MILLISECONDS);
-			if (channel == null || !channel.isActive()) {
-				LOGGER.log(Level.WARNING, "obtain channel from pool timeout");
-				return null;
+	}
+
+	private void writeToBatch(Channel ch, PendingCommand pendingCommand) {
+		ch.write(pendingCommand).addListener(pendingCommand);
+	}
+
+	private long responseTimeoutMills(ResponeAdapter<?, ?> responseAdapter) {
+		if (responseAdapter instanceof BaseResponseAdapter) {
+			ResponseCallback<?> callback = ((BaseResponseAdapter<?, ?>) responseAdapter)
+					.getResponseCallback();
+			if (callback instanceof NedisFuture) {
+				callback = ((NedisFuture<?>) callback).getCallback();
+			}
+			if (callback instanceof ResponseTimeoutCallback) {
+				return ((ResponseTimeoutCallback<?>) callback)
+						.getResponseTimeoutMills();
+			}
+		}
+		return responseTimeoutMills;
+	}
+
+	private void failPendingResponses(Channel ch, Throwable cause) {
+		Queue<PendingCommand> respQueue = ch.attr(RESP_QUEUE_ATTR_KEY).get();
+		if (respQueue == null) {
+			return;
+		}
+		PendingCommand pendingCommand = respQueue.poll();
+		while (pendingCommand != null) {
+			pendingCommand.failed(cause);
+			pendingCommand = respQueue.poll();
+		}
+	}
+
+	/**
+	 * Borrow an idle channel, the partition of current event loop is tried
+	 * first, and then the others.
+	 * 
+	 * @return
+	 */
+	private Channel obtainFromPool() {
+		PoolPartition local = currentPartition();
+		int start = local != null ? local.index : (int) (Thread
+				.currentThread().getId() % partitions.length);
+		for (int i = 0; i < partitions.length; i++) {
+			IdleChannelStack idleChannels = partitions[(start + i)
+					% partitions.length].idleChannels;
+			Channel channel = idleChannels.pop();
+			while (channel != null && !channel.isActive()) {
+				channel = idleChannels.pop();
+			}
+			if (channel != null) {
+				LOGGER.log(Level.INFO, channel + " reuse");
+				return channel;
+			}
+		}
+		return null;
+	}
+
+	private PoolPartition currentPartition() {
+		for (PoolPartition partition : partitions) {
+			if (partition.eventLoop.inEventLoop()) {
+				return partition;
 			}
 		}
-		LOGGER.log(Level.INFO, channel + " reuse");
-		return channel;
+		return null;
+	}
+
+	/**
+	 * The partition which a new channel is created in, the caller in an event
+	 * loop gets its own partition.
+	 * 
+	 * @return
+	 */
+	private PoolPartition nextPartition() {
+		PoolPartition partition = currentPartition();
+		if (partition != null) {
+			return partition;
+		}
+		int index = (partitionIndex.getAndIncrement() & Integer.MAX_VALUE)
+				% partitions.length;
+		return partitions[index];
+	}
+
+	/**
+	 * The pool is exhausted, park the command in the waiter queue until a
+	 * channel is returned, the caller thread is never blocked.
+	 * 
+	 * @param message
+	 * @param responseAdapter
+	 */
+	private <S, T> void waitForChannel(BinaryCommand message,
+			ResponeAdapter<S, T> responseAdapter) {
+		if (waiterCount.incrementAndGet() > maxWaiters) {
+			waiterCount.getAndDecrement();
+			throw new NedisException("Too many commands waiting for channel: "
+					+ maxWaiters);
+		}
+		ChannelWaiter waiter = new ChannelWaiter(message, responseAdapter);
+		if (acquireTimeoutMills > 0) {
+			waiter.timeoutFuture = group.next().schedule(waiter,
+					acquireTimeoutMills, TimeUnit.MILLISECONDS);
+		}
+		waiters.offer(waiter);
+		// a channel may be returned before this waiter was queued
+		Channel channel = obtainFromPool();
+		if (channel != null) {
+			handOverChannel(channel);
+			return;
+		}
+		// or closed, its permit is free then
+		openChannelForWaiters();
+	}
+
+	/**
+	 * Open a new channel for the waiters if the pool is not full, it is
+	 * handed over to the first waiter after connected.
+	 */
+	private void openChannelForWaiters() {
+		if (isClosed || waiters.isEmpty()) {
+			return;
+		}
+		ChannelFuture connectFuture = createNewChannel();
+		if (connectFuture == null) {
+			return;
+		}
+		connectFuture.addListener(new ChannelFutureListener() {
+
+			@Override
+			public void operationComplete(ChannelFuture future)
+					throws Exception {
+				if (future.isSuccess()) {
+					future.channel().closeFuture()
+							.addListener(channelCloseFutureListener);
+					handOverChannel(future.channel());
+					return;
+				}
+				LOGGER.log(Level.SEVERE, future.channel()
+						+ " connect failed, exception: " + future.cause());
+				poolSizeController.release();
+				ChannelWaiter waiter = pollWaiter();
+				if (waiter != null) {
+					waiter.failed(future.cause());
+				}
+				dispatchWaiterWithNewChannel();
+			}
+		});
+	}
+
+	/**
+	 * Hand over the channel to the first waiter, or put it back to the idle
+	 * pool if no one is waiting.
+	 * 
+	 * @param ch
+	 */
+	private void handOverChannel(Channel ch) {
+		while (ch != null) {
+			ChannelWaiter waiter = pollWaiter();
+			if (waiter != null) {
+				sendMessage(ch, waiter.message, waiter.responseAdapter);
+				return;
+			}
+			addIdleChannel(ch);
+			// a waiter may be queued after the check above, it would miss the
+			// channel just added
+			if (waiters.isEmpty()) {
+				return;
+			}
+			ch = obtainFromPool();
+		}
+	}
+
+	private void dispatchWaiterWithNewChannel() {
+		if (isClosed) {
+			return;
+		}
+		ChannelWaiter waiter = pollWaiter();
+		if (waiter == null) {
+			return;
+		}
+		if (sendCommandWithNewChannel(waiter.message, waiter.responseAdapter)) {
+			return;
+		}
+		// the channel closed has been replaced by another command, so wait
+		// for the next one again
+		try {
+			waitForChannel(waiter.message, waiter.responseAdapter);
+		} catch (NedisException e) {
+			waiter.failed(e);
+		}
+	}
+
+	private ChannelWaiter pollWaiter() {
+		ChannelWaiter waiter = waiters.poll();
+		// skip the timeout waiters
+		while (waiter != null && !waiter.complete()) {
+			waiter = waiters.poll();
+		}
+		return waiter;
 	}
 
 	public void returnToPool(Channel ch) {
+		Boolean pinned = ch != null ? ch.attr(PINNED_ATTR_KEY).get() : null;
+		if (pinned != null && pinned) {
+			return;
+		}
+		// the channel kept by a transaction is not one of the shared ones
+		if (pinned != null && isMultiplexed()) {
+			ch.close();
+			return;
+		}
+		// the multiplexed channels are shared by all commands, they are never
+		// borrowed from the idle pool
+		if (isMultiplexed()) {
+			return;
+		}
 		if (ch != null && ch.isActive()) {
-			ch.attr(RESP_ATTR_KEY).set(null);
 			if (isClosed) {
 				LOGGER.log(Level.INFO,
 						"The pool has already been closed, so close this channel directly.");
-				try {
-					ch.close().sync();
-				} catch (InterruptedException e) {
-					LOGGER.log(Level.SEVERE, e.getMessage(), e);
-				}
+				ch.close();
 				return;
 			}
-			addIdleChannel(ch);
+			handOverChannel(ch);
 		}
 	}
 
 	public ChannelFuture closeIdle(Channel ch) {
+		Boolean pinned = ch.attr(PINNED_ATTR_KEY).get();
+		if (pinned != null && pinned) {
+			return null;
+		}
+		if (isMultiplexed()) {
+			// it will be reconnected by the next command
+			if (!ch.attr(RESP_QUEUE_ATTR_KEY).get().isEmpty()) {
+				return null;
+			}
+			return ch.close();
+		}
 		LOGGER.log(Level.INFO, "idleSize:" + idleSize());
 		int idleSize = idleSize();
 		if ((idleSize = idleSize - closingIdleChannels.getAndIncrement()) <= minIdle) {
@@ -432,11 +1476,10 @@ public class ConnectionPool {
 		LOGGER.log(Level.INFO, "Close this pool.");
 		ChannelGroup channelGroup = new DefaultChannelGroup(
 				GlobalEventExecutor.INSTANCE);
-		Channel ch = idleChannels.poll();
+		Channel ch = obtainFromPool();
 		while (ch != null) {
 			try {
 				channelGroup.add(ch);
-				idleChannels.remove(ch);
 			} catch (VirtualMachineError e) {
 				throw e;
 			} catch (Throwable t) {
@@ -444,15 +1487,29 @@ public class ConnectionPool {
 				LOGGER.log(Level.WARNING,
 						"Swallow this exception:" + t.getMessage());
 			}
-			ch = idleChannels.poll();
+			ch = obtainFromPool();
+		}
+		if (isMultiplexed()) {
+			for (int i = 0; i < multiplexChannels.length(); i++) {
+				ChannelFuture connectFuture = multiplexChannels.getAndSet(i,
+						null);
+				if (connectFuture != null) {
+					channelGroup.add(connectFuture.channel());
+				}
+			}
+		}
+		channelGroup.addAll(subscriberChannels);
+		ChannelWaiter waiter = pollWaiter();
+		while (waiter != null) {
+			waiter.failed(new NedisException("The pool has been closed."));
+			waiter = pollWaiter();
 		}
 		channelGroup.close().sync();
 	}
 
 	private void addIdleChannel(Channel ch) {
-		if (idleChannels.offer(ch)) {
-			LOGGER.log(Level.INFO, ch + " has been returned");
-		}
+		ch.attr(PARTITION_ATTR_KEY).get().idleChannels.push(ch);
+		LOGGER.log(Level.INFO, ch + " has been returned");
 		LOGGER.log(Level.INFO, "idleSize:" + idleSize());
 	}
 
@@ -460,7 +1517,7 @@ public class ConnectionPool {
 		if (cause != null) {
 			LOGGER.log(Level.WARNING, cause.getMessage(), cause);
 		}
-		idleChannels.remove(ch);
+		ch.attr(PARTITION_ATTR_KEY).get().idleChannels.remove(ch);
 		poolSizeController.release();
 		LOGGER.log(Level.INFO, "idleSize:" + idleSize());
 	}
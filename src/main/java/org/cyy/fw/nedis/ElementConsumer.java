@@ -0,0 +1,45 @@
+package org.cyy.fw.nedis;
+
+/**
+ * The consumer of a streamed multi-bulk reply, the reply is not collected,
+ * its elements are passed to {@link #element(Object)} one by one as they are
+ * decoded, so only one element is kept in memory no matter how large the
+ * collection is. All the methods are called in the event loop of the
+ * connection, they must not block.
+ * 
+ * @author yunyun
+ * 
+ * @param <T>
+ *            The element type
+ */
+public interface ElementConsumer<T> {
+
+	/**
+	 * The reply starts.
+	 * 
+	 * @param size
+	 *            the number of the elements, 0 if the collection is empty
+	 */
+	void start(int size);
+
+	/**
+	 * An element has been decoded.
+	 * 
+	 * @param element
+	 */
+	void element(T element);
+
+	/**
+	 * All the elements have been passed.
+	 */
+	void end();
+
+	/**
+	 * The reply is failed by some cause, it may be called after
+	 * {@link #start(int)}, the remaining elements are discarded then.
+	 * 
+	 * @param cause
+	 *            the failed cause
+	 */
+	void failed(Throwable cause);
+}
@@ -0,0 +1,140 @@
+package org.cyy.fw.nedis;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock-free LIFO stack of the idle channels (Treiber stack). The most
+ * recently returned channel is borrowed first, so the hot channels are reused
+ * while the cold ones stay at the bottom until they are closed by the idle
+ * checker.
+ * <p>
+ * The node of a channel is kept in the channel attribute, so a closed channel
+ * is removed in O(1) by marking its node, the marked nodes are skipped by
+ * {@link #pop()} and unlinked from the stack once they are more than the live
+ * ones.
+ *
+ * @author yunyun
+ *
+ */
+final class IdleChannelStack {
+
+	private static final class Node {
+		private static final AtomicIntegerFieldUpdater<Node> STATE_UPDATER = AtomicIntegerFieldUpdater
+				.newUpdater(Node.class, "state");
+		private final Channel channel;
+		private volatile Node next;
+		// 0: in the stack, 1: popped or removed
+		private volatile int state;
+
+		Node(Channel channel) {
+			super();
+			this.channel = channel;
+		}
+
+		boolean claim() {
+			return STATE_UPDATER.compareAndSet(this, 0, 1);
+		}
+
+		boolean isClaimed() {
+			return state != 0;
+		}
+	}
+
+	private static final AttributeKey<Node> IDLE_NODE_ATTR_KEY = AttributeKey
+			.valueOf("idle_node");
+	private final AtomicReference<Node> head = new AtomicReference<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicInteger removedNodes = new AtomicInteger();
+	private final AtomicBoolean isPurging = new AtomicBoolean();
+
+	void push(Channel ch) {
+		Node node = new Node(ch);
+		ch.attr(IDLE_NODE_ATTR_KEY).set(node);
+		size.getAndIncrement();
+		Node top;
+		do {
+			top = head.get();
+			node.next = top;
+		} while (!head.compareAndSet(top, node));
+	}
+
+	Channel pop() {
+		for (;;) {
+			Node top = head.get();
+			if (top == null) {
+				return null;
+			}
+			if (!head.compareAndSet(top, top.next)) {
+				continue;
+			}
+			if (top.claim()) {
+				size.getAndDecrement();
+				top.channel.attr(IDLE_NODE_ATTR_KEY).compareAndSet(top, null);
+				return top.channel;
+			}
+			// it has been removed already, skip it
+		}
+	}
+
+	/**
+	 * Remove the channel in O(1), the node is only marked here
+	 *
+	 * @param ch
+	 * @return
+	 */
+	boolean remove(Channel ch) {
+		Node node = ch.attr(IDLE_NODE_ATTR_KEY).getAndSet(null);
+		if (node == null || !node.claim()) {
+			return false;
+		}
+		size.getAndDecrement();
+		if (removedNodes.incrementAndGet() > size.get()) {
+			purge();
+		}
+		return true;
+	}
+
+	int size() {
+		return size.get();
+	}
+
+	void clear() {
+		while (pop() != null) {
+			// NOOP
+		}
+	}
+
+	/**
+	 * Unlink the removed nodes, only the next links below the top are
+	 * changed, the concurrent pop either sees the old next or the new one,
+	 * both of them lead to the same live nodes. The removed count is only a
+	 * hint to trigger it, so it is simply reset.
+	 */
+	private void purge() {
+		if (!isPurging.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			removedNodes.set(0);
+			Node node = head.get();
+			while (node != null) {
+				Node next = node.next;
+				if (next != null && next.isClaimed()) {
+					while (next != null && next.isClaimed()) {
+						next = next.next;
+					}
+					node.next = next;
+				}
+				node = next;
+			}
+		} finally {
+			isPurging.set(false);
+		}
+	}
+}
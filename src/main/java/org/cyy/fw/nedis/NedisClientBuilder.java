@@ -10,12 +10,25 @@ public class NedisClientBuilder implements RedisClientBuilder {
 	private int connectTimeoutMills;
 	private int eventLoopGroupSize;
 	private boolean isTcpNoDelay = true;
+	private boolean isEpollEnabled;
+	private boolean isTcpQuickAck;
+	private boolean isEpollEdgeTriggered = true;
 	private ByteBufAllocator allocator;
 	private RecvByteBufAllocator recvAllocator;
 	private MessageSizeEstimator estimator;
 	private int connectionPoolSize;
 	private int maxConnectionIdleTimeInMills;
 	private int minIdleConnection;
+	private int multiplexConnections;
+	private long responseTimeoutMills;
+	private int maxConnectionWaiters;
+	private long acquireTimeoutMills = -1;
+	private boolean isFlushBatching;
+	private long flushMaxDelayMicros;
+	private int flushMaxBytes;
+	private int flushMaxCommands;
+	private boolean isResp3;
+	private PushListener pushListener;
 
 	@Override
 	public RedisClientBuilder setServerHost(String host) {
@@ -35,6 +48,15 @@ public class NedisClientBuilder implements RedisClientBuilder {
 		return this;
 	}
 
+	@Override
+	public RedisClientBuilder setSocketPath(String socketPath) {
+		if (serverNode == null) {
+			serverNode = new ServerNode();
+		}
+		serverNode.setSocketPath(socketPath);
+		return this;
+	}
+
 	public RedisClientBuilder setServerNode(ServerNode server) {
 		this.serverNode = server;
 		return this;
@@ -60,12 +82,25 @@ public class NedisClientBuilder implements RedisClientBuilder {
 		NedisClient client = new NedisClient().setServer(serverNode)
 				.setConnectTimeoutMills(connectTimeoutMills)
 				.setEventLoopGroupSize(eventLoopGroupSize)
-				.setTcpNoDelay(isTcpNoDelay).setByteBufAllocator(allocator)
+				.setTcpNoDelay(isTcpNoDelay).setEpollEnabled(isEpollEnabled)
+				.setTcpQuickAck(isTcpQuickAck)
+				.setEpollEdgeTriggered(isEpollEdgeTriggered)
+				.setByteBufAllocator(allocator)
 				.setRecvByteBufAllocator(recvAllocator)
 				.setMessageSizeEstimator(estimator)
 				.setConnectionPoolSize(connectionPoolSize)
 				.setMaxConnectionIdleTimeInMills(maxConnectionIdleTimeInMills)
-				.setMinIdleConnections(minIdleConnection);
+				.setMinIdleConnections(minIdleConnection)
+				.setMultiplexConnections(multiplexConnections)
+				.setResponseTimeoutMills(responseTimeoutMills)
+				.setMaxConnectionWaiters(maxConnectionWaiters)
+				.setAcquireTimeoutMills(acquireTimeoutMills)
+				.setFlushBatching(isFlushBatching)
+				.setFlushMaxDelayMicros(flushMaxDelayMicros)
+				.setFlushMaxBytes(flushMaxBytes)
+				.setFlushMaxCommands(flushMaxCommands)
+				.setResp3(isResp3)
+				.setPushListener(pushListener);
 		client.initialize();
 		return client;
 	}
@@ -76,6 +111,24 @@ public class NedisClientBuilder implements RedisClientBuilder {
 		return this;
 	}
 
+	@Override
+	public RedisClientBuilder setEpollEnabled(boolean flag) {
+		this.isEpollEnabled = flag;
+		return this;
+	}
+
+	@Override
+	public RedisClientBuilder setTcpQuickAck(boolean flag) {
+		this.isTcpQuickAck = flag;
+		return this;
+	}
+
+	@Override
+	public RedisClientBuilder setEpollEdgeTriggered(boolean flag) {
+		this.isEpollEdgeTriggered = flag;
+		return this;
+	}
+
 	@Override
 	public RedisClientBuilder setByteBufAllocator(ByteBufAllocator allocator) {
 		this.allocator = allocator;
@@ -114,4 +167,64 @@ public class NedisClientBuilder implements RedisClientBuilder {
 		return this;
 	}
 
+	@Override
+	public RedisClientBuilder setMultiplexConnections(int connections) {
+		this.multiplexConnections = connections;
+		return this;
+	}
+
+	@Override
+	public RedisClientBuilder setResponseTimeoutMills(long mills) {
+		this.responseTimeoutMills = mills;
+		return this;
+	}
+
+	@Override
+	public RedisClientBuilder setMaxConnectionWaiters(int waiters) {
+		this.maxConnectionWaiters = waiters;
+		return this;
+	}
+
+	@Override
+	public RedisClientBuilder setAcquireTimeoutMills(long mills) {
+		this.acquireTimeoutMills = mills;
+		return this;
+	}
+
+	@Override
+	public RedisClientBuilder setFlushBatching(boolean flag) {
+		this.isFlushBatching = flag;
+		return this;
+	}
+
+	@Override
+	public RedisClientBuilder setFlushMaxDelayMicros(long micros) {
+		this.flushMaxDelayMicros = micros;
+		return this;
+	}
+
+	@Override
+	public RedisClientBuilder setFlushMaxBytes(int bytes) {
+		this.flushMaxBytes = bytes;
+		return this;
+	}
+
+	@Override
+	public RedisClientBuilder setFlushMaxCommands(int commands) {
+		this.flushMaxCommands = commands;
+		return this;
+	}
+
+	@Override
+	public RedisClientBuilder setResp3(boolean flag) {
+		this.isResp3 = flag;
+		return this;
+	}
+
+	@Override
+	public RedisClientBuilder setPushListener(PushListener listener) {
+		this.pushListener = listener;
+		return this;
+	}
+
 }
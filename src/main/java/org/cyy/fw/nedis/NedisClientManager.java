@@ -1,15 +1,19 @@
 package org.cyy.fw.nedis;
 
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Client manager, it manage a thread pool for all client instances.
+ * Client manager, it manage a thread pool and a timer for all client
+ * instances.
  * 
  * @author yunyun
  * 
@@ -22,7 +26,9 @@ class NedisClientManager {
 
 	private static final Logger LOGGER = Logger
 			.getLogger(NedisClientManager.class.getName());
+	private static final long TIMER_TICK_MILLS = 10;
 	private volatile EventLoopGroup eventLoopGroup;
+	private volatile Timer timer;
 	// private AtomicInteger clients = new AtomicInteger();
 	private Set<NedisClient> clients = new HashSet<>();
 
@@ -41,19 +47,25 @@ class NedisClientManager {
 	 * .
 	 * 
 	 * @param eventLoopGroupSize
+	 * @param isEpollEnabled
+	 *            use the native epoll transport if it is available
 	 */
-	synchronized void initEventGroup(int eventLoopGroupSize) {
+	synchronized void initEventGroup(int eventLoopGroupSize,
+			boolean isEpollEnabled) {
 		// Needn't to be initialized more than once
 		if (eventLoopGroup != null) {
 			return;
 		}
-		eventLoopGroup = new NioEventLoopGroup(eventLoopGroupSize);
+		eventLoopGroup = Transport.select(isEpollEnabled).newEventLoopGroup(
+				eventLoopGroupSize);
+		timer = new HashedWheelTimer(new DefaultThreadFactory("nedis-timer",
+				true), TIMER_TICK_MILLS, TimeUnit.MILLISECONDS);
 	}
 
 	/**
 	 * 
 	 * @param eventLoopGroup
-	 * @see #initEventGroup(int)
+	 * @see #initEventGroup(int, boolean)
 	 */
 	void setEventLoopGroup(EventLoopGroup eventLoopGroup) {
 		if (eventLoopGroup != null) {
@@ -70,6 +82,20 @@ class NedisClientManager {
 		return eventLoopGroup;
 	}
 
+	/**
+	 * The timer of the response deadlines, it has the same lifecycle as the
+	 * event loop group.
+	 * 
+	 * @return
+	 */
+	Timer obtainTimer() {
+		if (timer == null) {
+			throw new IllegalStateException(
+					"The client has been shutdown, you must call initEventGroup(poolSize) before calling this method.");
+		}
+		return timer;
+	}
+
 	synchronized void registClient(NedisClient client) {
 		if (client == null) {
 			return;
@@ -88,6 +114,8 @@ class NedisClientManager {
 		if (clients.size() == 0 && eventLoopGroup != null) {
 			eventLoopGroup.shutdownGracefully();
 			eventLoopGroup = null;
+			timer.stop();
+			timer = null;
 			LOGGER.log(Level.INFO, "The event loop group has been shutdown.");
 		}
 	}
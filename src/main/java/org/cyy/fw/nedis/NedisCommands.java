@@ -0,0 +1,1834 @@
+package org.cyy.fw.nedis;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.cyy.fw.nedis.util.TextEncoder;
+
+/**
+ * The commands of the server, they are shared by {@link NedisClient} and the
+ * batches on its connections, e.g. {@link Pipeline}. Each command is encoded
+ * to a {@link BinaryCommand} and passed to {@link #dispatch} with the adapter
+ * of its reply, the subclass sends it to the server or holds it.
+ * 
+ * @author yunyun
+ * 
+ */
+public abstract class NedisCommands {
+
+	private static final Logger LOGGER = Logger.getLogger(NedisCommands.class
+			.getSimpleName());
+
+	NedisCommands() {
+		super();
+	}
+
+	/**
+	 * Serialize the specified key and return the serialized value, the returned
+	 * serialized value can be deserialized by 'restore' command, see
+	 * {@link #restore(ResponseCallback, String, byte[])} for more details.
+	 * 
+	 * @param respCallBack
+	 *            The response callback, when the request has been done
+	 *            successfully, the serialized value will be pass the
+	 *            {@link ResponseCallback#done(Object)}, the returned serialized
+	 *            value's type is byte[]
+	 * @param key
+	 *            the specified key
+	 * @see #restore(ResponseCallback, String, byte[])
+	 * @see #restore(ResponseCallback, String, long, byte[], boolean)
+	 */
+	public NedisFuture<byte[]> dump(ResponseCallback<byte[]> respCallBack,
+			String key) {
+		return sendCommandWitByteResponseAdapter(RedisCommand.DUMP,
+				respCallBack, key);
+	}
+
+	/**
+	 * Set survival seconds of the specified key, if the key is expired, it will
+	 * be removed automatically, if the specified key already exist, value true
+	 * will be passed to {@link ResponseCallback#done(Object)} when the command
+	 * has been completed, otherwise value false will be passed instead,
+	 * {@link ResponseCallback#failed(Throwable)} will be called when the
+	 * command is failed by some reason.
+	 * 
+	 * @param respCallBack
+	 *            The response callback
+	 * 
+	 * @param key
+	 *            the specified key
+	 * @param seconds
+	 *            the survival seconds of the key
+	 */
+	public NedisFuture<Boolean> expire(ResponseCallback<Boolean> respCallBack,
+			String key, long seconds) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.EXPIRE,
+				respCallBack, new CommandArgs().add(key).add(seconds));
+	}
+
+	/**
+	 * Set survival time of the specified key, unlike
+	 * {@link #expire(ResponseCallback, String, long)}, this method set a UNIX
+	 * timestamp
+	 * 
+	 * @param respCallBack
+	 *            The response callback
+	 * @param key
+	 *            the specified key
+	 * @param ts
+	 *            the expire timestamp
+	 * @see #expire(ResponseCallback, String, long)
+	 */
+	public NedisFuture<Boolean> expireAt(ResponseCallback<Boolean> respCallBack,
+			String key, long ts) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.EXPIREAT,
+				respCallBack, new CommandArgs().add(key).add(ts));
+	}
+
+	/**
+	 * Migrate the specified key for current instance to the destination DB, the
+	 * operation is atomic, the key will be added to the destination and removed
+	 * from current instance and pass 'OK' to
+	 * {@link ResponseCallback#done(Object)} when successfully.
+	 * 
+	 * @param respCallBack
+	 *            The response callback
+	 * @param key
+	 *            the specified key
+	 * @param destHost
+	 *            destination host
+	 * @param destPort
+	 *            destination port
+	 * @param destDb
+	 *            destination DB
+	 * @param timeout
+	 *            timeout
+	 */
+	public NedisFuture<String> migrate(ResponseCallback<String> respCallBack,
+			String key, String destHost, int destPort, int destDb,
+			long timeout) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.MIGRATE,
+				respCallBack,
+				new CommandArgs().add(destHost).add(destPort).add(key)
+						.add(destDb).add(timeout));
+	}
+
+	/**
+	 * Move the key from current DB to the destination DB
+	 * 
+	 * @param respCallBack
+	 *            The response callback, true will be passed to done method if
+	 *            moved successfully, otherwise false will be passed instead
+	 * @param key
+	 *            the specified key
+	 * @param destDb
+	 *            destination DB
+	 */
+	public NedisFuture<Boolean> move(ResponseCallback<Boolean> respCallBack,
+			String key, int destDb) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.MOVE,
+				respCallBack, new CommandArgs().add(key).add(destDb));
+	}
+
+	/**
+	 * Query the reference times of the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the times will be passed to the done
+	 *            method
+	 * @param key
+	 *            the specified key
+	 */
+	public NedisFuture<Long> objectRefcount(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.OBJECT,
+				respCallBack, RedisKeyword.REFCOUNT.getText(), key);
+	}
+
+	/**
+	 * Query the idle time of the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the idle time of this key will be
+	 *            passed to the done method
+	 * @param key
+	 *            the specified key
+	 */
+	public NedisFuture<Long> objectIdletime(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.OBJECT,
+				respCallBack, RedisKeyword.IDLETIME.getText(), key);
+	}
+
+	/**
+	 * Query the encoding of the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the encoding string will be passed to
+	 *            the done method, the encoding string contains: raw, int,
+	 *            ziplist, linkedlist, intset, hashtable, skiplist
+	 * @param key
+	 *            the specified key
+	 */
+	public NedisFuture<String> objectEncoding(
+			ResponseCallback<String> respCallBack, String key) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.OBJECT,
+				respCallBack, RedisKeyword.ENCODING.getText(), key);
+	}
+
+	/**
+	 * Remove the expire time of the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, true will be passed when remove
+	 *            successfully
+	 * @param key
+	 *            the specified key
+	 */
+	public NedisFuture<Boolean> persist(ResponseCallback<Boolean> respCallBack,
+			String key) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.PERSIST,
+				respCallBack, key);
+	}
+
+	/**
+	 * Set survival milliseconds of the specified key, unlike
+	 * {@link #expire(ResponseCallback, String, long)}, this method set
+	 * milliseconds not seconds.
+	 * 
+	 * @param respCallBack
+	 * @param key
+	 * @param millSeconds
+	 * @see #expire(ResponseCallback, String, long)
+	 */
+	public NedisFuture<Boolean> pExpire(ResponseCallback<Boolean> respCallBack,
+			String key, long millSeconds) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.PEXPIRE,
+				respCallBack, new CommandArgs().add(key).add(millSeconds));
+	}
+
+	/**
+	 * Set survival time of the specified key, it set milliseconds UNIX
+	 * timestamp while {@link #expireAt(ResponseCallback, String, long)} set the
+	 * seconds UNIX timestamp
+	 * 
+	 * @param respCallBack
+	 * @param key
+	 * @param millTs
+	 * @see #expireAt(ResponseCallback, String, long)
+	 */
+	public NedisFuture<Boolean> pExpireAt(
+			ResponseCallback<Boolean> respCallBack, String key, long millTs) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.PEXPIREAT,
+				respCallBack, new CommandArgs().add(key).add(millTs));
+	}
+
+	/**
+	 * Query the milliseconds of time to live of the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, milliseconds of time to live will be
+	 *            passed to done method
+	 * @param key
+	 *            the specified key
+	 */
+	public NedisFuture<Long> pTTL(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.PTTL,
+				respCallBack, key);
+	}
+
+	/**
+	 * Return a random key from current DB.
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the random key will be passed to done
+	 *            method.
+	 */
+	public NedisFuture<String> randomKey(
+			ResponseCallback<String> respCallBack) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.RANDOMKEY,
+				respCallBack);
+	}
+
+	/**
+	 * Rename the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, 'OK' will be passed to done method.
+	 * @param key
+	 *            old key name
+	 * @param newkey
+	 *            new key name
+	 */
+	public NedisFuture<String> rename(ResponseCallback<String> respCallBack,
+			String key, String newkey) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.RENAME,
+				respCallBack, key, newkey);
+	}
+
+	/**
+	 * Rename the specified key only when the new key does not exist.
+	 * 
+	 * @param respCallBack
+	 *            The response callback, true will be passed to done method if
+	 *            rename successfully, if the new key already exist, false will
+	 *            be passed
+	 * @param key
+	 *            old key name
+	 * @param newkey
+	 *            new key name
+	 */
+	public NedisFuture<Boolean> renameNX(ResponseCallback<Boolean> respCallBack,
+			String key, String newkey) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.RENAMENX,
+				respCallBack, key, newkey);
+	}
+
+	/**
+	 * Deserialized the serialized value which has been serialized by
+	 * {@link #dump(ResponseCallback, String)} to the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, 'OK' will be passed to done method if
+	 *            restore successfully
+	 * @param key
+	 * @param serialValue
+	 *            the serialized value
+	 */
+	public NedisFuture<String> restore(ResponseCallback<String> respCallBack,
+			String key, byte[] serialValue) {
+		return restore(respCallBack, key, 0, serialValue, false);
+	}
+
+	/**
+	 * Deserialized the serialized value which has been serialized by
+	 * {@link #dump(ResponseCallback, String)} to the specified key and set the
+	 * expire time.
+	 * 
+	 * @param respCallBack
+	 *            The response callback, 'OK' will be passed to done method if
+	 *            restore successfully
+	 * @param key
+	 *            the specified key
+	 * @param millTTL
+	 *            expire time, milliseconds
+	 * @param serialValue
+	 *            the serialized value
+	 * @param replace
+	 *            whether replace when the key already exist
+	 */
+	public NedisFuture<String> restore(ResponseCallback<String> respCallBack,
+			String key, long millTTL, byte[] serialValue, boolean replace) {
+		if (replace) {
+			return sendCommandWithStringResponseAdapter0(RedisCommand.RESTORE,
+					respCallBack, TextEncoder.encode(key),
+					TextEncoder.encode(String.valueOf(millTTL)), serialValue,
+					RedisKeyword.REPLACE.getBinary());
+		} else {
+			return sendCommandWithStringResponseAdapter0(RedisCommand.RESTORE,
+					respCallBack, TextEncoder.encode(key),
+					TextEncoder.encode(String.valueOf(millTTL)), serialValue);
+		}
+	}
+
+	/**
+	 * Sort the the specified key's value
+	 * 
+	 * @param respCallBack
+	 *            The response callback, all value after sorted will be passed
+	 *            to done method
+	 * @param key
+	 *            the specified key
+	 */
+	public NedisFuture<String[]> sort(ResponseCallback<String[]> respCallBack,
+			String key) {
+		return sort(respCallBack, key, (String) null);
+	}
+
+	/**
+	 * Sort the the specified key's value, and store the sorted result to the
+	 * destination key.
+	 * 
+	 * @param respCallBack
+	 *            The response callback, all value after sorted will be passed
+	 *            to done method
+	 * @param key
+	 *            the specified key
+	 * @param destKey
+	 *            the destination key
+	 */
+	public NedisFuture<String[]> sort(ResponseCallback<String[]> respCallBack,
+			String key, String destKey) {
+		return sort(respCallBack, key, null, destKey);
+
+	}
+
+	/**
+	 * Sort the the specified key's value, with some extra parameters
+	 * 
+	 * @param respCallBack
+	 *            The response callback, all value after sorted will be passed
+	 *            to done method
+	 * @param key
+	 *            the specified key
+	 * @param params
+	 *            extra parameters
+	 */
+	public NedisFuture<String[]> sort(ResponseCallback<String[]> respCallBack,
+			String key, SortingParams params) {
+		return sort(respCallBack, key, params, null);
+	}
+
+	/**
+	 * Sort the the specified key's value, with some extra parameters and store
+	 * the sorted result to the destination key.
+	 * 
+	 * @param respCallBack
+	 *            The response callback, all value after sorted will be passed
+	 *            to done method
+	 * @param key
+	 *            the specified key
+	 * @param params
+	 *            extra parameters
+	 * @param destKey
+	 *            the destination key
+	 */
+	public NedisFuture<String[]> sort(ResponseCallback<String[]> respCallBack,
+			String key, SortingParams params, String destKey) {
+		List<String> args = new ArrayList<>();
+		args.add(key);
+		if (params != null) {
+			args.addAll(params.getParams());
+		}
+		if (destKey != null) {
+			args.add(RedisKeyword.STORE.getText());
+			args.add(destKey);
+		}
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.SORT,
+				respCallBack, args.toArray(new String[0]));
+	}
+
+	/**
+	 * Query the seconds of time to live of the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, seconds of time to live will be passed
+	 *            to done method
+	 * @param key
+	 *            the specified key
+	 */
+	public NedisFuture<Long> ttl(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.TTL,
+				respCallBack, key);
+	}
+
+	/**
+	 * Query the type of the specified key's value
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the type string will be passed to done
+	 *            method, the type string contains: none, string, list, set
+	 *            zset, hash
+	 * @param key
+	 */
+	public NedisFuture<String> type(ResponseCallback<String> respCallBack,
+			String key) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.TYPE,
+				respCallBack, key);
+	}
+
+	/**
+	 * Scan elements of the specified key, the result will be wrapped in
+	 * {@link ScanResult}, which contains the cursor and the result list
+	 * 
+	 * @param respCallBack
+	 *            The response callback
+	 * @param cursor
+	 *            start cursor
+	 */
+	public NedisFuture<ScanResult<String>> scan(
+			ResponseCallback<ScanResult<String>> respCallBack, String cursor) {
+		return scan(respCallBack, cursor, null);
+	}
+
+	/**
+	 * Scan elements of the specified key with more parameters
+	 * 
+	 * @param respCallBack
+	 *            The response callback
+	 * @param cursor
+	 *            start cursor
+	 * @param params
+	 *            more parameters
+	 */
+	public NedisFuture<ScanResult<String>> scan(
+			ResponseCallback<ScanResult<String>> respCallBack, String cursor,
+			ScanParams params) {
+		List<String> args = new ArrayList<>();
+		args.add(cursor);
+		if (params != null) {
+			args.addAll(params.getParams());
+		}
+		return sendCommandWithStringScanResultResponseAdapter(RedisCommand.SCAN,
+				respCallBack, args.toArray(new String[0]));
+	}
+
+	/**
+	 * Set a value to the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, OK will be passed to done
+	 * @param key
+	 *            the specified key
+	 * @param value
+	 *            the specified value
+	 */
+	public NedisFuture<String> set(ResponseCallback<String> respCallBack,
+			String key, String value) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.SET,
+				respCallBack, key, value);
+	}
+
+	/**
+	 * Set a binary value to the specified key, a value of 16KB or larger is
+	 * written without copying, so it must not be modified until the command
+	 * completes
+	 * 
+	 * @param respCallBack
+	 *            The response callback, OK will be passed to done
+	 * @param key
+	 *            the specified key
+	 * @param value
+	 *            the specified value
+	 */
+	public NedisFuture<String> set(ResponseCallback<String> respCallBack,
+			String key, byte[] value) {
+		return sendCommandWithStringResponseAdapter0(RedisCommand.SET,
+				respCallBack, TextEncoder.encode(key), value);
+	}
+
+	/**
+	 * Get the value of the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the returned value will be passed to
+	 *            done
+	 * @param key
+	 *            the specified key
+	 */
+	public NedisFuture<String> get(ResponseCallback<String> respCallBack,
+			String key) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.GET,
+				respCallBack, key);
+	}
+
+	/**
+	 * Get the value of the specified key without copying it, the value is
+	 * passed as a retained slice of the received buffer, it can be written to
+	 * other channels or read in place, but it must be released by the
+	 * callback.
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the value will be passed to done, null
+	 *            will be passed if the key does not exist
+	 * @param key
+	 *            the specified key
+	 */
+	public void getBuffer(ResponseCallback<ByteBuf> respCallBack, String key) {
+		sendCommand(RedisCommand.GET, new BufferResponseAdapter(respCallBack),
+				key);
+	}
+
+	/**
+	 * Delete one or more keys
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the deleted numbers will be passed to
+	 *            done
+	 * @param key
+	 *            one key
+	 * @param moreKeys
+	 *            more keys
+	 */
+	public NedisFuture<Long> del(ResponseCallback<Long> respCallBack,
+			String key, String... moreKeys) {
+		String[] args = CmdArgumentTool.combineArgs(key, moreKeys);
+		return sendCommandWithLongResponseAdapter(RedisCommand.DEL,
+				respCallBack, args);
+	}
+
+	/**
+	 * Query all keys which conform to the pattern
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the conformed keys will be passed to
+	 *            done
+	 * @param pattern
+	 *            pattern
+	 */
+	public NedisFuture<String[]> keys(ResponseCallback<String[]> respCallBack,
+			String pattern) {
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.KEYS,
+				respCallBack, pattern);
+	}
+
+	/**
+	 * Query whether the specified key exists or not
+	 * 
+	 * @param respCallBack
+	 *            The response callback, true will be passed when exist,
+	 *            otherwise false will be passed to done
+	 * @param key
+	 */
+	public NedisFuture<Boolean> exists(ResponseCallback<Boolean> respCallBack,
+			String key) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.EXISTS,
+				respCallBack, key);
+	}
+
+	/**
+	 * Append a value to the specified key's value, if the key does not exist,
+	 * just create the key and set the value to the key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the final value of the key will be
+	 *            passed to done method
+	 * @param key
+	 *            the specified key
+	 * @param value
+	 *            the appended value
+	 */
+	public NedisFuture<Long> append(ResponseCallback<Long> respCallBack,
+			String key, String value) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.APPEND,
+				respCallBack, key, value);
+	}
+
+	/**
+	 * Set or clear the bit of the specified offset of the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the original value of the bit will
+	 *            passed to done
+	 * @param key
+	 *            the specified key
+	 * @param offset
+	 *            the specified offset
+	 * @param value
+	 *            the bit value
+	 */
+	public NedisFuture<Long> setBit(ResponseCallback<Long> respCallBack,
+			String key, long offset, int value) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.SETBIT,
+				respCallBack,
+				new CommandArgs().add(key).add(offset).add(value));
+	}
+
+	/**
+	 * Get the specified offset bit value
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the bit value will be passed to done
+	 *            method
+	 * @param key
+	 *            the specified key
+	 * @param offset
+	 *            the specified offset
+	 */
+	public NedisFuture<Long> getBit(ResponseCallback<Long> respCallBack,
+			String key, long offset) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.GETBIT,
+				respCallBack, new CommandArgs().add(key).add(offset));
+	}
+
+	/**
+	 * Query the number of 1 bit of the key's value
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the number will be passed to done
+	 * @param key
+	 *            the specified key
+	 */
+	public NedisFuture<Long> bitCount(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.BITCOUNT,
+				respCallBack, key);
+	}
+
+	/**
+	 * Query the number of 1 bit of the key's value, within the specified range
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the number will be passed to done
+	 * @param key
+	 *            the specified key
+	 * @param start
+	 *            the start bit
+	 * @param end
+	 *            the end bit, both start and end parameter can be a negative
+	 *            number, if so, it indicate the offset of the last bit, such
+	 *            as, -1 is the last bit, -2 is the last second bit and so one
+	 */
+	public NedisFuture<Long> bitCount(ResponseCallback<Long> respCallBack,
+			String key, long start, long end) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.BITCOUNT,
+				respCallBack, new CommandArgs().add(key).add(start).add(end));
+	}
+
+	/**
+	 * Bit operation within one or more bits and store the result to the
+	 * destination key, the operation includes: AND, OR, XOR, NOT.
+	 * 
+	 * @param respCallBack
+	 *            The response callback
+	 * @param bitOP
+	 *            Bit operation
+	 * @param destKey
+	 *            the destination key
+	 * @param srcKey
+	 *            operated key
+	 * @param srcKeys
+	 *            another more operated keys
+	 */
+	public NedisFuture<Long> bitop(ResponseCallback<Long> respCallBack,
+			BitOP bitOP, String destKey, String srcKey, String... srcKeys) {
+		String[] args = CmdArgumentTool.combineArgs(new String[] {
+				bitOP.name(), destKey, srcKey }, srcKeys);
+		return sendCommandWithLongResponseAdapter(RedisCommand.BITOP,
+				respCallBack, args);
+	}
+
+	/**
+	 * Increase 1 to the specified key
+	 * 
+	 * @param respCallBack
+	 *            The response callback
+	 * @param key
+	 *            the specified key, the value after increased will be passed to
+	 *            done
+	 */
+	public NedisFuture<Long> incr(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.INCR,
+				respCallBack, key);
+	}
+
+	public NedisFuture<Long> incrBy(ResponseCallback<Long> respCallBack,
+			String key, long increment) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.INCRBY,
+				respCallBack, new CommandArgs().add(key).add(increment));
+	}
+
+	public NedisFuture<Double> incrByFloat(
+			ResponseCallback<Double> respCallBack, String key,
+			double increment) {
+		return sendCommandWithDoubleResponseAdapter(RedisCommand.INCRBYFLOAT,
+				respCallBack, new CommandArgs().add(key).add(increment));
+	}
+
+	public NedisFuture<Long> decr(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.DECR,
+				respCallBack, key);
+	}
+
+	public NedisFuture<Long> decrBy(ResponseCallback<Long> respCallBack,
+			String key, long increment) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.DECRBY,
+				respCallBack, new CommandArgs().add(key).add(increment));
+	}
+
+	public NedisFuture<String> getRange(ResponseCallback<String> respCallBack,
+			String key, long start, long end) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.GETRANGE,
+				respCallBack, new CommandArgs().add(key).add(start).add(end));
+	}
+
+	public NedisFuture<String> getSet(ResponseCallback<String> respCallBack,
+			String key, String value) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.GETSET,
+				respCallBack, key, value);
+	}
+
+	public NedisFuture<String> mSet(ResponseCallback<String> respCallBack,
+			String key, String value) {
+		return mSet(respCallBack, new KeyValuePair(key, value));
+	}
+
+	public NedisFuture<String> mSet(ResponseCallback<String> respCallBack,
+			KeyValuePair keyValue, KeyValuePair... moreKeyValues) {
+		String[] args = CmdArgumentTool.combineArgs(keyValue, moreKeyValues);
+		return sendCommandWithStringResponseAdapter(RedisCommand.MSET,
+				respCallBack, args);
+	}
+
+	public NedisFuture<String[]> mGet(ResponseCallback<String[]> respCallBack,
+			String key, String... moreKeys) {
+		String[] args = CmdArgumentTool.combineArgs(key, moreKeys);
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.MGET,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Boolean> mSetNX(ResponseCallback<Boolean> respCallBack,
+			String key, String value) {
+		return mSetNX(respCallBack, new KeyValuePair(key, value));
+	}
+
+	public NedisFuture<Boolean> mSetNX(ResponseCallback<Boolean> respCallBack,
+			KeyValuePair keyValue, KeyValuePair... moreKeyValues) {
+		String[] args = CmdArgumentTool.combineArgs(keyValue, moreKeyValues);
+		return sendCommandWithBoolResponseAdapter(RedisCommand.MSETNX,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Boolean> setNX(ResponseCallback<Boolean> respCallBack,
+			String key, String value) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.SETNX,
+				respCallBack, key, value);
+	}
+
+	public NedisFuture<String> setEX(ResponseCallback<String> respCallBack,
+			String key, long seconds, String value) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.SETEX,
+				respCallBack,
+				new CommandArgs().add(key).add(seconds).add(value));
+	}
+
+	public NedisFuture<String> pSetEX(ResponseCallback<String> respCallBack,
+			String key, long millSeconds, String value) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.PSETEX,
+				respCallBack,
+				new CommandArgs().add(key).add(millSeconds).add(value));
+	}
+
+	public NedisFuture<Long> setRange(ResponseCallback<Long> respCallBack,
+			String key, long offset, String value) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.SETRANGE,
+				respCallBack,
+				new CommandArgs().add(key).add(offset).add(value));
+	}
+
+	public NedisFuture<Long> strLen(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.STRLEN,
+				respCallBack, key);
+	}
+
+	public NedisFuture<Boolean> hSet(ResponseCallback<Boolean> respCallBack,
+			String key, String field, String value) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.HSET,
+				respCallBack, key, field, value);
+	}
+
+	public NedisFuture<Boolean> hSetNX(ResponseCallback<Boolean> respCallBack,
+			String key, String field, String value) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.HSETNX,
+				respCallBack, key, field, value);
+	}
+
+	public NedisFuture<String> hGet(ResponseCallback<String> respCallBack,
+			String key, String field) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.HGET,
+				respCallBack, key, field);
+	}
+
+	public NedisFuture<Map<String, String>> hGetAll(ResponseCallback<Map<String,
+			String>> respCallBack, String key) {
+		return sendCommandWithHashMapResponseAdapter(RedisCommand.HGETALL,
+				respCallBack, key);
+	}
+
+	public NedisFuture<Long> hDel(ResponseCallback<Long> respCallBack,
+			String key, String field) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.HDEL,
+				respCallBack, key, field);
+	}
+
+	public NedisFuture<Boolean> hExist(ResponseCallback<Boolean> respCallBack,
+			String key, String field) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.HEXISTS,
+				respCallBack, key, field);
+	}
+
+	public NedisFuture<Long> hIncrBy(ResponseCallback<Long> respCallBack,
+			String key, String field, long increment) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.HINCRBY,
+				respCallBack,
+				new CommandArgs().add(key).add(field).add(increment));
+	}
+
+	public NedisFuture<Double> hIncrByFloat(
+			ResponseCallback<Double> respCallBack, String key, String field,
+			double increment) {
+		return sendCommandWithDoubleResponseAdapter(RedisCommand.HINCRBYFLOAT,
+				respCallBack,
+				new CommandArgs().add(key).add(field) .add(increment));
+	}
+
+	public NedisFuture<String[]> hKeys(ResponseCallback<String[]> respCallBack,
+			String key) {
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.HKEYS,
+				respCallBack, key);
+	}
+
+	public NedisFuture<String[]> hVals(ResponseCallback<String[]> respCallBack,
+			String key) {
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.HVALS,
+				respCallBack, key);
+	}
+
+	public NedisFuture<Long> hLen(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.HLEN,
+				respCallBack, key);
+	}
+
+	public NedisFuture<String> hMSet(ResponseCallback<String> respCallBack,
+			String key, String field, String value) {
+		return hMSet(respCallBack, key, new KeyValuePair(field, value));
+	}
+
+	public NedisFuture<String> hMSet(ResponseCallback<String> respCallBack,
+			String key, KeyValuePair pair, KeyValuePair... moreKeyValuePairs) {
+		String[] args = CmdArgumentTool.combineArgs(pair, moreKeyValuePairs);
+		args = CmdArgumentTool.combineArgs(key, args);
+		return sendCommandWithStringResponseAdapter(RedisCommand.HMSET,
+				respCallBack, args);
+	}
+
+	public NedisFuture<String> hMSet(ResponseCallback<String> respCallBack,
+			String key, String field, byte[] value) {
+		return sendCommandWithStringResponseAdapter0(RedisCommand.HMSET,
+				respCallBack, TextEncoder.encode(key),
+				TextEncoder.encode(field), value);
+	}
+
+	/**
+	 * Set the binary values of the fields, the values of 16KB or larger are
+	 * written without copying, so they must not be modified until the command
+	 * completes
+	 * 
+	 * @param respCallBack
+	 * @param key
+	 * @param hash
+	 *            the fields and their values
+	 * @return
+	 */
+	public NedisFuture<String> hMSet(ResponseCallback<String> respCallBack,
+			String key, Map<String, byte[]> hash) {
+		byte[][] args = new byte[1 + (hash.size() << 1)][];
+		int i = 0;
+		args[i++] = TextEncoder.encode(key);
+		for (Entry<String, byte[]> entry : hash.entrySet()) {
+			args[i++] = TextEncoder.encode(entry.getKey());
+			args[i++] = entry.getValue();
+		}
+		return sendCommandWithStringResponseAdapter0(RedisCommand.HMSET,
+				respCallBack, args);
+	}
+
+	public NedisFuture<String[]> hMGet(ResponseCallback<String[]> respCallBack,
+			String key, String field, String... moreFields) {
+		String[] args = CmdArgumentTool.combineArgs(
+				new String[] { key, field }, moreFields);
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.HMGET,
+				respCallBack, args);
+	}
+
+	public NedisFuture<ScanResult<Entry<String, String>>> hScan(
+			ResponseCallback<ScanResult<Entry<String, String>>> respCallBack,
+			String key, String cursor) {
+		return hScan(respCallBack, key, cursor, null);
+	}
+
+	public NedisFuture<ScanResult<Entry<String, String>>> hScan(
+			ResponseCallback<ScanResult<Entry<String, String>>> respCallBack,
+			String key, String cursor, ScanParams scanParams) {
+		List<String> args = new ArrayList<>();
+		args.add(key);
+		args.add(cursor);
+		if (scanParams != null) {
+			args.addAll(scanParams.getParams());
+		}
+		return sendCommandWithHashScanResultResponseAdapter(RedisCommand.HSCAN,
+				respCallBack, args.toArray(new String[0]));
+	}
+
+	public NedisFuture<Long> lPush(ResponseCallback<Long> respCallBack,
+			String key, String value, String... moreValue) {
+		String[] args = CmdArgumentTool.combineArgs(
+				new String[] { key, value }, moreValue);
+		return sendCommandWithLongResponseAdapter(RedisCommand.LPUSH,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Long> lPushX(ResponseCallback<Long> respCallBack,
+			String key, String value) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.LPUSHX,
+				respCallBack, key, value);
+	}
+
+	public NedisFuture<String> lPop(ResponseCallback<String> respCallBack,
+			String key) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.LPOP,
+				respCallBack, key);
+	}
+
+	public NedisFuture<Long> rPush(ResponseCallback<Long> respCallBack,
+			String key, String value, String... moreValues) {
+		String[] args = CmdArgumentTool.combineArgs(
+				new String[] { key, value }, moreValues);
+		return sendCommandWithLongResponseAdapter(RedisCommand.RPUSH,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Long> rPushX(ResponseCallback<Long> respCallBack,
+			String key, String value) {
+		String[] args = CmdArgumentTool
+				.combineArgs(new String[] { key, value });
+		return sendCommandWithLongResponseAdapter(RedisCommand.RPUSHX,
+				respCallBack, args);
+	}
+
+	public NedisFuture<String> rPop(ResponseCallback<String> respCallBack,
+			String key) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.RPOP,
+				respCallBack, key);
+	}
+
+	public NedisFuture<String[]> blPop(ResponseCallback<String[]> respCallBack,
+			long timeout, String key, String... moreKeys) {
+		CommandArgs args = new CommandArgs().add(key).addAll(moreKeys)
+				.add(timeout);
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.BLPOP,
+				respCallBack, args);
+	}
+
+	public NedisFuture<String[]> brPop(ResponseCallback<String[]> respCallBack,
+			long timeout, String key, String... moreKeys) {
+		CommandArgs args = new CommandArgs().add(key).addAll(moreKeys)
+				.add(timeout);
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.BRPOP,
+				respCallBack, args);
+	}
+
+	public NedisFuture<String[]> lRange(ResponseCallback<String[]> respCallBack,
+			String key, long start, long end) {
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.LRANGE,
+				respCallBack, new CommandArgs().add(key).add(start).add(end));
+	}
+
+	public NedisFuture<String> rPopLPush(ResponseCallback<String> respCallBack,
+			String sourceKey, String destKey) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.RPOPLPUSH,
+				respCallBack, sourceKey, destKey);
+	}
+
+	public NedisFuture<String> bRPopLPush(ResponseCallback<String> respCallBack,
+			String sourceKey, String destKey, long timeout) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.BRPOPLPUSH,
+				respCallBack,
+				new CommandArgs().add(sourceKey).add(destKey) .add(timeout));
+	}
+
+	public NedisFuture<String> lIndex(ResponseCallback<String> respCallBack,
+			String key, long index) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.LINDEX,
+				respCallBack, new CommandArgs().add(key).add(index));
+	}
+
+	public NedisFuture<Long> lInsert(ResponseCallback<Long> respCallBack,
+			String key, String value, String pivot, boolean before) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.LINSERT,
+				respCallBack, key,
+				before ? ListPosition.BEFORE.name() : ListPosition.AFTER.name(),
+				pivot, value);
+	}
+
+	public NedisFuture<Long> lLen(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.LLEN,
+				respCallBack, key);
+	}
+
+	public NedisFuture<Long> lREM(ResponseCallback<Long> respCallBack,
+			String key, String value, long count) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.LREM,
+				respCallBack, new CommandArgs().add(key).add(count).add(value));
+	}
+
+	public NedisFuture<String> lSet(ResponseCallback<String> respCallBack,
+			String key, long index, String value) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.LSET,
+				respCallBack, new CommandArgs().add(key).add(index).add(value));
+	}
+
+	public NedisFuture<String> lTrim(ResponseCallback<String> respCallBack,
+			String key, long start, long end) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.LTRIM,
+				respCallBack, new CommandArgs().add(key).add(start).add(end));
+	}
+
+	public NedisFuture<Long> sAdd(ResponseCallback<Long> respCallBack,
+			String key, String member, String... moreMember) {
+		String[] args = CmdArgumentTool.combineArgs(
+				new String[] { key, member }, moreMember);
+		return sendCommandWithLongResponseAdapter(RedisCommand.SADD,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Long> sCard(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.SCARD,
+				respCallBack, key);
+	}
+
+	public NedisFuture<String> sPop(ResponseCallback<String> respCallBack,
+			String key) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.SPOP,
+				respCallBack, key);
+	}
+
+	public NedisFuture<String[]> sRandMember(
+			ResponseCallback<String[]> respCallBack, String key) {
+		return sendCommandWithStringArrayResponseAdapter(
+				RedisCommand.SRANDMEMBER, respCallBack, key);
+	}
+
+	public NedisFuture<String[]> sRandMember(
+			ResponseCallback<String[]> respCallBack, String key, int count) {
+		CommandArgs args = new CommandArgs().add(key).add(count);
+		return sendCommandWithStringArrayResponseAdapter(
+				RedisCommand.SRANDMEMBER, respCallBack, args);
+	}
+
+	public NedisFuture<String[]> sMembers(
+			ResponseCallback<String[]> respCallBack, String key) {
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.SMEMBERS,
+				respCallBack, key);
+	}
+
+	public NedisFuture<String[]> sDiff(ResponseCallback<String[]> respCallBack,
+			String key, String... moreKeys) {
+		String[] args = CmdArgumentTool.combineArgs(key, moreKeys);
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.SDIFF,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Long> sDiffStore(ResponseCallback<Long> respCallBack,
+			String destKey, String key, String... moreKeys) {
+		String[] args = CmdArgumentTool.combineArgs(
+				new String[] { destKey, key }, moreKeys);
+		return sendCommandWithLongResponseAdapter(RedisCommand.SDIFFSTORE,
+				respCallBack, args);
+	}
+
+	public NedisFuture<String[]> sInter(ResponseCallback<String[]> respCallBack,
+			String key, String... moreKeys) {
+		String[] args = CmdArgumentTool.combineArgs(key, moreKeys);
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.SINTER,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Long> sInterStore(ResponseCallback<Long> respCallBack,
+			String destKey, String key, String... moreKeys) {
+		String[] args = CmdArgumentTool.combineArgs(
+				new String[] { destKey, key }, moreKeys);
+		return sendCommandWithLongResponseAdapter(RedisCommand.SINTERSTORE,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Boolean> sisMember(
+			ResponseCallback<Boolean> respCallBack, String key, String member) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.SISMEMBER,
+				respCallBack, key, member);
+	}
+
+	public NedisFuture<Long> sRem(ResponseCallback<Long> respCallBack,
+			String key, String member, String... moreMembers) {
+		String[] args = CmdArgumentTool.combineArgs(
+				new String[] { key, member }, moreMembers);
+		return sendCommandWithLongResponseAdapter(RedisCommand.SREM,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Boolean> sMove(ResponseCallback<Boolean> respCallBack,
+			String source, String destination, String member) {
+		return sendCommandWithBoolResponseAdapter(RedisCommand.SMOVE,
+				respCallBack, source, destination, member);
+	}
+
+	public NedisFuture<String[]> sUnion(ResponseCallback<String[]> respCallBack,
+			String key, String... moreKeys) {
+		String[] args = CmdArgumentTool.combineArgs(key, moreKeys);
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.SUNION,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Long> sUnionStore(ResponseCallback<Long> respCallBack,
+			String destKey, String key, String... moreKeys) {
+		String[] args = CmdArgumentTool.combineArgs(
+				new String[] { destKey, key }, moreKeys);
+		return sendCommandWithLongResponseAdapter(RedisCommand.SUNIONSTORE,
+				respCallBack, args);
+	}
+
+	public NedisFuture<ScanResult<String>> sScan(
+			ResponseCallback<ScanResult<String>> respCallBack, String key,
+			String cursor) {
+		return sScan(respCallBack, key, cursor, null);
+	}
+
+	public NedisFuture<ScanResult<String>> sScan(
+			ResponseCallback<ScanResult<String>> respCallBack, String key,
+			String cursor, ScanParams params) {
+		List<String> args = new ArrayList<>();
+		args.add(key);
+		args.add(cursor);
+		if (params != null) {
+			args.addAll(params.getParams());
+		}
+		return sendCommandWithStringScanResultResponseAdapter(
+				RedisCommand.SSCAN, respCallBack, args.toArray(new String[0]));
+	}
+
+	public NedisFuture<Long> zAdd(ResponseCallback<Long> respCallBack,
+			String key, double score, String member) {
+		ScoreMemberPair pair = new ScoreMemberPair(score, member);
+		return zAdd(respCallBack, key, pair);
+	}
+
+	public NedisFuture<Long> zAdd(ResponseCallback<Long> respCallBack,
+			String key, ScoreMemberPair scoreMember,
+			ScoreMemberPair... moreScoreMembers) {
+		// if (moreScoreMembers == null) {
+		// throw new IllegalArgumentException(
+		// "Must pass a score member pair at least.");
+		// }
+		int moreLen = moreScoreMembers == null ? 0 : moreScoreMembers.length;
+		CommandArgs args = new CommandArgs(((moreLen + 1) << 1) + 1).add(key);
+		if (scoreMember != null) {
+			args.add(scoreMember.getScore()).add(scoreMember.getMember());
+		}
+		for (int i = 0; i < moreLen; i++) {
+			args.add(moreScoreMembers[i].getScore()).add(
+					moreScoreMembers[i].getMember());
+		}
+		if (args.size() <= 1) {
+			throw new IllegalArgumentException("One parameters at least.");
+		}
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZADD,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Long> zCard(ResponseCallback<Long> respCallBack,
+			String key) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZCARD,
+				respCallBack, key);
+	}
+
+	public NedisFuture<Long> zCount(ResponseCallback<Long> respCallBack,
+			String key, double min, double max) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZCOUNT,
+				respCallBack, new CommandArgs().add(key).add(min).add(max));
+
+	}
+
+	public NedisFuture<Double> zIncrBy(ResponseCallback<Double> respCallBack,
+			String key, String member, double increment) {
+		return sendCommandWithDoubleResponseAdapter(RedisCommand.ZINCRBY,
+				respCallBack,
+				new CommandArgs().add(key).add(increment) .add(member));
+	}
+
+	public NedisFuture<String[]> zRange(ResponseCallback<String[]> respCallBack,
+			String key, long start, long end) {
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.ZRANGE,
+				respCallBack, new CommandArgs().add(key).add(start).add(end));
+	}
+
+	public NedisFuture<ScoreMemberPair[]> zRangeWithScores(
+			ResponseCallback<ScoreMemberPair[]> respCallBack, String key,
+			long start, long end) {
+		return sendCommandWithScoreMemberPairResponseAdapter(
+				RedisCommand.ZRANGE, respCallBack,
+				new CommandArgs().add(key).add(start).add(end)
+						.add(RedisKeyword.WITHSCORES));
+	}
+
+	public NedisFuture<String[]> zRangeByScore(
+			ResponseCallback<String[]> respCallBack, String key, double min,
+			double max) {
+		return sendCommandWithStringArrayResponseAdapter(
+				RedisCommand.ZRANGEBYSCORE, respCallBack,
+				new CommandArgs().add(key).add(min).add(max));
+	}
+
+	public NedisFuture<String[]> zRangeByScore(
+			ResponseCallback<String[]> respCallBack, String key, double min,
+			double max, int offset, int count) {
+		return sendCommandWithStringArrayResponseAdapter(
+				RedisCommand.ZRANGEBYSCORE, respCallBack,
+				new CommandArgs().add(key).add(min).add(max)
+						.add(RedisKeyword.LIMIT).add(offset).add(count));
+	}
+
+	public NedisFuture<ScoreMemberPair[]> zRangeByScoreWithScores(
+			ResponseCallback<ScoreMemberPair[]> respCallBack, String key,
+			double min, double max) {
+		return sendCommandWithScoreMemberPairResponseAdapter(
+				RedisCommand.ZRANGEBYSCORE, respCallBack,
+				new CommandArgs().add(key).add(min).add(max)
+						.add(RedisKeyword.WITHSCORES));
+	}
+
+	public NedisFuture<ScoreMemberPair[]> zRangeByScoreWithScores(
+			ResponseCallback<ScoreMemberPair[]> respCallBack, String key,
+			double min, double max, int offset, int count) {
+		return sendCommandWithScoreMemberPairResponseAdapter(
+				RedisCommand.ZRANGEBYSCORE, respCallBack,
+				new CommandArgs().add(key).add(min).add(max)
+						.add(RedisKeyword.WITHSCORES).add(RedisKeyword.LIMIT)
+						.add(offset).add(count));
+	}
+
+	public NedisFuture<Long> zRank(ResponseCallback<Long> respCallBack,
+			String key, String member) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZRANK,
+				respCallBack, key, member);
+	}
+
+	public NedisFuture<Long> zRem(ResponseCallback<Long> respCallBack,
+			String key, String member, String... moreMembers) {
+		String[] args = CmdArgumentTool.combineArgs(
+				new String[] { key, member }, moreMembers);
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZREM,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Long> zRemRangeByRank(
+			ResponseCallback<Long> respCallBack, String key, long start,
+			long end) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZREMRANGEBYRANK,
+				respCallBack, new CommandArgs().add(key).add(start).add(end));
+	}
+
+	public NedisFuture<Long> zRemRangeByScore(
+			ResponseCallback<Long> respCallBack, String key, double min,
+			double max) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZREMRANGEBYSCORE,
+				respCallBack, new CommandArgs().add(key).add(min).add(max));
+	}
+
+	public NedisFuture<String[]> zRevRange(
+			ResponseCallback<String[]> respCallBack, String key, long start,
+			long end) {
+		return sendCommandWithStringArrayResponseAdapter(RedisCommand.ZREVRANGE,
+				respCallBack, new CommandArgs().add(key).add(start).add(end));
+	}
+
+	public NedisFuture<ScoreMemberPair[]> zRevRangeWithScores(
+			ResponseCallback<ScoreMemberPair[]> respCallBack, String key,
+			long start, long end) {
+		return sendCommandWithScoreMemberPairResponseAdapter(
+				RedisCommand.ZREVRANGE, respCallBack,
+				new CommandArgs().add(key).add(start).add(end)
+						.add(RedisKeyword.WITHSCORES));
+	}
+
+	public NedisFuture<String[]> zRevRangeByScore(
+			ResponseCallback<String[]> respCallBack, String key, double max,
+			double min) {
+		return sendCommandWithStringArrayResponseAdapter(
+				RedisCommand.ZREVRANGEBYSCORE, respCallBack,
+				new CommandArgs() .add(key).add(max).add(min));
+	}
+
+	public NedisFuture<String[]> zRevRangeByScore(
+			ResponseCallback<String[]> respCallBack, String key, double max,
+			double min, int offset, int count) {
+		return sendCommandWithStringArrayResponseAdapter(
+				RedisCommand.ZREVRANGEBYSCORE, respCallBack,
+				new CommandArgs().add(key).add(max).add(min)
+						.add(RedisKeyword.LIMIT).add(offset).add(count));
+	}
+
+	public NedisFuture<ScoreMemberPair[]> zRevRangeByScoreWithScores(
+			ResponseCallback<ScoreMemberPair[]> respCallBack, String key,
+			double max, double min) {
+		return sendCommandWithScoreMemberPairResponseAdapter(
+				RedisCommand.ZREVRANGEBYSCORE, respCallBack,
+				new CommandArgs().add(key).add(max).add(min)
+						.add(RedisKeyword.WITHSCORES));
+	}
+
+	public NedisFuture<ScoreMemberPair[]> zRevRangeByScoreWithScores(
+			ResponseCallback<ScoreMemberPair[]> respCallBack, String key,
+			double max, double min, int offset, int count) {
+		return sendCommandWithScoreMemberPairResponseAdapter(
+				RedisCommand.ZREVRANGEBYSCORE, respCallBack,
+				new CommandArgs().add(key).add(max).add(min)
+						.add(RedisKeyword.WITHSCORES).add(RedisKeyword.LIMIT)
+						.add(offset).add(count));
+	}
+
+	public NedisFuture<Long> zRevRank(ResponseCallback<Long> respCallBack,
+			String key, String member) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZREVRANK,
+				respCallBack, key, member);
+	}
+
+	public NedisFuture<Double> zScore(ResponseCallback<Double> respCallBack,
+			String key, String member) {
+		return sendCommandWithDoubleResponseAdapter(RedisCommand.ZSCORE,
+				respCallBack, key, member);
+	}
+
+	public NedisFuture<Long> zUnionStore(ResponseCallback<Long> respCallBack,
+			String destKey, String key, String... moreKeys) {
+		long numberKeys = moreKeys == null ? 1 : moreKeys.length + 1;
+		String[] args = CmdArgumentTool.combineArgs(new String[] { destKey,
+				String.valueOf(numberKeys), key }, moreKeys);
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZUNIONSTORE,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Long> zUnionStore(ResponseCallback<Long> respCallBack,
+			String destKey, SortedSetParams params, String key,
+			String... moreKeys) {
+		long numberKeys = moreKeys == null ? 1 : moreKeys.length + 1;
+		String[] args = CmdArgumentTool.combineArgs(new String[] { destKey,
+				String.valueOf(numberKeys), key }, moreKeys);
+		args = CmdArgumentTool.combineArgs(args, params.getParams());
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZUNIONSTORE,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Long> zInterStore(ResponseCallback<Long> respCallBack,
+			String destKey, String key, String... moreKeys) {
+		long numberKeys = moreKeys == null ? 1 : moreKeys.length + 1;
+		String[] args = CmdArgumentTool.combineArgs(new String[] { destKey,
+				String.valueOf(numberKeys), key }, moreKeys);
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZINTERSTORE,
+				respCallBack, args);
+	}
+
+	public NedisFuture<Long> zInterStore(ResponseCallback<Long> respCallBack,
+			String destKey, SortedSetParams params, String key,
+			String... moreKeys) {
+		long numberKeys = moreKeys == null ? 1 : moreKeys.length + 1;
+		String[] args = CmdArgumentTool.combineArgs(new String[] { destKey,
+				String.valueOf(numberKeys), key }, moreKeys);
+		args = CmdArgumentTool.combineArgs(args, params.getParams());
+		return sendCommandWithLongResponseAdapter(RedisCommand.ZINTERSTORE,
+				respCallBack, args);
+	}
+
+	public NedisFuture<ScanResult<ScoreMemberPair>> zScan(
+			ResponseCallback<ScanResult<ScoreMemberPair>> respCallBack,
+			String key, String cursor) {
+		return zScan(respCallBack, key, cursor, null);
+	}
+
+	public NedisFuture<ScanResult<ScoreMemberPair>> zScan(
+			ResponseCallback<ScanResult<ScoreMemberPair>> respCallBack,
+			String key, String cursor, ScanParams params) {
+		List<String> args = new ArrayList<>();
+		args.add(key);
+		args.add(cursor);
+		if (params != null) {
+			args.addAll(params.getParams());
+		}
+		return sendCommandWithScoreMemberScanResultResponseAdapter(
+				RedisCommand.ZSCAN, respCallBack, args.toArray(new String[0]));
+	}
+
+	public NedisFuture<String> select(ResponseCallback<String> respCallBack,
+			long index) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.SELECT,
+				respCallBack, new CommandArgs().add(index));
+	}
+
+	public NedisFuture<String> auth(ResponseCallback<String> respCallBack,
+			String password) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.AUTH,
+				respCallBack, password);
+	}
+
+	public NedisFuture<String> echo(ResponseCallback<String> respCallBack,
+			String message) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.ECHO,
+				respCallBack, message);
+	}
+
+	public NedisFuture<String> ping(ResponseCallback<String> respCallBack) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.PING,
+				respCallBack);
+	}
+
+	public NedisFuture<String> quit(ResponseCallback<String> respCallBack) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.QUIT,
+				respCallBack);
+	}
+
+	public NedisFuture<String> flushDB(ResponseCallback<String> respCallBack) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.FLUSHDB,
+				respCallBack);
+	}
+
+	public NedisFuture<String> flushAll(ResponseCallback<String> respCallBack) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.FLUSHALL,
+				respCallBack);
+	}
+
+	/**
+	 * Publish the message to the channel
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the number of the clients which
+	 *            receive the message will be passed to the done method
+	 * @param channel
+	 * @param message
+	 * @return
+	 */
+	public NedisFuture<Long> publish(ResponseCallback<Long> respCallBack,
+			String channel, String message) {
+		return sendCommandWithLongResponseAdapter(RedisCommand.PUBLISH,
+				respCallBack, channel, message);
+	}
+
+	/**
+	 * Run the script by its SHA1 digest, the body of the script is not sent
+	 * unless the server does not have it, it is sent by EVAL then and the
+	 * server caches it for the next time.
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the reply of the script is passed to
+	 *            the done method, the bulk replies are decoded to strings and
+	 *            the multi-bulk replies to lists
+	 * @param script
+	 * @param keys
+	 *            the keys accessed by the script, KEYS in the script
+	 * @param args
+	 *            ARGV in the script
+	 * @return
+	 */
+	public NedisFuture<Object> evalSha(ResponseCallback<Object> respCallBack,
+			Script script, String[] keys, String... args) {
+		NedisFuture<Object> future = new NedisFuture<>(respCallBack);
+		final ScriptResponseAdapter respAdapter = new ScriptResponseAdapter(
+				future);
+		final BinaryCommand evalMessage = new BinaryCommand(
+				RedisCommand.EVAL, scriptArgs(script.getBody(), keys, args));
+		respAdapter.setFallback(new Runnable() {
+
+			@Override
+			public void run() {
+				// called in the event loop, not held by the subclass
+				try {
+					sendFallback(evalMessage, respAdapter);
+				} catch (Throwable e) {
+					LOGGER.log(Level.WARNING, e.getMessage(), e);
+					respAdapter.failed(e);
+				}
+			}
+		});
+		sendCommand(RedisCommand.EVALSHA, respAdapter,
+				scriptArgs(script.getSha1(), keys, args));
+		return future;
+	}
+
+	/**
+	 * Load the script to the server without running it
+	 * 
+	 * @param respCallBack
+	 *            The response callback, the SHA1 digest of the script is
+	 *            passed to the done method
+	 * @param script
+	 * @return
+	 */
+	public NedisFuture<String> scriptLoad(ResponseCallback<String> respCallBack,
+			Script script) {
+		return sendCommandWithStringResponseAdapter(RedisCommand.SCRIPT,
+				respCallBack, RedisKeyword.LOAD.getText(), script.getBody());
+	}
+
+	private NedisFuture<String> sendCommandWithStringResponseAdapter0(
+			RedisCommand command, ResponseCallback<String> respCallBack,
+			byte[]... args) {
+		NedisFuture<String> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, String> respAdapter = new StringResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<byte[]> sendCommandWitByteResponseAdapter(
+			RedisCommand command, ResponseCallback<byte[]> respCallBack,
+			String... args) {
+		NedisFuture<byte[]> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, byte[]> respAdapter = new ByteResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<String> sendCommandWithStringResponseAdapter(
+			RedisCommand command, ResponseCallback<String> respCallBack,
+			String... args) {
+		NedisFuture<String> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, String> respAdapter = new StringResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<String> sendCommandWithStringResponseAdapter(
+			RedisCommand command, ResponseCallback<String> respCallBack,
+			CommandArgs args) {
+		NedisFuture<String> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, String> respAdapter = new StringResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<Long> sendCommandWithLongResponseAdapter(
+			RedisCommand command, ResponseCallback<Long> respCallBack,
+			String... args) {
+		NedisFuture<Long> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, Long> respAdapter = new LongResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<Long> sendCommandWithLongResponseAdapter(
+			RedisCommand command, ResponseCallback<Long> respCallBack,
+			CommandArgs args) {
+		NedisFuture<Long> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, Long> respAdapter = new LongResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<Double> sendCommandWithDoubleResponseAdapter(
+			RedisCommand command, ResponseCallback<Double> respCallBack,
+			String... args) {
+		NedisFuture<Double> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, Double> respAdapter = new DoubleResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<Double> sendCommandWithDoubleResponseAdapter(
+			RedisCommand command, ResponseCallback<Double> respCallBack,
+			CommandArgs args) {
+		NedisFuture<Double> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, Double> respAdapter = new DoubleResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<Boolean> sendCommandWithBoolResponseAdapter(
+			RedisCommand command, ResponseCallback<Boolean> respCallBack,
+			String... args) {
+		NedisFuture<Boolean> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, Boolean> respAdapter = new BooleanResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<Boolean> sendCommandWithBoolResponseAdapter(
+			RedisCommand command, ResponseCallback<Boolean> respCallBack,
+			CommandArgs args) {
+		NedisFuture<Boolean> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, Boolean> respAdapter = new BooleanResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<String[]> sendCommandWithStringArrayResponseAdapter(
+			RedisCommand command, ResponseCallback<String[]> respCallBack,
+			String... args) {
+		NedisFuture<String[]> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, String[]> respAdapter = new StringArrayResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<String[]> sendCommandWithStringArrayResponseAdapter(
+			RedisCommand command, ResponseCallback<String[]> respCallBack,
+			CommandArgs args) {
+		NedisFuture<String[]> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, String[]> respAdapter = new StringArrayResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<ScanResult<String>> sendCommandWithStringScanResultResponseAdapter(
+			RedisCommand command,
+			ResponseCallback<ScanResult<String>> respCallBack, String... args) {
+		NedisFuture<ScanResult<String>> future = new NedisFuture<>(
+				respCallBack);
+		ResponeAdapter<List<Object>, ScanResult<String>> respAdapter = new StringScanResultResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<ScanResult<Entry<String, String>>> sendCommandWithHashScanResultResponseAdapter(
+			RedisCommand command, ResponseCallback<ScanResult<Entry<String,
+			String>>> respCallBack, String... args) {
+		NedisFuture<ScanResult<Entry<String, String>>> future = new NedisFuture<>(
+				respCallBack);
+		ResponeAdapter<List<Object>, ScanResult<Entry<String, String>>> respAdapter = new HashScanResultResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<Map<String, String>> sendCommandWithHashMapResponseAdapter(
+			RedisCommand command, ResponseCallback<Map<String,
+			String>> respCallBack, String... args) {
+		NedisFuture<Map<String, String>> future = new NedisFuture<>(
+				respCallBack);
+		ResponeAdapter<Object, Map<String, String>> respAdapter = new HashMapResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<ScanResult<ScoreMemberPair>> sendCommandWithScoreMemberScanResultResponseAdapter(
+			RedisCommand command,
+			ResponseCallback<ScanResult<ScoreMemberPair>> respCallBack,
+			String... args) {
+		NedisFuture<ScanResult<ScoreMemberPair>> future = new NedisFuture<>(
+				respCallBack);
+		ResponeAdapter<List<Object>, ScanResult<ScoreMemberPair>> respAdapter = new ScoreMemberScanResultResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<ScoreMemberPair[]> sendCommandWithScoreMemberPairResponseAdapter(
+			RedisCommand command,
+			ResponseCallback<ScoreMemberPair[]> respCallBack, String... args) {
+		NedisFuture<ScoreMemberPair[]> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, ScoreMemberPair[]> respAdapter = new ScoreMemberPairResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	private NedisFuture<ScoreMemberPair[]> sendCommandWithScoreMemberPairResponseAdapter(
+			RedisCommand command,
+			ResponseCallback<ScoreMemberPair[]> respCallBack,
+			CommandArgs args) {
+		NedisFuture<ScoreMemberPair[]> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, ScoreMemberPair[]> respAdapter = new ScoreMemberPairResponseAdapter(
+				future);
+		sendCommand(command, respAdapter, args);
+		return future;
+	}
+
+	<S, T> void sendCommand(RedisCommand command,
+			ResponeAdapter<S, T> responseAdapter, CommandArgs args) {
+		checkStatus();
+		final BinaryCommand message = new BinaryCommand(command, args);
+		try {
+			dispatch(message, responseAdapter);
+		} catch (Throwable e) {
+			LOGGER.log(Level.WARNING, e.getMessage(), e);
+			if (responseAdapter != null) {
+				responseAdapter.failed(e);
+			}
+		}
+	}
+
+	<S, T> void sendCommand(RedisCommand command,
+			ResponeAdapter<S, T> responseAdapter, byte[]... args) {
+		checkStatus();
+		final BinaryCommand message = new BinaryCommand(command, args);
+		try {
+			dispatch(message, responseAdapter);
+		} catch (Throwable e) {
+			LOGGER.log(Level.WARNING, e.getMessage(), e);
+			if (responseAdapter != null) {
+				responseAdapter.failed(e);
+			}
+		}
+	}
+
+	<S, T> void sendCommand(RedisCommand command,
+			ResponeAdapter<S, T> responseAdapter, String... args) {
+		checkStatus();
+		final BinaryCommand message = new BinaryCommand(command, args);
+		try {
+			dispatch(message, responseAdapter);
+		} catch (Throwable e) {
+			LOGGER.log(Level.WARNING, e.getMessage(), e);
+			if (responseAdapter != null) {
+				responseAdapter.failed(e);
+			}
+		}
+	}
+
+	/**
+	 * Send the command to the server, the subclasses may hold it instead
+	 * 
+	 * @param message
+	 * @param responseAdapter
+	 */
+	abstract <S, T> void dispatch(BinaryCommand message,
+			ResponeAdapter<S, T> responseAdapter);
+
+	/**
+	 * Check the commands can be sent, it is called before each command
+	 */
+	abstract void checkStatus();
+
+	/**
+	 * The pool which sends the fallback of a script, see
+	 * {@link #evalSha(ResponseCallback, Script, String[], String...)}
+	 * 
+	 * @return
+	 */
+	abstract ConnectionPool getConnectionPool();
+
+	/**
+	 * Send the fallback of a script at once, the subclass which keeps a
+	 * connection sends it on that connection
+	 * 
+	 * @param message
+	 * @param responseAdapter
+	 */
+	<S, T> void sendFallback(BinaryCommand message,
+			ResponeAdapter<S, T> responseAdapter) {
+		getConnectionPool().sendCommand(message, responseAdapter);
+	}
+
+
+	private static CommandArgs scriptArgs(String script, String[] keys,
+			String... args) {
+		int keyCount = keys != null ? keys.length : 0;
+		int argCount = args != null ? args.length : 0;
+		return new CommandArgs(2 + keyCount + argCount).add(script)
+				.add(keyCount).addAll(keys).addAll(args);
+	}
+}
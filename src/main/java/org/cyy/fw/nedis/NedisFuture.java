@@ -0,0 +1,428 @@
+package org.cyy.fw.nedis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The future of the result of a command, it is returned by every command of
+ * {@link NedisClient} and {@link ShardedNedis}. It is the callback of the
+ * command itself, so the command costs no more object than the future, and
+ * the callback passed to the command (if any) is called before the listeners.
+ * <p>
+ * The listeners and the functions of {@link #thenApply(Function)} and
+ * {@link #thenCompose(Function)} are called in the thread which completes the
+ * future, it is the event loop of the connection normally, so they must not
+ * block, and {@link #get()} must not be called in the event loop.
+ * <p>
+ * The command can not be cancelled after it is sent, so {@link #cancel(boolean)}
+ * always returns false.
+ * 
+ * @author yunyun
+ * 
+ * @param <T>
+ *            The result type
+ */
+public class NedisFuture<T> implements Future<T>, ResponseCallback<T> {
+
+	/**
+	 * The function of the combinators, the exception thrown fails the next
+	 * future
+	 * 
+	 * @param <T>
+	 * @param <R>
+	 */
+	public interface Function<T, R> {
+		R apply(T value) throws Exception;
+	}
+
+	private static final class CauseHolder {
+		private final Throwable cause;
+
+		CauseHolder(Throwable cause) {
+			super();
+			this.cause = cause;
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<NedisFuture, Object> RESULT_UPDATER = AtomicReferenceFieldUpdater
+			.newUpdater(NedisFuture.class, Object.class, "result");
+	// the null result
+	private static final Object NULL_RESULT = new Object();
+	private static final Logger LOGGER = Logger.getLogger(NedisFuture.class
+			.getSimpleName());
+	private final ResponseCallback<T> callback;
+	// null until it is completed, NULL_RESULT, the result or a CauseHolder
+	private volatile Object result;
+	// a ResponseCallback or a list of them, guarded by this
+	private Object listeners;
+	private int waiters;
+
+	public NedisFuture() {
+		this(null);
+	}
+
+	/**
+	 * @param callback
+	 *            it is called when the future is completed, it can be null
+	 */
+	public NedisFuture(ResponseCallback<T> callback) {
+		super();
+		this.callback = callback;
+	}
+
+	public static <T> NedisFuture<T> succeededFuture(T result) {
+		NedisFuture<T> future = new NedisFuture<>();
+		future.done(result);
+		return future;
+	}
+
+	public static <T> NedisFuture<T> failedFuture(Throwable cause) {
+		NedisFuture<T> future = new NedisFuture<>();
+		future.failed(cause);
+		return future;
+	}
+
+	/**
+	 * The future of all the results in order, it fails as soon as any of the
+	 * futures fails
+	 * 
+	 * @param futures
+	 * @return
+	 */
+	@SafeVarargs
+	public static <T> NedisFuture<List<T>> allOf(
+			NedisFuture<? extends T>... futures) {
+		// copied, the varargs array is not passed on
+		List<NedisFuture<? extends T>> list = new ArrayList<>(futures.length);
+		for (NedisFuture<? extends T> future : futures) {
+			list.add(future);
+		}
+		return allOf(list);
+	}
+
+	public static <T> NedisFuture<List<T>> allOf(
+			Collection<? extends NedisFuture<? extends T>> futures) {
+		final NedisFuture<List<T>> all = new NedisFuture<>();
+		final int size = futures.size();
+		if (size == 0) {
+			all.done(new ArrayList<T>(0));
+			return all;
+		}
+		final Object[] results = new Object[size];
+		final AtomicInteger remaining = new AtomicInteger(size);
+		int i = 0;
+		for (NedisFuture<? extends T> future : futures) {
+			final int index = i++;
+			future.addListener(new ResponseCallback<T>() {
+
+				@SuppressWarnings("unchecked")
+				@Override
+				public void done(T result) {
+					results[index] = result;
+					if (remaining.decrementAndGet() == 0) {
+						List<T> list = new ArrayList<>(size);
+						for (Object r : results) {
+							list.add((T) r);
+						}
+						all.done(list);
+					}
+				}
+
+				@Override
+				public void failed(Throwable cause) {
+					all.failed(cause);
+				}
+			});
+		}
+		return all;
+	}
+
+	/**
+	 * Complete the future with the result, it is ignored if the future has
+	 * been completed
+	 */
+	@Override
+	public void done(T result) {
+		complete(result == null ? NULL_RESULT : result);
+	}
+
+	/**
+	 * Complete the future with the cause, it is ignored if the future has been
+	 * completed
+	 */
+	@Override
+	public void failed(Throwable cause) {
+		complete(new CauseHolder(cause));
+	}
+
+	/**
+	 * Add a listener, it is called immediately if the future has been
+	 * completed
+	 * 
+	 * @param listener
+	 * @return this future
+	 */
+	@SuppressWarnings("unchecked")
+	public NedisFuture<T> addListener(ResponseCallback<? super T> listener) {
+		if (result == null) {
+			synchronized (this) {
+				if (result == null) {
+					if (listeners == null) {
+						listeners = listener;
+					} else if (listeners instanceof List) {
+						((List<ResponseCallback<? super T>>) listeners)
+								.add(listener);
+					} else {
+						List<Object> list = new ArrayList<>(4);
+						list.add(listeners);
+						list.add(listener);
+						listeners = list;
+					}
+					return this;
+				}
+			}
+		}
+		notifyListener(listener, result);
+		return this;
+	}
+
+	/**
+	 * The future of the result mapped by the function
+	 * 
+	 * @param fn
+	 * @return
+	 */
+	public <R> NedisFuture<R> thenApply(final Function<? super T, ? extends R> fn) {
+		final NedisFuture<R> next = new NedisFuture<>();
+		addListener(new ResponseCallback<T>() {
+
+			@Override
+			public void done(T result) {
+				R mapped;
+				try {
+					mapped = fn.apply(result);
+				} catch (Throwable e) {
+					next.failed(e);
+					return;
+				}
+				next.done(mapped);
+			}
+
+			@Override
+			public void failed(Throwable cause) {
+				next.failed(cause);
+			}
+		});
+		return next;
+	}
+
+	/**
+	 * The future of the command sent by the function with the result, e.g. a
+	 * dependent lookup
+	 * 
+	 * @param fn
+	 * @return
+	 */
+	public <R> NedisFuture<R> thenCompose(
+			final Function<? super T, NedisFuture<R>> fn) {
+		final NedisFuture<R> next = new NedisFuture<>();
+		addListener(new ResponseCallback<T>() {
+
+			@Override
+			public void done(T result) {
+				NedisFuture<R> future;
+				try {
+					future = fn.apply(result);
+				} catch (Throwable e) {
+					next.failed(e);
+					return;
+				}
+				if (future == null) {
+					next.done(null);
+				} else {
+					future.addListener(next);
+				}
+			}
+
+			@Override
+			public void failed(Throwable cause) {
+				next.failed(cause);
+			}
+		});
+		return next;
+	}
+
+	public boolean isSuccess() {
+		Object r = result;
+		return r != null && !(r instanceof CauseHolder);
+	}
+
+	/**
+	 * The cause of the failure
+	 * 
+	 * @return null if it has not been completed or it has succeeded
+	 */
+	public Throwable cause() {
+		Object r = result;
+		return r instanceof CauseHolder ? ((CauseHolder) r).cause : null;
+	}
+
+	/**
+	 * The result without waiting
+	 * 
+	 * @return null if it has not been completed or it has failed
+	 */
+	@SuppressWarnings("unchecked")
+	public T getNow() {
+		Object r = result;
+		if (r == null || r == NULL_RESULT || r instanceof CauseHolder) {
+			return null;
+		}
+		return (T) r;
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return false;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return false;
+	}
+
+	@Override
+	public boolean isDone() {
+		return result != null;
+	}
+
+	@Override
+	public T get() throws InterruptedException, ExecutionException {
+		if (result == null) {
+			synchronized (this) {
+				while (result == null) {
+					waiters++;
+					try {
+						wait();
+					} finally {
+						waiters--;
+					}
+				}
+			}
+		}
+		return report();
+	}
+
+	@Override
+	public T get(long timeout, TimeUnit unit) throws InterruptedException,
+			ExecutionException, TimeoutException {
+		if (result == null) {
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			synchronized (this) {
+				while (result == null) {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						throw new TimeoutException();
+					}
+					waiters++;
+					try {
+						TimeUnit.NANOSECONDS.timedWait(this, remaining);
+					} finally {
+						waiters--;
+					}
+				}
+			}
+		}
+		return report();
+	}
+
+	/**
+	 * The callback passed to the command
+	 * 
+	 * @return
+	 */
+	ResponseCallback<T> getCallback() {
+		return callback;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T report() throws ExecutionException {
+		Object r = result;
+		if (r instanceof CauseHolder) {
+			Throwable cause = ((CauseHolder) r).cause;
+			if (cause instanceof CancellationException) {
+				throw (CancellationException) cause;
+			}
+			throw new ExecutionException(cause);
+		}
+		return r == NULL_RESULT ? null : (T) r;
+	}
+
+	/**
+	 * Nothing is allocated unless there are more than one listener. The
+	 * waiters are woken up first, so a callback or a listener which throws
+	 * can not keep them blocked.
+	 * 
+	 * @param value
+	 */
+	@SuppressWarnings("unchecked")
+	private void complete(Object value) {
+		if (!RESULT_UPDATER.compareAndSet(this, null, value)) {
+			return;
+		}
+		Object toNotify;
+		synchronized (this) {
+			toNotify = listeners;
+			listeners = null;
+			if (waiters > 0) {
+				notifyAll();
+			}
+		}
+		if (callback != null) {
+			notifyListener(callback, value);
+		}
+		if (toNotify == null) {
+			return;
+		}
+		if (toNotify instanceof List) {
+			for (Object listener : (List<Object>) toNotify) {
+				notifyListener((ResponseCallback<? super T>) listener, value);
+			}
+		} else {
+			notifyListener((ResponseCallback<? super T>) toNotify, value);
+		}
+	}
+
+	/**
+	 * The exception thrown by the listener is logged, it does not stop the
+	 * other listeners
+	 * 
+	 * @param listener
+	 * @param value
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> void notifyListener(ResponseCallback<? super T> listener,
+			Object value) {
+		try {
+			if (value instanceof CauseHolder) {
+				listener.failed(((CauseHolder) value).cause);
+			} else {
+				listener.done(value == NULL_RESULT ? null : (T) value);
+			}
+		} catch (Throwable e) {
+			LOGGER.log(Level.WARNING, "An exception was thrown by "
+					+ listener.getClass().getName(), e);
+		}
+	}
+}
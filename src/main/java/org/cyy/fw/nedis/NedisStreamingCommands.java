@@ -0,0 +1,107 @@
+package org.cyy.fw.nedis;
+
+/**
+ * The commands whose replies are passed to the consumers piece by piece while
+ * they are read, see {@link BulkChunkConsumer} and {@link ElementConsumer}.
+ * They are not shared by {@link Transaction}, the replies of its queued
+ * commands arrive within the reply of EXEC.
+ * 
+ * @author yunyun
+ * 
+ */
+public abstract class NedisStreamingCommands extends NedisCommands {
+
+	NedisStreamingCommands() {
+		super();
+	}
+
+	/**
+	 * Serialize the value of the specified key as a stream, the serialized
+	 * value is passed to the consumer chunk by chunk.
+	 * 
+	 * @param consumer
+	 *            The consumer of the chunks
+	 * @param key
+	 *            the specified key
+	 */
+	public void dumpStream(BulkChunkConsumer consumer, String key) {
+		sendCommand(RedisCommand.DUMP, new BulkChunkResponseAdapter(consumer),
+				key);
+	}
+
+	/**
+	 * Get the value of the specified key as a stream, the value is not
+	 * aggregated, its chunks are passed to the consumer as they arrive.
+	 * 
+	 * @param consumer
+	 *            The consumer of the chunks
+	 * @param key
+	 *            the specified key
+	 */
+	public void getStream(BulkChunkConsumer consumer, String key) {
+		sendCommand(RedisCommand.GET, new BulkChunkResponseAdapter(consumer),
+				key);
+	}
+
+	/**
+	 * The streaming variant of
+	 * {@link #hGetAll(ResponseCallback, String)}, the field-value pairs are
+	 * passed to the consumer one by one as they are decoded.
+	 * 
+	 * @param consumer
+	 * @param key
+	 */
+	public void hGetAllStream(ElementConsumer<KeyValuePair> consumer,
+			String key) {
+		sendCommand(RedisCommand.HGETALL,
+				new KeyValuePairElementResponseAdapter(consumer), key);
+	}
+
+	/**
+	 * The streaming variant of
+	 * {@link #lRange(ResponseCallback, String, long, long)}, the elements are
+	 * passed to the consumer one by one as they are decoded.
+	 * 
+	 * @param consumer
+	 * @param key
+	 * @param start
+	 * @param end
+	 */
+	public void lRangeStream(ElementConsumer<String> consumer, String key,
+			long start, long end) {
+		sendCommand(RedisCommand.LRANGE,
+				new StringElementResponseAdapter(consumer),
+				new CommandArgs().add(key).add(start).add(end));
+	}
+
+	/**
+	 * The streaming variant of {@link #sMembers(ResponseCallback, String)},
+	 * the members are passed to the consumer one by one as they are decoded.
+	 * 
+	 * @param consumer
+	 * @param key
+	 */
+	public void sMembersStream(ElementConsumer<String> consumer, String key) {
+		sendCommand(RedisCommand.SMEMBERS, new StringElementResponseAdapter(
+				consumer), key);
+	}
+
+	/**
+	 * The streaming variant of
+	 * {@link #zRangeWithScores(ResponseCallback, String, long, long)}, the
+	 * score-member pairs are passed to the consumer one by one as they are
+	 * decoded.
+	 * 
+	 * @param consumer
+	 * @param key
+	 * @param start
+	 * @param end
+	 */
+	public void zRangeWithScoresStream(ElementConsumer<ScoreMemberPair> consumer,
+			String key, long start, long end) {
+		sendCommand(RedisCommand.ZRANGE,
+				new ScoreMemberPairElementResponseAdapter(consumer),
+				new CommandArgs().add(key).add(start).add(end)
+						.add(RedisKeyword.WITHSCORES));
+	}
+}
@@ -0,0 +1,201 @@
+package org.cyy.fw.nedis;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.TimerTask;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cyy.fw.nedis.util.ResponseTimeoutException;
+
+/**
+ * A command sent to a channel, it is put into the pending queue of the channel
+ * by {@link CommandWriter} when it is written, and it stays there until its
+ * response arrives.
+ * <p>
+ * It is also the timer task of its response deadline, if the response has not
+ * arrived in time, the command fails and the channel is closed, because the
+ * responses of all the commands behind it are late too. But a bulk reply which
+ * is being streamed is discarded by the decoder instead, the channel stays in
+ * sync. And it is the
+ * listener of its write, a failed write fails the command and closes the
+ * channel.
+ * 
+ * @author yunyun
+ * 
+ */
+final class PendingCommand implements TimerTask, Runnable,
+		ChannelFutureListener {
+
+	private ByteBuf request;
+	private final ResponeAdapter<Object, Object> responseAdapter;
+	private final long timeoutMills;
+	private final ReplyShape replyShape;
+	private final BulkChunkConsumer chunkConsumer;
+	private final ElementResponseAdapter<?> elementAdapter;
+	private Channel channel;
+	private Timeout timeout;
+	// only accessed in the event loop
+	private boolean isCompleted;
+	// the bulk reply has started to be streamed, only accessed in the event
+	// loop
+	private boolean isStreaming;
+
+	@SuppressWarnings("unchecked")
+	PendingCommand(ByteBuf request, ResponeAdapter<?, ?> responseAdapter,
+			long timeoutMills) {
+		super();
+		this.request = request;
+		this.responseAdapter = (ResponeAdapter<Object, Object>) responseAdapter;
+		this.timeoutMills = timeoutMills;
+		this.replyShape = responseAdapter instanceof BaseResponseAdapter ? ((BaseResponseAdapter<?, ?>) responseAdapter)
+				.getReplyShape() : ReplyShape.GENERIC;
+		this.chunkConsumer = responseAdapter instanceof BulkChunkResponseAdapter ? ((BulkChunkResponseAdapter) responseAdapter)
+				.getConsumer() : null;
+		this.elementAdapter = responseAdapter instanceof ElementResponseAdapter ? (ElementResponseAdapter<?>) responseAdapter
+				: null;
+	}
+
+	/**
+	 * Take the encoded request away, the request will be released by the
+	 * channel after written.
+	 * 
+	 * @return
+	 */
+	ByteBuf detachRequest() {
+		ByteBuf msg = request;
+		request = null;
+		return msg;
+	}
+
+	/**
+	 * Start the response deadline, it is called in the event loop when the
+	 * request is written.
+	 * 
+	 * @param timer
+	 * @param ch
+	 */
+	void startTimer(Timer timer, Channel ch) {
+		if (timer == null || timeoutMills <= 0) {
+			return;
+		}
+		this.channel = ch;
+		this.timeout = timer.newTimeout(this, timeoutMills,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Expired, called in the timer thread
+	 */
+	@Override
+	public void run(Timeout timeout) throws Exception {
+		channel.eventLoop().execute(this);
+	}
+
+	/**
+	 * Expired, called in the event loop
+	 */
+	@Override
+	public void run() {
+		if (isCompleted) {
+			return;
+		}
+		failed(new ResponseTimeoutException("No response in " + timeoutMills
+				+ " ms from " + channel));
+		if (isStreaming) {
+			// the consumer may have paused the reading, the rest of the bulk
+			// must be read to be discarded
+			channel.config().setAutoRead(true);
+			return;
+		}
+		channel.close();
+	}
+
+	/**
+	 * Written, called in the event loop
+	 */
+	@Override
+	public void operationComplete(ChannelFuture future) throws Exception {
+		if (future.isSuccess()) {
+			return;
+		}
+		failed(future.cause());
+		// the pending commands behind it are failed when it is closed
+		future.channel().close();
+	}
+
+	/**
+	 * The shape of the top level reply of the command, e.g. the bulk reply is
+	 * wanted as a buffer instead of the bytes
+	 * 
+	 * @return
+	 */
+	ReplyShape getReplyShape() {
+		return replyShape;
+	}
+
+	/**
+	 * The consumer of the streamed bulk reply, it is null if the reply is not
+	 * streamed
+	 * 
+	 * @return
+	 */
+	BulkChunkConsumer getChunkConsumer() {
+		return chunkConsumer;
+	}
+
+	/**
+	 * The adapter of the streamed multi-bulk reply, it is null if the reply is
+	 * not streamed
+	 * 
+	 * @return
+	 */
+	ElementResponseAdapter<?> getElementAdapter() {
+		return elementAdapter;
+	}
+
+	boolean isCompleted() {
+		return isCompleted;
+	}
+
+	void setStreaming(boolean flag) {
+		this.isStreaming = flag;
+	}
+
+	void done(Object result) {
+		if (!complete()) {
+			return;
+		}
+		if (responseAdapter != null) {
+			// the reply is released by the receiver, the adapter owns its own
+			// reference of the buffer reply
+			responseAdapter.done(ReferenceCountUtil.retain(result));
+		}
+	}
+
+	void failed(Throwable cause) {
+		if (!complete()) {
+			return;
+		}
+		if (responseAdapter != null) {
+			responseAdapter.failed(cause);
+		}
+	}
+
+	private boolean complete() {
+		if (isCompleted) {
+			return false;
+		}
+		isCompleted = true;
+		if (timeout != null) {
+			timeout.cancel();
+			timeout = null;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,156 @@
+package org.cyy.fw.nedis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Send a batch of commands together. The commands sent by a pipeline are held
+ * until {@link #execute()}, then their requests are encoded into one buffer
+ * and written to one connection by one write and one flush, and their
+ * replies are read in order from that connection. A pipeline of 500 commands
+ * uses one connection and one system call instead of 500 of them.
+ * <p>
+ * The commands are the same as the ones of {@link NedisClient}, the result
+ * of each command is passed to its own callback and future, and
+ * {@link #execute()} returns the future of all the results in order. The
+ * pipeline is created by {@link NedisClient#pipelined()}, it shares the
+ * connections of the client, so it is not initialized or shut down by itself.
+ * <p>
+ * A pipeline is used by one thread, and it is executed only once.
+ * 
+ * <pre>
+ * Pipeline pipeline = client.pipelined();
+ * for (int i = 0; i &lt; 500; i++) {
+ * 	pipeline.hSet(null, &quot;hash&quot;, &quot;field&quot; + i, &quot;value&quot; + i);
+ * }
+ * List&lt;Object&gt; results = pipeline.execute().get();
+ * </pre>
+ * 
+ * @author yunyun
+ * 
+ */
+public class Pipeline extends NedisStreamingCommands {
+
+	private static final Logger LOGGER = Logger.getLogger(Pipeline.class
+			.getSimpleName());
+	private final ConnectionPool connectionPool;
+	private final List<BinaryCommand> messages = new ArrayList<>();
+	private final List<ResponeAdapter<?, ?>> responseAdapters = new ArrayList<>();
+	private boolean isExecuted;
+
+	Pipeline(ConnectionPool connectionPool) {
+		super();
+		this.connectionPool = connectionPool;
+	}
+
+	@Override
+	<S, T> void dispatch(BinaryCommand message,
+			ResponeAdapter<S, T> responseAdapter) {
+		messages.add(message);
+		responseAdapters.add(responseAdapter);
+	}
+
+	@Override
+	void checkStatus() {
+		if (isExecuted) {
+			throw new IllegalStateException(
+					"The pipeline has already been executed.");
+		}
+	}
+
+	@Override
+	ConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
+	/**
+	 * The number of the commands held
+	 * 
+	 * @return
+	 */
+	public int size() {
+		return messages.size();
+	}
+
+	/**
+	 * Write all the commands held to one connection
+	 * 
+	 * @return the future of the results of the commands in order, a failed
+	 *         command has its exception in place of its result, and the
+	 *         streamed commands and
+	 *         {@link #getBuffer(ResponseCallback, String)} have null, their
+	 *         results are passed to their consumers and callbacks only
+	 */
+	public NedisFuture<List<Object>> execute() {
+		checkStatus();
+		isExecuted = true;
+		final NedisFuture<List<Object>> future = new NedisFuture<>();
+		if (messages.isEmpty()) {
+			future.done(new ArrayList<Object>(0));
+			return future;
+		}
+		collectResults(responseAdapters, future);
+		try {
+			connectionPool.sendCommands(messages, responseAdapters);
+		} catch (Throwable e) {
+			LOGGER.log(Level.WARNING, e.getMessage(), e);
+			for (ResponeAdapter<?, ?> responseAdapter : responseAdapters) {
+				if (responseAdapter != null) {
+					responseAdapter.failed(e);
+				}
+			}
+		}
+		return future;
+	}
+
+	/**
+	 * Complete the future with the results of the commands in order after all
+	 * of them complete
+	 * 
+	 * @param responseAdapters
+	 * @param future
+	 */
+	static void collectResults(List<ResponeAdapter<?, ?>> responseAdapters,
+			final NedisFuture<List<Object>> future) {
+		final Object[] results = new Object[responseAdapters.size()];
+		final AtomicInteger remaining = new AtomicInteger(results.length);
+		for (int i = 0; i < results.length; i++) {
+			ResponeAdapter<?, ?> responseAdapter = responseAdapters.get(i);
+			ResponseCallback<?> callback = responseAdapter instanceof BaseResponseAdapter ? ((BaseResponseAdapter<?, ?>) responseAdapter)
+					.getResponseCallback() : null;
+			if (!(callback instanceof NedisFuture)) {
+				remaining.decrementAndGet();
+				continue;
+			}
+			final int index = i;
+			NedisFuture<?> commandFuture = (NedisFuture<?>) callback;
+			commandFuture.addListener(new ResponseCallback<Object>() {
+
+				@Override
+				public void done(Object result) {
+					results[index] = result;
+					complete();
+				}
+
+				@Override
+				public void failed(Throwable cause) {
+					results[index] = cause;
+					complete();
+				}
+
+				private void complete() {
+					if (remaining.decrementAndGet() == 0) {
+						future.done(Arrays.asList(results));
+					}
+				}
+			});
+		}
+		if (remaining.get() == 0) {
+			future.done(Arrays.asList(results));
+		}
+	}
+}
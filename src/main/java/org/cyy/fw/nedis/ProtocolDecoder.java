@@ -1,30 +1,591 @@
 package org.cyy.fw.nedis;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufProcessor;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.ReplayingDecoder;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
 
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Map;
+import java.util.Queue;
 
 import org.cyy.fw.nedis.util.NedisException;
+import org.cyy.fw.nedis.util.TextEncoder;
 
-public class ProtocolDecoder extends ReplayingDecoder<Void> {
+/**
+ * The incremental decoder of the redis replies. It is a resumable state
+ * machine, the bytes are consumed only once: a reply which has not arrived
+ * completely is kept as a stack of the partially built multi-bulk frames and
+ * the length of the pending bulk, and the decoding continues from there when
+ * more bytes arrive.
+ * <p>
+ * The framing is parsed in place: the lengths and integers are accumulated
+ * from the bytes directly and the common status replies are mapped to the
+ * constants, so no string is created except for the payloads.
+ * <p>
+ * The bulk reply of a command which wants a buffer is read as a retained
+ * slice of the inbound buffer instead of being copied, so only one reply is
+ * decoded in a call, the command of the reply is always the head of the
+ * pending queue.
+ * <p>
+ * The bulk reply of a command which has a {@link BulkChunkConsumer} is not
+ * aggregated at all, its chunks are passed to the consumer as they arrive.
+ * And the elements of the multi-bulk reply of a command which has an
+ * {@link ElementConsumer} are passed one by one as they are decoded.
+ * <p>
+ * The RESP3 replies are decoded into the native types: the maps into
+ * {@link LinkedHashMap}, the sets into {@link LinkedHashSet}, the doubles,
+ * the booleans and the big numbers into {@link Double}, {@link Boolean} and
+ * {@link BigInteger}, the null is the same as the null bulk of RESP2. The
+ * push messages are passed as {@link PushMessage}, and the attributes are
+ * skipped.
+ * <p>
+ * A decoder of a zero-copy {@link Subscriber} reads all the bulks as retained
+ * slices, including the nested ones, the receiver releases them.
+ * <p>
+ * The error replies are decoded into {@link RedisErrorReply} values, nothing
+ * is thrown or logged here, the common errors are mapped to the shared
+ * replies.
+ * 
+ * @author yunyun
+ * 
+ */
+public class ProtocolDecoder extends ByteToMessageDecoder {
 
-	private static final Logger LOGGER = Logger.getLogger(ProtocolDecoder.class
-			.getSimpleName());
+	/**
+	 * A multi-bulk reply (or an aggregate reply of RESP3) which has not been
+	 * completed
+	 */
+	private static final class MultiBulkFrame {
+		private final byte type;
+		private final List<Object> elements;
+		private final int size;
+
+		MultiBulkFrame(byte type, int size) {
+			super();
+			this.type = type;
+			this.size = size;
+			this.elements = new ArrayList<>(size);
+		}
+
+		boolean isAttribute() {
+			return type == RedisProtocol.PIPE_BYTE;
+		}
+
+		Object build() {
+			switch (type) {
+			case RedisProtocol.PERCENT_BYTE:
+				Map<Object, Object> map = new LinkedHashMap<>();
+				for (int i = 0; i + 1 < elements.size(); i += 2) {
+					map.put(elements.get(i), elements.get(i + 1));
+				}
+				return map;
+			case RedisProtocol.TILDE_BYTE:
+				return new LinkedHashSet<>(elements);
+			case RedisProtocol.GREATER_BYTE:
+				return new PushMessage(elements);
+			default:
+				return elements;
+			}
+		}
+
+		boolean add(Object element) {
+			elements.add(element);
+			return elements.size() == size;
+		}
+	}
+
+	/**
+	 * Accumulate the decimal digits into a long
+	 */
+	private static final class NumberParser implements ByteBufProcessor {
+		private long value;
+		private boolean isNegative;
+		private boolean isFirst;
+
+		long parse(ByteBuf in, int start, int length) {
+			if (length <= 0) {
+				throw new NedisException(
+						"It seems like server has closed the connection.");
+			}
+			value = 0;
+			isNegative = false;
+			isFirst = true;
+			in.forEachByte(start, length, this);
+			return isNegative ? -value : value;
+		}
+
+		@Override
+		public boolean process(byte b) throws Exception {
+			if (isFirst) {
+				isFirst = false;
+				if (b == '-') {
+					isNegative = true;
+					return true;
+				}
+			}
+			if (b < '0' || b > '9') {
+				throw new NedisException("Invalid number: " + (char) b);
+			}
+			value = value * 10 + (b - '0');
+			return true;
+		}
+	}
+
+	private static final String[] STATUS_REPLIES = { RedisProtocol.OK,
+			RedisProtocol.QUEUED, RedisProtocol.PONG };
+	private static final byte[][] STATUS_REPLY_BYTES = new byte[STATUS_REPLIES.length][];
+	static {
+		for (int i = 0; i < STATUS_REPLIES.length; i++) {
+			STATUS_REPLY_BYTES[i] = STATUS_REPLIES[i]
+					.getBytes(CharsetUtil.US_ASCII);
+		}
+	}
+	private static final RedisErrorReply[] ERROR_REPLIES = {
+			new RedisErrorReply(
+					"WRONGTYPE Operation against a key holding the wrong kind of value",
+					true),
+			new RedisErrorReply(
+					"NOSCRIPT No matching script. Please use EVAL.", true),
+			new RedisErrorReply(
+					"EXECABORT Transaction discarded because of previous errors.",
+					true),
+			new RedisErrorReply("ERR no such key", true),
+			new RedisErrorReply("ERR value is not an integer or out of range",
+					true),
+			new RedisErrorReply("ERR value is not a valid float", true),
+			new RedisErrorReply("ERR syntax error", true),
+			new RedisErrorReply("LOADING Redis is loading the dataset in memory",
+					true) };
+	private static final byte[][] ERROR_REPLY_BYTES = new byte[ERROR_REPLIES.length][];
+	static {
+		for (int i = 0; i < ERROR_REPLIES.length; i++) {
+			ERROR_REPLY_BYTES[i] = ERROR_REPLIES[i].getMessage().getBytes(
+					CharsetUtil.US_ASCII);
+		}
+	}
+	private static final int NO_PENDING_BULK = -1;
+	// the reply of a streamed bulk or multi-bulk, it ends the consumer
+	private static final Object STREAM_END = new Object();
+	private static final int CRLF_LENGTH = 2;
+	private static final int VERBATIM_PREFIX_LENGTH = 4;
+	private final Deque<MultiBulkFrame> frames = new ArrayDeque<>();
+	private final NumberParser numberParser = new NumberParser();
+	// the length of the bulk whose header has been read but its body has not
+	private int pendingBulkLength = NO_PENDING_BULK;
+	// $ or the blob types of RESP3
+	private byte pendingBulkType;
+	// the command whose bulk is being streamed
+	private PendingCommand streamingCommand;
+	private int pendingStreamLength;
+	// the command whose multi-bulk elements are being streamed
+	private PendingCommand elementCommand;
+	private int pendingElements;
+	private final boolean isBulkRetained;
+
+	public ProtocolDecoder() {
+		this(false);
+	}
+
+	/**
+	 * @param isBulkRetained
+	 *            true if all the bulks are read as retained slices of the
+	 *            inbound buffer
+	 */
+	ProtocolDecoder(boolean isBulkRetained) {
+		super();
+		this.isBulkRetained = isBulkRetained;
+	}
+
+	/**
+	 * The retained slices of the multi-bulk reply which has not been completed
+	 * are released
+	 */
+	@Override
+	protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+		MultiBulkFrame frame = frames.poll();
+		while (frame != null) {
+			for (Object element : frame.elements) {
+				releaseAll(element);
+			}
+			frame = frames.poll();
+		}
+	}
 
 	@Override
 	protected void decode(ChannelHandlerContext ctx, ByteBuf in,
 			List<Object> out) throws Exception {
+		for (;;) {
+			Object reply;
+			if (streamingCommand != null) {
+				if (!readChunk(ctx, in)) {
+					return;
+				}
+				reply = STREAM_END;
+			} else if (pendingBulkLength != NO_PENDING_BULK) {
+				if (in.readableBytes() < pendingBulkLength + CRLF_LENGTH) {
+					return;
+				}
+				reply = readBlob(ctx, in, pendingBulkType, pendingBulkLength);
+				pendingBulkLength = NO_PENDING_BULK;
+			} else {
+				int lineLength = in.bytesBefore((byte) '\n');
+				if (lineLength < 0) {
+					return;
+				}
+				int lineEnd = in.readerIndex() + lineLength;
+				byte type = in.readByte();
+				int start = in.readerIndex();
+				int end = lineEnd;
+				if (end > start && in.getByte(end - 1) == '\r') {
+					end--;
+				}
+				// the line content is still accessible by the index
+				in.readerIndex(lineEnd + 1);
+				switch (type) {
+				case RedisProtocol.UNDERSCORE_BYTE:
+					reply = TextEncoder.encode(RedisProtocol.NULL);
+					break;
+				case RedisProtocol.HASH_BYTE:
+					reply = in.getByte(start) == 't' ? Boolean.TRUE
+							: Boolean.FALSE;
+					break;
+				case RedisProtocol.COMMA_BYTE:
+					reply = parseDouble(in.toString(start, end - start,
+							CharsetUtil.US_ASCII));
+					break;
+				case RedisProtocol.LEFT_PAREN_BYTE:
+					reply = new BigInteger(in.toString(start, end - start,
+							CharsetUtil.US_ASCII));
+					break;
+				case RedisProtocol.MINUS_BYTE:
+					reply = readError(in, start, end - start);
+					break;
+				case RedisProtocol.COLON_BYTE:
+					long number = numberParser.parse(in, start, end - start);
+					if (replyShape(ctx) == ReplyShape.BOOLEAN) {
+						reply = number == BooleanResponseAdapter.YES ? Boolean.TRUE
+								: Boolean.FALSE;
+					} else {
+						reply = number;
+					}
+					break;
+				case RedisProtocol.PLUS_BYTE:
+					reply = readStatus(in, start, end - start);
+					break;
+				case RedisProtocol.DOLLAR_BYTE:
+				case RedisProtocol.EQUALS_BYTE:
+				case RedisProtocol.BANG_BYTE:
+					int length = (int) numberParser.parse(in, start, end
+							- start);
+					PendingCommand command = type == RedisProtocol.DOLLAR_BYTE ? topLevelCommand(ctx)
+							: null;
+					if (command != null && command.getChunkConsumer() != null) {
+						startStream(ctx, command, length);
+						if (length == -1) {
+							reply = STREAM_END;
+							break;
+						}
+						continue;
+					}
+					if (length == -1) {
+						reply = TextEncoder.encode(RedisProtocol.NULL);
+						break;
+					}
+					if (in.readableBytes() < length + CRLF_LENGTH) {
+						pendingBulkLength = length;
+						pendingBulkType = type;
+						return;
+					}
+					reply = readBlob(ctx, in, type, length);
+					break;
+				case RedisProtocol.ASTERISK_BYTE:
+				case RedisProtocol.PERCENT_BYTE:
+				case RedisProtocol.TILDE_BYTE:
+				case RedisProtocol.GREATER_BYTE:
+				case RedisProtocol.PIPE_BYTE:
+					int size = (int) numberParser.parse(in, start, end - start);
+					// the fields and the values of a map
+					if (size > 0
+							&& (type == RedisProtocol.PERCENT_BYTE || type == RedisProtocol.PIPE_BYTE)) {
+						size <<= 1;
+					}
+					if (type != RedisProtocol.GREATER_BYTE
+							&& type != RedisProtocol.PIPE_BYTE
+							&& startElements(ctx, size)) {
+						if (size <= 0) {
+							reply = STREAM_END;
+							break;
+						}
+						continue;
+					}
+					if (size <= 0) {
+						if (type == RedisProtocol.PIPE_BYTE) {
+							continue;
+						}
+						if (size < 0
+								&& replyShape(ctx) == ReplyShape.NULLABLE_MULTI_BULK) {
+							reply = TextEncoder.encode(RedisProtocol.NULL);
+							break;
+						}
+						reply = new MultiBulkFrame(type, 0).build();
+						break;
+					}
+					frames.push(new MultiBulkFrame(type, size));
+					continue;
+				default:
+					reply = new NedisException("Unknown reply: " + (char) type);
+					break;
+				}
+			}
+			// the reply completes its parent frames
+			MultiBulkFrame frame = frames.peek();
+			boolean isAttribute = false;
+			while (frame != null && frame.add(reply)) {
+				frames.pop();
+				// the attribute describes the next reply, it is skipped
+				if (frame.isAttribute()) {
+					isAttribute = true;
+					break;
+				}
+				reply = frame.build();
+				frame = frames.peek();
+			}
+			if (isAttribute || frame != null) {
+				continue;
+			}
+			if (elementCommand != null) {
+				readElement(reply);
+				if (--pendingElements > 0) {
+					continue;
+				}
+				elementCommand = null;
+				reply = STREAM_END;
+			}
+			out.add(reply);
+			return;
+		}
+	}
+
+	private boolean startElements(ChannelHandlerContext ctx, int size) {
+		PendingCommand command = topLevelCommand(ctx);
+		if (command == null || command.getElementAdapter() == null) {
+			return false;
+		}
+		if (size > 0) {
+			elementCommand = command;
+			pendingElements = size;
+		}
 		try {
-			out.add(RedisProtocol.parseResponse(in));
-		} catch (NedisException e) {
-			LOGGER.log(Level.WARNING, e.getMessage(), e);
-			out.add(e);
+			command.getElementAdapter().start(size);
+		} catch (Throwable e) {
+			command.failed(e);
 		}
+		return true;
+	}
 
+	/**
+	 * Pass the element to the adapter, it is discarded if the command has been
+	 * failed.
+	 * 
+	 * @param element
+	 */
+	private void readElement(Object element) {
+		if (elementCommand.isCompleted()) {
+			return;
+		}
+		try {
+			elementCommand.getElementAdapter().element(element);
+		} catch (Throwable e) {
+			elementCommand.failed(e);
+		}
+	}
+
+	private void startStream(ChannelHandlerContext ctx,
+			PendingCommand command, int length) {
+		if (length != -1) {
+			streamingCommand = command;
+			pendingStreamLength = length;
+			command.setStreaming(true);
+		}
+		try {
+			command.getChunkConsumer().start(length,
+					new BulkChunkControl(ctx.channel()));
+		} catch (Throwable e) {
+			command.failed(e);
+		}
+	}
+
+	/**
+	 * Pass the received bytes of the streamed bulk to the consumer, the bytes
+	 * are discarded if the command has been failed.
+	 * 
+	 * @param ctx
+	 * @param in
+	 * @return true if the bulk has been consumed completely
+	 */
+	private boolean readChunk(ChannelHandlerContext ctx, ByteBuf in) {
+		int length = Math.min(in.readableBytes(), pendingStreamLength);
+		if (length > 0) {
+			ByteBuf chunk = in.readSlice(length);
+			pendingStreamLength -= length;
+			if (!streamingCommand.isCompleted()) {
+				try {
+					streamingCommand.getChunkConsumer().chunk(chunk);
+				} catch (Throwable e) {
+					streamingCommand.failed(e);
+				}
+			}
+		}
+		if (pendingStreamLength > 0 || in.readableBytes() < CRLF_LENGTH) {
+			return false;
+		}
+		in.skipBytes(CRLF_LENGTH);
+		streamingCommand.setStreaming(false);
+		streamingCommand = null;
+		ctx.channel().config().setAutoRead(true);
+		return true;
+	}
+
+	private Object readBlob(ChannelHandlerContext ctx, ByteBuf in, byte type,
+			int length) {
+		switch (type) {
+		case RedisProtocol.BANG_BYTE:
+			RedisErrorReply error = readError(in, in.readerIndex(), length);
+			in.skipBytes(length + CRLF_LENGTH);
+			return error;
+		case RedisProtocol.EQUALS_BYTE:
+			// the verbatim string, the format prefix (e.g. txt:) is dropped
+			int prefix = Math.min(VERBATIM_PREFIX_LENGTH, length);
+			in.skipBytes(prefix);
+			return readBulk(ctx, in, length - prefix);
+		default:
+			return readBulk(ctx, in, length);
+		}
+	}
+
+	private static Double parseDouble(String text) {
+		switch (text) {
+		case "inf":
+			return Double.POSITIVE_INFINITY;
+		case "-inf":
+			return Double.NEGATIVE_INFINITY;
+		case "nan":
+			return Double.NaN;
+		default:
+			return Double.valueOf(text);
+		}
+	}
+
+	private Object readBulk(ChannelHandlerContext ctx, ByteBuf in, int length) {
+		switch (isBulkRetained ? ReplyShape.BUFFER : replyShape(ctx)) {
+		case BUFFER:
+			ByteBuf buffer = in.readSlice(length).retain();
+			in.skipBytes(CRLF_LENGTH);
+			return buffer;
+		case DOUBLE:
+			try {
+				Double score = parseDouble(in.toString(in.readerIndex(),
+						length, CharsetUtil.US_ASCII));
+				in.skipBytes(length + CRLF_LENGTH);
+				return score;
+			} catch (NumberFormatException e) {
+				// left to the adapter
+				break;
+			}
+		default:
+			break;
+		}
+		byte[] bulk = new byte[length];
+		in.readBytes(bulk);
+		in.skipBytes(CRLF_LENGTH);
+		return bulk;
+	}
+
+	/**
+	 * The command of the top level reply being decoded, it is null if an
+	 * element is being decoded
+	 * 
+	 * @param ctx
+	 *            null if the reply is decoded out of a channel
+	 * @return
+	 */
+	private PendingCommand topLevelCommand(ChannelHandlerContext ctx) {
+		if (ctx == null || !frames.isEmpty() || elementCommand != null) {
+			return null;
+		}
+		Queue<PendingCommand> pendingCommands = ctx.channel()
+				.attr(ConnectionPool.RESP_QUEUE_ATTR_KEY).get();
+		return pendingCommands == null ? null : pendingCommands.peek();
+	}
+
+	private ReplyShape replyShape(ChannelHandlerContext ctx) {
+		PendingCommand command = topLevelCommand(ctx);
+		return command == null ? ReplyShape.GENERIC : command.getReplyShape();
+	}
+
+	private static String readStatus(ByteBuf in, int start, int length) {
+		for (int i = 0; i < STATUS_REPLY_BYTES.length; i++) {
+			if (equals(in, start, length, STATUS_REPLY_BYTES[i])) {
+				return STATUS_REPLIES[i];
+			}
+		}
+		return in.toString(start, length, CharsetUtil.UTF_8);
+	}
+
+	/**
+	 * The common errors are mapped to the shared replies, their exceptions are
+	 * created only once
+	 * 
+	 * @param in
+	 * @param start
+	 * @param length
+	 * @return
+	 */
+	private static RedisErrorReply readError(ByteBuf in, int start, int length) {
+		for (int i = 0; i < ERROR_REPLY_BYTES.length; i++) {
+			if (equals(in, start, length, ERROR_REPLY_BYTES[i])) {
+				return ERROR_REPLIES[i];
+			}
+		}
+		return new RedisErrorReply(in.toString(start, length,
+				CharsetUtil.UTF_8));
+	}
+
+	/**
+	 * Release the buffer, or all the buffers in the list
+	 * 
+	 * @param reply
+	 */
+	static void releaseAll(Object reply) {
+		if (reply instanceof List) {
+			for (Object element : (List<?>) reply) {
+				releaseAll(element);
+			}
+			return;
+		}
+		ReferenceCountUtil.release(reply);
+	}
+
+	private static boolean equals(ByteBuf in, int start, int length,
+			byte[] bytes) {
+		if (length != bytes.length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (in.getByte(start + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 }
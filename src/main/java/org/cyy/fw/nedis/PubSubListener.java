@@ -0,0 +1,20 @@
+package org.cyy.fw.nedis;
+
+/**
+ * The listener of the messages published to the channels or the patterns
+ * subscribed by a {@link Subscriber}, it is called in the event loop of the
+ * subscriber connection, it must not block.
+ * 
+ * @author yunyun
+ * 
+ */
+public interface PubSubListener {
+
+	/**
+	 * A message has been published to a subscribed channel, or to a channel
+	 * matching a subscribed pattern
+	 * 
+	 * @param message
+	 */
+	void onMessage(PubSubMessage message);
+}
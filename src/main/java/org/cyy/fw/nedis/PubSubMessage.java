@@ -0,0 +1,96 @@
+package org.cyy.fw.nedis;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+
+import org.cyy.fw.nedis.util.TextEncoder;
+
+/**
+ * A message received by a {@link Subscriber}.
+ * <p>
+ * The payload of a zero-copy subscriber is a slice of the inbound buffer, it
+ * is released after all the listeners return, a listener must retain
+ * {@link #getPayloadBuffer()} to use it later.
+ * 
+ * @author yunyun
+ * 
+ */
+public final class PubSubMessage {
+
+	private final String channel;
+	private final String pattern;
+	private final Object payload;
+
+	PubSubMessage(String channel, String pattern, Object payload) {
+		super();
+		this.channel = channel;
+		this.pattern = pattern;
+		this.payload = payload;
+	}
+
+	/**
+	 * The channel which the message is published to
+	 * 
+	 * @return
+	 */
+	public String getChannel() {
+		return channel;
+	}
+
+	/**
+	 * The subscribed pattern matching the channel
+	 * 
+	 * @return null if the channel itself is subscribed
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * The payload, it is copied from the buffer of a zero-copy subscriber
+	 * 
+	 * @return
+	 */
+	public byte[] getPayload() {
+		if (payload instanceof ByteBuf) {
+			ByteBuf buffer = (ByteBuf) payload;
+			byte[] bytes = new byte[buffer.readableBytes()];
+			buffer.getBytes(buffer.readerIndex(), bytes);
+			return bytes;
+		}
+		return (byte[]) payload;
+	}
+
+	/**
+	 * The payload decoded by UTF-8
+	 * 
+	 * @return
+	 */
+	public String getPayloadText() {
+		if (payload instanceof ByteBuf) {
+			return ((ByteBuf) payload).toString(CharsetUtil.UTF_8);
+		}
+		return TextEncoder.decode((byte[]) payload);
+	}
+
+	/**
+	 * The payload without copy if the subscriber is a zero-copy one, it is
+	 * valid only in {@link PubSubListener#onMessage(PubSubMessage)} unless it
+	 * is retained
+	 * 
+	 * @return
+	 */
+	public ByteBuf getPayloadBuffer() {
+		if (payload instanceof ByteBuf) {
+			return (ByteBuf) payload;
+		}
+		return Unpooled.wrappedBuffer((byte[]) payload);
+	}
+
+	@Override
+	public String toString() {
+		return "PubSubMessage [channel=" + channel + ", pattern=" + pattern
+				+ "]";
+	}
+}
@@ -0,0 +1,18 @@
+package org.cyy.fw.nedis;
+
+/**
+ * The listener of the push messages of the RESP3 protocol, it is called in the
+ * event loop of the connection, it must not block.
+ * 
+ * @author yunyun
+ * 
+ */
+public interface PushListener {
+
+	/**
+	 * A push message has arrived
+	 * 
+	 * @param message
+	 */
+	void onPush(PushMessage message);
+}
@@ -0,0 +1,53 @@
+package org.cyy.fw.nedis;
+
+import java.util.List;
+
+import org.cyy.fw.nedis.util.TextEncoder;
+
+/**
+ * An out-of-band push message of the RESP3 protocol, e.g. the invalidation
+ * of the client side caching, it is not the reply of any command.
+ * 
+ * @author yunyun
+ * 
+ */
+public final class PushMessage {
+
+	private final List<Object> content;
+
+	PushMessage(List<Object> content) {
+		super();
+		this.content = content;
+	}
+
+	/**
+	 * The kind of the message, it is the first element, e.g. invalidate
+	 * 
+	 * @return
+	 */
+	public String getKind() {
+		if (content.isEmpty()) {
+			return null;
+		}
+		Object kind = content.get(0);
+		if (kind instanceof byte[]) {
+			return TextEncoder.decode((byte[]) kind);
+		}
+		return String.valueOf(kind);
+	}
+
+	/**
+	 * All the elements of the message, including the kind
+	 * 
+	 * @return
+	 */
+	public List<Object> getContent() {
+		return content;
+	}
+
+	@Override
+	public String toString() {
+		return "PushMessage [kind=" + getKind() + ", size=" + content.size()
+				+ "]";
+	}
+}
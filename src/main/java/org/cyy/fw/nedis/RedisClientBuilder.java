@@ -6,5 +6,14 @@ public interface RedisClientBuilder extends ClientConfig<RedisClientBuilder> {
 
 	RedisClientBuilder setPort(int port);
 
+	/**
+	 * Connect the server by the unix domain socket, see
+	 * {@link ServerNode#setSocketPath(String)}
+	 * 
+	 * @param socketPath
+	 * @return
+	 */
+	RedisClientBuilder setSocketPath(String socketPath);
+
 	NedisClient build();
 }
@@ -0,0 +1,61 @@
+package org.cyy.fw.nedis;
+
+import org.cyy.fw.nedis.util.RedisErrorException;
+
+/**
+ * An error reply, it is a plain value until the command fails with it, the
+ * nested errors (e.g. in the reply of EXEC) are kept as the values.
+ * 
+ * @author yunyun
+ * 
+ */
+public final class RedisErrorReply {
+
+	private final String code;
+	private final String message;
+	// the shared exception of the common errors
+	private final RedisErrorException exception;
+
+	RedisErrorReply(String message) {
+		this(message, false);
+	}
+
+	RedisErrorReply(String message, boolean isShared) {
+		super();
+		this.message = message;
+		int codeEnd = message.indexOf(' ');
+		this.code = codeEnd < 0 ? message : message.substring(0, codeEnd);
+		this.exception = isShared ? new RedisErrorException(code, message)
+				: null;
+	}
+
+	/**
+	 * The first word of the error, e.g. ERR, WRONGTYPE or NOSCRIPT
+	 * 
+	 * @return
+	 */
+	public String getCode() {
+		return code;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * The exception the command fails with, it has no stack trace
+	 * 
+	 * @return
+	 */
+	public RedisErrorException toException() {
+		if (exception != null) {
+			return exception;
+		}
+		return new RedisErrorException(code, message);
+	}
+
+	@Override
+	public String toString() {
+		return message;
+	}
+}
@@ -6,10 +6,13 @@ public enum RedisKeyword {
 	AGGREGATE, ALPHA, ASC, BY, DESC, GET, LIMIT, MESSAGE, NO, NOSORT, PMESSAGE, PSUBSCRIBE, PUNSUBSCRIBE, OK, ONE, QUEUED, SET, STORE, SUBSCRIBE, UNSUBSCRIBE, WEIGHTS, WITHSCORES, RESETSTAT, RESET, FLUSH, EXISTS, LOAD, KILL, LEN, REFCOUNT, ENCODING, IDLETIME, AND, OR, XOR, NOT, GETNAME, SETNAME, LIST, MATCH, COUNT, REPLACE;
 	public final byte[] binary;
 	private String text;
+	// the pre-encoded bulk of the keyword: $length\r\nkeyword\r\n
+	private final byte[] header;
 
 	private RedisKeyword() {
 		text = name();
 		binary = TextEncoder.encode(this.name().toLowerCase());
+		header = RedisProtocol.encodeBulk(binary);
 	}
 
 	public byte[] getBinary() {
@@ -19,4 +22,8 @@ public enum RedisKeyword {
 	public String getText() {
 		return text;
 	}
+
+	byte[] getHeader() {
+		return header;
+	}
 }
\ No newline at end of file
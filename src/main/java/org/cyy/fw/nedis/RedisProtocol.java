@@ -2,21 +2,38 @@ package org.cyy.fw.nedis;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import org.cyy.fw.nedis.util.NedisException;
-import org.cyy.fw.nedis.util.TextEncoder;
 
 public final class RedisProtocol {
-	private static final byte DOLLAR_BYTE = '$';
-	private static final byte ASTERISK_BYTE = '*';
-	private static final byte PLUS_BYTE = '+';
-	private static final byte MINUS_BYTE = '-';
-	private static final byte COLON_BYTE = ':';
+	static final byte DOLLAR_BYTE = '$';
+	static final byte ASTERISK_BYTE = '*';
+	static final byte PLUS_BYTE = '+';
+	static final byte MINUS_BYTE = '-';
+	static final byte COLON_BYTE = ':';
+	// the types of RESP3
+	static final byte UNDERSCORE_BYTE = '_';
+	static final byte COMMA_BYTE = ',';
+	static final byte HASH_BYTE = '#';
+	static final byte LEFT_PAREN_BYTE = '(';
+	static final byte BANG_BYTE = '!';
+	static final byte EQUALS_BYTE = '=';
+	static final byte PERCENT_BYTE = '%';
+	static final byte TILDE_BYTE = '~';
+	static final byte PIPE_BYTE = '|';
+	static final byte GREATER_BYTE = '>';
 
 	public static final String NULL = "null";
+	public static final String OK = "OK";
+	public static final String QUEUED = "QUEUED";
+	public static final String PONG = "PONG";
 	private final static int[] SIZETABLE = { 9, 99, 999, 9999, 99999, 999999,
 			9999999, 99999999, 999999999, Integer.MAX_VALUE };
 	private final static byte[] DIGIT_TENS = { '0', '0', '0', '0', '0', '0',
@@ -43,70 +60,462 @@ public final class RedisProtocol {
 			'7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j',
 			'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w',
 			'x', 'y', 'z' };
+	private static final int CRLF_LENGTH = 2;
+	// the headers of the small lengths are pre-encoded
+	private static final int CACHED_HEADER_SIZE = 256;
+	private static final byte[][] BULK_HEADERS = encodeHeaders(DOLLAR_BYTE);
+	private static final byte[][] MULTI_BULK_HEADERS = encodeHeaders(ASTERISK_BYTE);
+	// the arguments of this size or larger are written without copying
+	private static final int LARGE_ARG_SIZE = 16 * 1024;
+	private static final byte[] MIN_LONG_BYTES = String.valueOf(Long.MIN_VALUE)
+			.getBytes(CharsetUtil.US_ASCII);
 
+	/**
+	 * Encode the command into one buffer of the exact size, or into a
+	 * composite buffer if it has the large arguments, see
+	 * {@link #generateRequests(List, ByteBufAllocator)}.
+	 * 
+	 * @param binaryCmd
+	 * @param alloc
+	 * @return
+	 */
 	public static ByteBuf generateRequest(BinaryCommand binaryCmd,
 			ByteBufAllocator alloc) {
-		final int INIT_SIZE = 1024;
-		byte[] command = binaryCmd.getCommand();
-		byte[][] args = binaryCmd.getArgs();
-		ByteBuf byteBuf = alloc.buffer(INIT_SIZE);
-		byteBuf.writeByte(RedisProtocol.ASTERISK_BYTE);
-		writeIntCrLf(args == null ? 1 : args.length + 1, byteBuf);
-		byteBuf.writeByte(RedisProtocol.DOLLAR_BYTE);
-		writeIntCrLf(command.length, byteBuf);
-		byteBuf.writeBytes(command);
-		writeCrLf(byteBuf);
+		int largeArgs = largeArgCount(binaryCmd);
+		ByteBuf byteBuf = alloc.buffer(requestSize(binaryCmd));
+		CompositeByteBuf composite = largeArgs == 0 ? null : alloc
+				.compositeBuffer((largeArgs << 1) + 1);
+		try {
+			writeRequest(binaryCmd, byteBuf, composite);
+			return completeRequest(byteBuf, composite);
+		} catch (RuntimeException e) {
+			releaseRequest(byteBuf, composite);
+			throw e;
+		}
+	}
+
+	/**
+	 * Encode the commands into one request. The sizes of all the commands are
+	 * computed first, then they are encoded directly into one buffer of that
+	 * size. The large arguments are not copied, they are wrapped as the
+	 * components of a composite buffer between the slices of that buffer, so
+	 * they must not be modified until the request is written.
+	 * 
+	 * @param binaryCmds
+	 * @param alloc
+	 * @return
+	 */
+	static ByteBuf generateRequests(List<BinaryCommand> binaryCmds,
+			ByteBufAllocator alloc) {
+		int size = 0;
+		int largeArgs = 0;
+		for (BinaryCommand binaryCmd : binaryCmds) {
+			size += requestSize(binaryCmd);
+			largeArgs += largeArgCount(binaryCmd);
+		}
+		ByteBuf byteBuf = alloc.buffer(size);
+		CompositeByteBuf composite = largeArgs == 0 ? null : alloc
+				.compositeBuffer((largeArgs << 1) + 1);
+		try {
+			for (BinaryCommand binaryCmd : binaryCmds) {
+				writeRequest(binaryCmd, byteBuf, composite);
+			}
+			return completeRequest(byteBuf, composite);
+		} catch (RuntimeException e) {
+			releaseRequest(byteBuf, composite);
+			throw e;
+		}
+	}
 
+	/**
+	 * The size of the request, the large arguments excluded
+	 * 
+	 * @param binaryCmd
+	 * @return
+	 */
+	private static int requestSize(BinaryCommand binaryCmd) {
+		byte[] commandHeader = binaryCmd.getHeader();
+		CommandArgs commandArgs = binaryCmd.getCommandArgs();
+		if (commandArgs != null) {
+			return argsRequestSize(commandHeader, commandArgs);
+		}
+		String[] textArgs = binaryCmd.getTextArgs();
+		if (textArgs != null && textArgs.length > 0) {
+			return textRequestSize(commandHeader, textArgs);
+		}
+		byte[][] args = binaryCmd.getArgs();
+		int argCount = args == null ? 1 : args.length + 1;
+		int size = headerLength(argCount) + commandHeader.length;
 		if (args != null) {
 			for (final byte[] arg : args) {
-				byteBuf.writeByte(RedisProtocol.DOLLAR_BYTE);
-				writeIntCrLf(arg.length, byteBuf);
+				size += headerLength(arg.length) + CRLF_LENGTH;
+				if (arg.length < LARGE_ARG_SIZE) {
+					size += arg.length;
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * The number of the arguments which are not copied into the request,
+	 * only the binary arguments may be
+	 * 
+	 * @param binaryCmd
+	 * @return
+	 */
+	private static int largeArgCount(BinaryCommand binaryCmd) {
+		if (binaryCmd.getCommandArgs() != null) {
+			return 0;
+		}
+		String[] textArgs = binaryCmd.getTextArgs();
+		if (textArgs != null && textArgs.length > 0) {
+			return 0;
+		}
+		byte[][] args = binaryCmd.getArgs();
+		if (args == null) {
+			return 0;
+		}
+		int largeArgs = 0;
+		for (final byte[] arg : args) {
+			if (arg.length >= LARGE_ARG_SIZE) {
+				largeArgs++;
+			}
+		}
+		return largeArgs;
+	}
+
+	/**
+	 * @param binaryCmd
+	 * @param byteBuf
+	 * @param composite
+	 *            the large arguments are added to it, null if there is none
+	 */
+	private static void writeRequest(BinaryCommand binaryCmd, ByteBuf byteBuf,
+			CompositeByteBuf composite) {
+		byte[] commandHeader = binaryCmd.getHeader();
+		CommandArgs commandArgs = binaryCmd.getCommandArgs();
+		if (commandArgs != null) {
+			writeArgsRequest(commandHeader, commandArgs, byteBuf);
+			return;
+		}
+		String[] textArgs = binaryCmd.getTextArgs();
+		if (textArgs != null && textArgs.length > 0) {
+			writeTextRequest(commandHeader, textArgs, byteBuf);
+			return;
+		}
+		byte[][] args = binaryCmd.getArgs();
+		int argCount = args == null ? 1 : args.length + 1;
+		writeHeader(MULTI_BULK_HEADERS, ASTERISK_BYTE, argCount, byteBuf);
+		byteBuf.writeBytes(commandHeader);
+		if (args == null) {
+			return;
+		}
+		for (final byte[] arg : args) {
+			writeHeader(BULK_HEADERS, DOLLAR_BYTE, arg.length, byteBuf);
+			if (arg.length < LARGE_ARG_SIZE) {
 				byteBuf.writeBytes(arg);
-				writeCrLf(byteBuf);
+			} else {
+				addSlice(byteBuf, composite);
+				composite.addComponent(true, Unpooled.wrappedBuffer(arg));
 			}
+			writeCrLf(byteBuf);
 		}
-		return byteBuf;
 	}
 
-	private static void writeIntCrLf(int value, ByteBuf byteBuf) {
-		if (value < 0) {
-			byteBuf.writeByte((byte) '-');
-			value = -value;
+	/**
+	 * Add the bytes written since the last slice as a component, the slice
+	 * shares the buffer.
+	 * 
+	 * @param byteBuf
+	 * @param composite
+	 */
+	private static void addSlice(ByteBuf byteBuf, CompositeByteBuf composite) {
+		int length = byteBuf.readableBytes();
+		if (length == 0) {
+			return;
+		}
+		composite.addComponent(true,
+				byteBuf.slice(byteBuf.readerIndex(), length).retain());
+		byteBuf.skipBytes(length);
+	}
+
+	private static ByteBuf completeRequest(ByteBuf byteBuf,
+			CompositeByteBuf composite) {
+		if (composite == null) {
+			return byteBuf;
+		}
+		addSlice(byteBuf, composite);
+		// the slices hold the buffer
+		byteBuf.release();
+		return composite;
+	}
+
+	private static void releaseRequest(ByteBuf byteBuf,
+			CompositeByteBuf composite) {
+		byteBuf.release();
+		if (composite != null) {
+			composite.release();
+		}
+	}
+
+	/**
+	 * The string arguments are encoded into the request directly: the ASCII
+	 * ones (most of the keys and the numbers) byte by byte without any
+	 * intermediate array, only the others are encoded into the bytes by UTF-8.
+	 * 
+	 * @param commandHeader
+	 * @param args
+	 * @return
+	 */
+	private static int textRequestSize(byte[] commandHeader, String[] args) {
+		int size = headerLength(args.length + 1) + commandHeader.length;
+		for (String arg : args) {
+			int length = isAscii(arg) ? arg.length() : utf8Length(arg);
+			size += headerLength(length) + length + CRLF_LENGTH;
+		}
+		return size;
+	}
+
+	private static void writeTextRequest(byte[] commandHeader,
+			String[] args, ByteBuf byteBuf) {
+		writeHeader(MULTI_BULK_HEADERS, ASTERISK_BYTE, args.length + 1,
+				byteBuf);
+		byteBuf.writeBytes(commandHeader);
+		for (String arg : args) {
+			if (isAscii(arg)) {
+				writeHeader(BULK_HEADERS, DOLLAR_BYTE, arg.length(), byteBuf);
+				ByteBufUtil.writeAscii(byteBuf, arg);
+			} else {
+				byte[] encodedArg = arg.getBytes(CharsetUtil.UTF_8);
+				writeHeader(BULK_HEADERS, DOLLAR_BYTE, encodedArg.length,
+						byteBuf);
+				byteBuf.writeBytes(encodedArg);
+			}
+			writeCrLf(byteBuf);
+		}
+	}
+
+	/**
+	 * The length of the text encoded by UTF-8, an unpaired surrogate is
+	 * encoded to '?' as {@link String#getBytes(java.nio.charset.Charset)}
+	 * does.
+	 * 
+	 * @param text
+	 * @return
+	 */
+	static int utf8Length(String text) {
+		int length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (!Character.isSurrogate(c)) {
+				length += 3;
+			} else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+					&& Character.isLowSurrogate(text.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else {
+				length++;
+			}
+		}
+		return length;
+	}
+
+	private static int argsRequestSize(byte[] commandHeader, CommandArgs args) {
+		int size = headerLength(args.size() + 1) + commandHeader.length;
+		for (int i = 0; i < args.size(); i++) {
+			byte[] bulk = args.encodedBulk(i);
+			if (bulk != null) {
+				size += bulk.length;
+				continue;
+			}
+			int length = args.length(i);
+			size += headerLength(length) + length + CRLF_LENGTH;
+		}
+		return size;
+	}
+
+	private static void writeArgsRequest(byte[] commandHeader,
+			CommandArgs args, ByteBuf byteBuf) {
+		writeHeader(MULTI_BULK_HEADERS, ASTERISK_BYTE, args.size() + 1,
+				byteBuf);
+		byteBuf.writeBytes(commandHeader);
+		for (int i = 0; i < args.size(); i++) {
+			byte[] bulk = args.encodedBulk(i);
+			if (bulk != null) {
+				byteBuf.writeBytes(bulk);
+				continue;
+			}
+			writeHeader(BULK_HEADERS, DOLLAR_BYTE, args.length(i), byteBuf);
+			args.write(i, byteBuf);
+			writeCrLf(byteBuf);
+		}
+	}
+
+	static boolean isAscii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Encode the text as a complete bulk: $length\r\ntext\r\n, it is used to
+	 * pre-encode the commands and the keywords.
+	 * 
+	 * @param text
+	 * @return
+	 */
+	static byte[] encodeBulk(byte[] text) {
+		byte[] header = BULK_HEADERS.length > text.length ? BULK_HEADERS[text.length]
+				: encodeHeader(DOLLAR_BYTE, text.length);
+		byte[] bulk = new byte[header.length + text.length + CRLF_LENGTH];
+		System.arraycopy(header, 0, bulk, 0, header.length);
+		System.arraycopy(text, 0, bulk, header.length, text.length);
+		bulk[bulk.length - 2] = '\r';
+		bulk[bulk.length - 1] = '\n';
+		return bulk;
+	}
+
+	private static byte[][] encodeHeaders(byte type) {
+		byte[][] headers = new byte[CACHED_HEADER_SIZE][];
+		for (int i = 0; i < headers.length; i++) {
+			headers[i] = encodeHeader(type, i);
 		}
+		return headers;
+	}
+
+	private static byte[] encodeHeader(byte type, int length) {
+		ByteBuf buf = Unpooled.buffer(headerLength(length));
+		buf.writeByte(type);
+		writeIntCrLf(length, buf);
+		return buf.array();
+	}
+
+	private static int headerLength(int length) {
+		return 1 + stringSize(length) + CRLF_LENGTH;
+	}
 
+	private static int stringSize(int value) {
 		int size = 0;
 		while (value > SIZETABLE[size])
 			size++;
+		return size + 1;
+	}
 
-		size++;
-		// if (size >= buf.length - count) {
-		// flushBuffer();
-		// }
+	private static int stringSize(long value) {
+		long p = 10;
+		for (int size = 1; size < 19; size++) {
+			if (value < p)
+				return size;
+			p = 10 * p;
+		}
+		return 19;
+	}
+
+	/**
+	 * The length of the decimal digits of the integer, including the sign
+	 * 
+	 * @param value
+	 * @return
+	 */
+	static int longLength(long value) {
+		if (value == Long.MIN_VALUE) {
+			return MIN_LONG_BYTES.length;
+		}
+		return value < 0 ? stringSize(-value) + 1 : stringSize(value);
+	}
 
+	/**
+	 * Write the decimal digits of the integer, the same as
+	 * {@link #writeIntCrLf(int, ByteBuf)} but for the signed long
+	 * 
+	 * @param value
+	 * @param byteBuf
+	 */
+	static void writeLong(long value, ByteBuf byteBuf) {
+		if (value == Long.MIN_VALUE) {
+			byteBuf.writeBytes(MIN_LONG_BYTES);
+			return;
+		}
+		if (value < 0) {
+			byteBuf.writeByte('-');
+			value = -value;
+		}
+		int size = stringSize(value);
+		byteBuf.ensureWritable(size);
+		int charPos = byteBuf.writerIndex() + size;
+		long q;
+		int r;
+		while (value > Integer.MAX_VALUE) {
+			q = value / 100;
+			r = (int) (value - ((q << 6) + (q << 5) + (q << 2)));
+			value = q;
+			byteBuf.setByte(--charPos, DIGIT_ONES[r]);
+			byteBuf.setByte(--charPos, DIGIT_TENS[r]);
+		}
+		writeDigits((int) value, charPos, byteBuf);
+		byteBuf.writerIndex(byteBuf.writerIndex() + size);
+	}
+
+	private static void writeHeader(byte[][] headers, byte type, int length,
+			ByteBuf byteBuf) {
+		if (length < headers.length) {
+			byteBuf.writeBytes(headers[length]);
+			return;
+		}
+		byteBuf.writeByte(type);
+		writeIntCrLf(length, byteBuf);
+	}
+
+	/**
+	 * Write the non-negative integer, the digits are written into the buffer
+	 * directly from the lowest one.
+	 * 
+	 * @param value
+	 * @param byteBuf
+	 */
+	private static void writeIntCrLf(int value, ByteBuf byteBuf) {
+		int size = stringSize(value);
+		byteBuf.ensureWritable(size);
+		writeDigits(value, byteBuf.writerIndex() + size, byteBuf);
+		byteBuf.writerIndex(byteBuf.writerIndex() + size);
+
+		writeCrLf(byteBuf);
+	}
+
+	/**
+	 * Set the digits of the non-negative integer backwards from the position
+	 * 
+	 * @param value
+	 * @param charPos
+	 * @param byteBuf
+	 */
+	private static void writeDigits(int value, int charPos, ByteBuf byteBuf) {
 		int q, r;
-		int charPos = size;
-		byte[] buf = new byte[charPos];
 
 		while (value >= 65536) {
 			q = value / 100;
 			r = value - ((q << 6) + (q << 5) + (q << 2));
 			value = q;
-			buf[--charPos] = DIGIT_ONES[r];
-			buf[--charPos] = DIGIT_TENS[r];
+			byteBuf.setByte(--charPos, DIGIT_ONES[r]);
+			byteBuf.setByte(--charPos, DIGIT_TENS[r]);
 		}
 
 		for (;;) {
 			q = (value * 52429) >>> (16 + 3);
 			r = value - ((q << 3) + (q << 1));
-			buf[--charPos] = DIGITS[r];
+			byteBuf.setByte(--charPos, DIGITS[r]);
 			value = q;
 			if (value == 0)
 				break;
 		}
-		byteBuf.writeBytes(buf);
-		// count += size;
-
-		writeCrLf(byteBuf);
 	}
 
 	private static void writeCrLf(ByteBuf byteBuf) {
@@ -118,93 +527,35 @@ public final class RedisProtocol {
 		return text == null || NULL.equals(text);
 	}
 
+	/**
+	 * Parse one reply which is entirely in the buffer, a top level error is
+	 * thrown
+	 * 
+	 * @param byteBuf
+	 * @return
+	 * @deprecated the replies are decoded by {@link ProtocolDecoder}, which
+	 *             resumes a reply split across several reads, this method
+	 *             delegates to it
+	 */
+	@Deprecated
 	public static Object parseResponse(ByteBuf byteBuf) {
-		byte b = byteBuf.readByte();
-		if (b == MINUS_BYTE) {
-			parseError(byteBuf);
-		} else if (b == ASTERISK_BYTE) {
-			return parseMultiBulkReply(byteBuf);
-		} else if (b == COLON_BYTE) {
-			return parseInteger(byteBuf);
-		} else if (b == DOLLAR_BYTE) {
-			return parseBulkReply(byteBuf);
-		} else if (b == PLUS_BYTE) {
-			return parseStatusCodeReply(byteBuf);
-		} else {
-			throw new NedisException("Unknown reply: " + (char) b);
-		}
-		return null;
-	}
-
-	private static void parseError(ByteBuf byteBuf) {
-		String message = readLine(byteBuf);
-		throw new NedisException(message);
-	}
-
-	private static Long parseInteger(ByteBuf byteBuf) {
-		String num = readLine(byteBuf);
-		return Long.valueOf(num);
-	}
-
-	private static String parseStatusCodeReply(ByteBuf byteBuf) {
-		return readLine(byteBuf);
-	}
-
-	private static byte[] parseBulkReply(ByteBuf byteBuf) {
-		int len = Integer.parseInt(readLine(byteBuf));
-		if (len == -1) {
-			return TextEncoder.encode(NULL);
-		}
-		byte[] read = new byte[len];
-		int offset = 0;
-		byteBuf.readBytes(read, offset, len);
-		// read 2 more bytes for the command delimiter
-		byteBuf.readByte();
-		byteBuf.readByte();
-
-		// return TextEncoder.decode(read);
-		return read;
-	}
-
-	private static List<Object> parseMultiBulkReply(ByteBuf byteBuf) {
-		int num = Integer.parseInt(readLine(byteBuf));
-		if (num == -1) {
-			return new ArrayList<>();
+		List<Object> out = new ArrayList<>(1);
+		try {
+			new ProtocolDecoder().decode(null, byteBuf, out);
+		} catch (NedisException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new NedisException(e);
 		}
-		List<Object> ret = new ArrayList<Object>(num);
-		for (int i = 0; i < num; i++) {
-			try {
-				ret.add(parseResponse(byteBuf));
-			} catch (NedisException e) {
-				ret.add(e);
-			}
+		if (out.isEmpty()) {
+			throw new NedisException("The reply is incomplete.");
 		}
-		return ret;
-	}
-
-	private static String readLine(ByteBuf byteBuf) {
-		int b;
-		byte c;
-		StringBuilder sb = new StringBuilder();
-
-		while (true) {
-			b = byteBuf.readByte();
-			if (b == '\r') {
-
-				c = byteBuf.readByte();
-				if (c == '\n') {
-					break;
-				}
-				sb.append((char) b);
-				sb.append((char) c);
-			} else {
-				sb.append((char) b);
-			}
+		Object reply = out.get(0);
+		if (reply instanceof RedisErrorReply) {
+			throw ((RedisErrorReply) reply).toException();
 		}
-		String reply = sb.toString();
-		if (reply.length() == 0) {
-			throw new NedisException(
-					"It seems like server has closed the connection.");
+		if (reply instanceof NedisException) {
+			throw (NedisException) reply;
 		}
 		return reply;
 	}
@@ -0,0 +1,34 @@
+package org.cyy.fw.nedis;
+
+/**
+ * The shape of the reply expected by a command, it is declared by the adapter
+ * of the command, so the decoder parses the top level reply straight into the
+ * final type instead of the generic one.
+ * 
+ * @author yunyun
+ * 
+ */
+enum ReplyShape {
+
+	/**
+	 * The generic types, e.g. Long, byte[], String or List
+	 */
+	GENERIC,
+	/**
+	 * The integer reply 1 or 0 is decoded into Boolean.TRUE or Boolean.FALSE
+	 */
+	BOOLEAN,
+	/**
+	 * The bulk reply is parsed into a Double without copying its bytes
+	 */
+	DOUBLE,
+	/**
+	 * The bulk reply is a retained slice of the received buffer
+	 */
+	BUFFER,
+	/**
+	 * The nil multi-bulk reply is decoded into the nil bulk instead of an
+	 * empty list, e.g. the reply of an aborted EXEC
+	 */
+	NULLABLE_MULTI_BULK
+}
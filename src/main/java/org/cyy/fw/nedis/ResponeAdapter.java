@@ -1,5 +1,8 @@
 package org.cyy.fw.nedis;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -11,6 +14,7 @@ import java.util.Map.Entry;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.cyy.fw.nedis.util.RedisErrorException;
 import org.cyy.fw.nedis.util.TextEncoder;
 
 /**
@@ -35,8 +39,8 @@ public interface ResponeAdapter<S, T> {
 
 abstract class BaseResponseAdapter<S, T> implements ResponeAdapter<S, T> {
 
-	private Logger LOGGER = Logger.getLogger(BaseResponseAdapter.class
-			.getSimpleName());
+	private static final Logger LOGGER = Logger
+			.getLogger(BaseResponseAdapter.class.getSimpleName());
 	private ResponseCallback<T> respCallBack;
 
 	public BaseResponseAdapter(ResponseCallback<T> respCallBack) {
@@ -49,13 +53,28 @@ abstract class BaseResponseAdapter<S, T> implements ResponeAdapter<S, T> {
 		this.respCallBack = l;
 	}
 
+	ResponseCallback<T> getResponseCallback() {
+		return respCallBack;
+	}
+
+	/**
+	 * The shape of the reply the decoder parses into
+	 * 
+	 * @return
+	 */
+	ReplyShape getReplyShape() {
+		return ReplyShape.GENERIC;
+	}
+
 	@Override
 	public void done(S result) {
 		if (this.respCallBack == null) {
 			return;
 		}
 		T adjustedResult = adjust(result);
-		LOGGER.log(Level.INFO, "result:" + result);
+		if (LOGGER.isLoggable(Level.FINE)) {
+			LOGGER.log(Level.FINE, "result:" + result);
+		}
 		this.respCallBack.done(adjustedResult);
 	}
 
@@ -64,7 +83,11 @@ abstract class BaseResponseAdapter<S, T> implements ResponeAdapter<S, T> {
 		if (this.respCallBack == null) {
 			return;
 		}
-		LOGGER.log(Level.WARNING, "result:" + cause.getMessage(), cause);
+		// the error replies are the results of the commands, not the faults
+		// of the client
+		if (!(cause instanceof RedisErrorException)) {
+			LOGGER.log(Level.WARNING, "result:" + cause.getMessage(), cause);
+		}
 		this.respCallBack.failed(cause);
 	}
 
@@ -79,11 +102,22 @@ class BooleanResponseAdapter extends BaseResponseAdapter<Object, Boolean> {
 		super(respCallBack);
 	}
 
+	@Override
+	ReplyShape getReplyShape() {
+		return ReplyShape.BOOLEAN;
+	}
+
 	@Override
 	public Boolean adjust(Object source) {
+		if (source instanceof Boolean) {
+			return (Boolean) source;
+		}
 		if (source == null) {
 			return false;
 		}
+		if (source instanceof Long) {
+			return ((Long) source).longValue() == YES;
+		}
 		return source.toString().equals(String.valueOf(YES));
 	}
 
@@ -95,8 +129,16 @@ class DoubleResponseAdapter extends BaseResponseAdapter<Object, Double> {
 		super(respCallBack);
 	}
 
+	@Override
+	ReplyShape getReplyShape() {
+		return ReplyShape.DOUBLE;
+	}
+
 	@Override
 	protected Double adjust(Object source) {
+		if (source instanceof Double) {
+			return (Double) source;
+		}
 		if (source == null) {
 			return Double.MIN_VALUE;
 		}
@@ -135,6 +177,274 @@ class ByteResponseAdapter extends BaseResponseAdapter<Object, byte[]> {
 
 }
 
+/**
+ * The bulk reply is passed as a retained slice of the inbound buffer, it must
+ * be released by the callback, null is passed if the key does not exist.
+ * 
+ * @author yunyun
+ * 
+ */
+class BufferResponseAdapter extends BaseResponseAdapter<Object, ByteBuf> {
+
+	public BufferResponseAdapter(ResponseCallback<ByteBuf> respCallBack) {
+		super(respCallBack);
+	}
+
+	@Override
+	ReplyShape getReplyShape() {
+		return ReplyShape.BUFFER;
+	}
+
+	@Override
+	public void done(Object result) {
+		if (getResponseCallback() == null) {
+			ReferenceCountUtil.release(result);
+			return;
+		}
+		super.done(result);
+	}
+
+	@Override
+	protected ByteBuf adjust(Object source) {
+		if (source instanceof ByteBuf) {
+			return (ByteBuf) source;
+		}
+		// the nil reply
+		return null;
+	}
+
+}
+
+/**
+ * The adapter of a streamed bulk reply, the chunks are passed to the consumer
+ * by {@link ProtocolDecoder} directly, only the end and the failure of the
+ * reply pass through the adapter.
+ * 
+ * @author yunyun
+ * 
+ */
+class BulkChunkResponseAdapter implements ResponeAdapter<Object, Void> {
+
+	private final BulkChunkConsumer consumer;
+
+	public BulkChunkResponseAdapter(BulkChunkConsumer consumer) {
+		super();
+		this.consumer = consumer;
+	}
+
+	BulkChunkConsumer getConsumer() {
+		return consumer;
+	}
+
+	@Override
+	public void setResponseCallback(ResponseCallback<Void> respCallBack) {
+		// NOOP
+	}
+
+	@Override
+	public void done(Object source) {
+		if (consumer != null) {
+			consumer.end();
+		}
+	}
+
+	@Override
+	public void failed(Throwable cause) {
+		if (consumer != null) {
+			consumer.failed(cause);
+		}
+	}
+
+}
+
+/**
+ * The adapter of a streamed multi-bulk reply, the elements are passed to the
+ * adapter by {@link ProtocolDecoder} one by one, they are adjusted and passed
+ * to the consumer.
+ * 
+ * @author yunyun
+ * 
+ * @param <T>
+ *            The element type
+ */
+abstract class ElementResponseAdapter<T> implements ResponeAdapter<Object, Void> {
+
+	private final ElementConsumer<T> consumer;
+	private int size = -1;
+	private boolean isStarted;
+
+	public ElementResponseAdapter(ElementConsumer<T> consumer) {
+		super();
+		this.consumer = consumer;
+	}
+
+	@Override
+	public void setResponseCallback(ResponseCallback<Void> respCallBack) {
+		// NOOP
+	}
+
+	/**
+	 * The consumer is started by the first element, the size depends on its
+	 * shape, the pairs are flat in RESP2 but nested in RESP3
+	 * 
+	 * @param size
+	 */
+	void start(int size) {
+		this.size = size;
+	}
+
+	void element(Object source) {
+		if (!isStarted) {
+			isStarted = true;
+			if (consumer != null) {
+				consumer.start(adjustSize(size, source));
+			}
+		}
+		T element = adjustElement(source);
+		if (element != null && consumer != null) {
+			consumer.element(element);
+		}
+	}
+
+	@Override
+	public void done(Object source) {
+		if (consumer != null) {
+			if (!isStarted) {
+				consumer.start(0);
+			}
+			consumer.end();
+		}
+	}
+
+	@Override
+	public void failed(Throwable cause) {
+		if (consumer != null) {
+			consumer.failed(cause);
+		}
+	}
+
+	protected int adjustSize(int size, Object firstElement) {
+		return size < 0 ? 0 : size;
+	}
+
+	/**
+	 * Adjust the decoded element
+	 * 
+	 * @param source
+	 * @return null if the element is not completed
+	 */
+	protected abstract T adjustElement(Object source);
+
+	protected static String decode(Object source) {
+		if (source == null) {
+			return null;
+		}
+		if (source instanceof byte[]) {
+			return TextEncoder.decode((byte[]) source);
+		}
+		return source.toString();
+	}
+
+	protected static Double decodeScore(Object source) {
+		if (source instanceof Double) {
+			return (Double) source;
+		}
+		return Double.valueOf(decode(source));
+	}
+}
+
+class StringElementResponseAdapter extends ElementResponseAdapter<String> {
+
+	public StringElementResponseAdapter(ElementConsumer<String> consumer) {
+		super(consumer);
+	}
+
+	@Override
+	protected String adjustElement(Object source) {
+		return decode(source);
+	}
+
+}
+
+/**
+ * The fields and the values come in turn, a pair is passed when its value
+ * arrives.
+ * 
+ * @author yunyun
+ * 
+ */
+class KeyValuePairElementResponseAdapter extends
+		ElementResponseAdapter<KeyValuePair> {
+
+	private String key;
+
+	public KeyValuePairElementResponseAdapter(
+			ElementConsumer<KeyValuePair> consumer) {
+		super(consumer);
+	}
+
+	@Override
+	protected int adjustSize(int size, Object firstElement) {
+		return super.adjustSize(size, firstElement) >> 1;
+	}
+
+	@Override
+	protected KeyValuePair adjustElement(Object source) {
+		if (key == null) {
+			key = decode(source);
+			return null;
+		}
+		KeyValuePair pair = new KeyValuePair(key, decode(source));
+		key = null;
+		return pair;
+	}
+
+}
+
+/**
+ * The members and the scores come in turn, a pair is passed when its score
+ * arrives. In RESP3 each pair comes as a nested list of the member and the
+ * score.
+ * 
+ * @author yunyun
+ * 
+ */
+class ScoreMemberPairElementResponseAdapter extends
+		ElementResponseAdapter<ScoreMemberPair> {
+
+	private String member;
+
+	public ScoreMemberPairElementResponseAdapter(
+			ElementConsumer<ScoreMemberPair> consumer) {
+		super(consumer);
+	}
+
+	@Override
+	protected int adjustSize(int size, Object firstElement) {
+		if (firstElement instanceof List) {
+			return super.adjustSize(size, firstElement);
+		}
+		return super.adjustSize(size, firstElement) >> 1;
+	}
+
+	@Override
+	protected ScoreMemberPair adjustElement(Object source) {
+		if (source instanceof List) {
+			List<?> nested = (List<?>) source;
+			return new ScoreMemberPair(decodeScore(nested.get(1)),
+					decode(nested.get(0)));
+		}
+		if (member == null) {
+			member = decode(source);
+			return null;
+		}
+		ScoreMemberPair pair = new ScoreMemberPair(decodeScore(source), member);
+		member = null;
+		return pair;
+	}
+
+}
+
 class StringResponseAdapter extends BaseResponseAdapter<Object, String> {
 
 	public StringResponseAdapter(ResponseCallback<String> respCallBack) {
@@ -154,6 +464,66 @@ class StringResponseAdapter extends BaseResponseAdapter<Object, String> {
 
 }
 
+/**
+ * The adapter of the reply of a script, the bulk replies are decoded to
+ * strings, the multi-bulk replies to lists, and the nested error replies to
+ * exceptions. The reply of EVALSHA is NOSCRIPT if the server does not have
+ * the script, the fallback sends the script by EVAL then.
+ * 
+ * @author yunyun
+ * 
+ */
+class ScriptResponseAdapter extends BaseResponseAdapter<Object, Object> {
+
+	private static final String NO_SCRIPT = "NOSCRIPT";
+	private Runnable fallback;
+
+	public ScriptResponseAdapter(ResponseCallback<Object> respCallBack) {
+		super(respCallBack);
+	}
+
+	/**
+	 * @param fallback
+	 *            null if the NOSCRIPT reply fails the command
+	 */
+	void setFallback(Runnable fallback) {
+		this.fallback = fallback;
+	}
+
+	@Override
+	public void failed(Throwable cause) {
+		Runnable noScript = fallback;
+		// the fallback is sent once
+		fallback = null;
+		if (noScript != null && cause instanceof RedisErrorException
+				&& NO_SCRIPT.equals(((RedisErrorException) cause).getCode())) {
+			noScript.run();
+			return;
+		}
+		super.failed(cause);
+	}
+
+	@Override
+	protected Object adjust(Object source) {
+		if (source instanceof byte[]) {
+			return TextEncoder.decode((byte[]) source);
+		}
+		if (source instanceof RedisErrorReply) {
+			return ((RedisErrorReply) source).toException();
+		}
+		if (source instanceof List) {
+			List<?> elements = (List<?>) source;
+			List<Object> result = new ArrayList<>(elements.size());
+			for (Object element : elements) {
+				result.add(adjust(element));
+			}
+			return result;
+		}
+		return source;
+	}
+
+}
+
 class LongResponseAdapter extends BaseResponseAdapter<Object, Long> {
 
 	public LongResponseAdapter(ResponseCallback<Long> respCallBack) {
@@ -255,7 +625,7 @@ class StringScanResultResponseAdapter extends
 }
 
 class HashMapResponseAdapter extends
-		BaseResponseAdapter<List<Object>, Map<String, String>> {
+		BaseResponseAdapter<Object, Map<String, String>> {
 
 	public HashMapResponseAdapter(
 			ResponseCallback<Map<String, String>> respCallBack) {
@@ -263,16 +633,25 @@ class HashMapResponseAdapter extends
 	}
 
 	@Override
-	protected Map<String, String> adjust(List<Object> source) {
+	protected Map<String, String> adjust(Object source) {
 		Map<String, String> map = new HashMap<>();
 		if (source == null) {
 			return map;
 		}
-		for (int i = 0; i < source.size(); i += 2) {
-			Object field = source.get(i);
+		if (source instanceof Map) {
+			// RESP3
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) source).entrySet()) {
+				map.put(ElementResponseAdapter.decode(entry.getKey()),
+						ElementResponseAdapter.decode(entry.getValue()));
+			}
+			return map;
+		}
+		List<?> list = (List<?>) source;
+		for (int i = 0; i < list.size(); i += 2) {
+			Object field = list.get(i);
 			Object value = null;
-			if (i < source.size() - 1) {
-				value = source.get(i + 1);
+			if (i < list.size() - 1) {
+				value = list.get(i + 1);
 			}
 			String f = null;
 			if (field instanceof byte[]) {
@@ -294,7 +673,7 @@ class HashMapResponseAdapter extends
 }
 
 class ScoreMemberPairResponseAdapter extends
-		BaseResponseAdapter<List<Object>, ScoreMemberPair[]> {
+		BaseResponseAdapter<Object, ScoreMemberPair[]> {
 
 	public ScoreMemberPairResponseAdapter(
 			ResponseCallback<ScoreMemberPair[]> respCallBack) {
@@ -302,16 +681,28 @@ class ScoreMemberPairResponseAdapter extends
 	}
 
 	@Override
-	protected ScoreMemberPair[] adjust(List<Object> source) {
+	protected ScoreMemberPair[] adjust(Object source) {
 		if (source == null) {
 			return new ScoreMemberPair[0];
 		}
-		ScoreMemberPair[] pairs = new ScoreMemberPair[source.size() >> 1];
-		for (int i = 0; i < source.size(); i += 2) {
-			Object value = source.get(i);
+		List<?> list = (List<?>) source;
+		if (!list.isEmpty() && list.get(0) instanceof List) {
+			// RESP3, the pairs are nested
+			ScoreMemberPair[] pairs = new ScoreMemberPair[list.size()];
+			for (int i = 0; i < list.size(); i++) {
+				List<?> nested = (List<?>) list.get(i);
+				pairs[i] = new ScoreMemberPair(
+						ElementResponseAdapter.decodeScore(nested.get(1)),
+						ElementResponseAdapter.decode(nested.get(0)));
+			}
+			return pairs;
+		}
+		ScoreMemberPair[] pairs = new ScoreMemberPair[list.size() >> 1];
+		for (int i = 0; i < list.size(); i += 2) {
+			Object value = list.get(i);
 			Object score = null;
-			if (i < source.size() - 1) {
-				score = source.get(i + 1);
+			if (i < list.size() - 1) {
+				score = list.get(i + 1);
 			}
 			String v = null;
 			if (value instanceof byte[]) {
@@ -5,6 +5,7 @@ import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.handler.timeout.IdleStateEvent;
 
+import java.util.Queue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,33 +16,57 @@ public class ResponseReceiver extends SimpleChannelInboundHandler<Object> {
 			.getLogger(ResponseReceiver.class.getSimpleName());
 
 	private ConnectionPool connectionPool;
+	private PushListener pushListener;
 
 	public void setConnectionPool(ConnectionPool connectionPool) {
 		this.connectionPool = connectionPool;
 	}
 
-	@SuppressWarnings("unchecked")
+	public void setPushListener(PushListener pushListener) {
+		this.pushListener = pushListener;
+	}
+
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, Object msg)
 			throws Exception {
-		ResponeAdapter<Object, Object> responseAdapter = (ResponeAdapter<Object, Object>) ctx
-				.channel().attr(ConnectionPool.RESP_ATTR_KEY).get();
-		if (responseAdapter != null) {
-			if (msg instanceof Throwable) {
-				responseAdapter.failed((Throwable) msg);
+		if (msg instanceof PushMessage) {
+			// it is not the reply of any command
+			if (pushListener != null) {
+				pushListener.onPush((PushMessage) msg);
+			}
+			return;
+		}
+		Queue<PendingCommand> pendingCommands = ctx.channel()
+				.attr(ConnectionPool.RESP_QUEUE_ATTR_KEY).get();
+		PendingCommand pendingCommand = pendingCommands.poll();
+		if (pendingCommand != null) {
+			if (msg instanceof RedisErrorReply) {
+				pendingCommand.failed(((RedisErrorReply) msg).toException());
+			} else if (msg instanceof Throwable) {
+				pendingCommand.failed((Throwable) msg);
 			} else {
 				// responseListener.done((T) process(msg));
-				responseAdapter.done(msg);
+				pendingCommand.done(msg);
 			}
 		}
-		closeOrReturnChannel(ctx);
+		// the connection is still in use if there are more commands on it,
+		// e.g. the HELLO before the first command
+		if (pendingCommands.isEmpty()) {
+			closeOrReturnChannel(ctx);
+		}
 	}
 
+	/**
+	 * The replies after a decode failure can not be matched to the pending
+	 * commands any more, so the channel is closed and they fail, even if it is
+	 * shared by the multiplexed commands.
+	 */
 	@Override
 	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause)
 			throws Exception {
-		closeOrReturnChannel(ctx);
-		super.exceptionCaught(ctx, cause);
+		LOGGER.log(Level.WARNING, ctx.channel() + " closed on exception: "
+				+ cause.getMessage(), cause);
+		ctx.close();
 	}
 
 	private void closeOrReturnChannel(ChannelHandlerContext ctx) {
@@ -0,0 +1,22 @@
+package org.cyy.fw.nedis;
+
+/**
+ * The response callback with its own response deadline, it overrides the
+ * default response timeout of the client for this command.
+ * 
+ * @author yunyun
+ * 
+ * @param <T>
+ *            The result generic type
+ */
+public interface ResponseTimeoutCallback<T> extends ResponseCallback<T> {
+
+	/**
+	 * The response timeout of this command, the callback fails with
+	 * {@link org.cyy.fw.nedis.util.ResponseTimeoutException} if the response
+	 * has not arrived in time, 0 means never timeout.
+	 * 
+	 * @return timeout in milliseconds
+	 */
+	long getResponseTimeoutMills();
+}
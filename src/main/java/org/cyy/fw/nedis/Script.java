@@ -0,0 +1,77 @@
+package org.cyy.fw.nedis;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.cyy.fw.nedis.util.NedisException;
+import org.cyy.fw.nedis.util.TextEncoder;
+
+/**
+ * A Lua script, its SHA1 digest is computed once when it is created, so the
+ * script is run by EVALSHA without sending its body, see
+ * {@link NedisClient#evalSha(ResponseCallback, Script, String[], String...)}.
+ * <p>
+ * A script registered by
+ * {@link NedisClient#registerScript(ResponseCallback, Script)} is loaded to
+ * the server by every new connection of the client.
+ * 
+ * <pre>
+ * Script script = new Script(
+ * 		&quot;return redis.call('incrby', KEYS[1], ARGV[1])&quot;);
+ * client.registerScript(null, script);
+ * client.evalSha(null, script, new String[] { &quot;counter&quot; }, &quot;2&quot;);
+ * </pre>
+ * 
+ * @author yunyun
+ * 
+ */
+public final class Script {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	private final String body;
+	private final String sha1;
+
+	public Script(String body) {
+		super();
+		if (body == null) {
+			throw new NullPointerException("The script body is null.");
+		}
+		this.body = body;
+		this.sha1 = digest(body);
+	}
+
+	public String getBody() {
+		return body;
+	}
+
+	/**
+	 * The lowercase hex SHA1 digest of the body, the same as the one returned
+	 * by SCRIPT LOAD
+	 * 
+	 * @return
+	 */
+	public String getSha1() {
+		return sha1;
+	}
+
+	@Override
+	public String toString() {
+		return sha1;
+	}
+
+	private static String digest(String body) {
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1").digest(
+					TextEncoder.encode(body));
+		} catch (NoSuchAlgorithmException e) {
+			throw new NedisException(e);
+		}
+		char[] hex = new char[digest.length * 2];
+		for (int i = 0; i < digest.length; i++) {
+			hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+			hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+		}
+		return new String(hex);
+	}
+}
@@ -6,6 +6,7 @@ public class ServerNode extends NodeInfo {
 
 	private String host;
 	private int port;
+	private String socketPath;
 
 	public String getHost() {
 		return host;
@@ -23,8 +24,30 @@ public class ServerNode extends NodeInfo {
 		this.port = port;
 	}
 
+	public String getSocketPath() {
+		return socketPath;
+	}
+
+	/**
+	 * Connect the co-located server by the unix domain socket instead of TCP,
+	 * the host and port are ignored if it is set. It requires the epoll
+	 * transport, which must be enabled.
+	 * 
+	 * @param socketPath
+	 */
+	public void setSocketPath(String socketPath) {
+		this.socketPath = socketPath;
+	}
+
+	public boolean isDomainSocket() {
+		return socketPath != null;
+	}
+
 	@Override
 	public String toString() {
+		if (isDomainSocket()) {
+			return "unix:" + socketPath;
+		}
 		return host + ":" + port;
 	}
 }
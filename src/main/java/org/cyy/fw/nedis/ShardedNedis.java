@@ -1,5 +1,6 @@
 package org.cyy.fw.nedis;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
@@ -25,11 +26,24 @@ public class ShardedNedis implements ClientConfig<ShardedNedis> {
 	private int eventLoopGroupSize;
 	private int connectionPoolSize;
 	private boolean isTcpNoDelay = true;
+	private boolean isEpollEnabled;
+	private boolean isTcpQuickAck;
+	private boolean isEpollEdgeTriggered = true;
 	private ByteBufAllocator allocator;
 	private RecvByteBufAllocator recvAllocator;
 	private MessageSizeEstimator estimator;
 	private int maxConnectionIdleTimeInMills;
 	private int minIdleConnection;
+	private int multiplexConnections;
+	private long responseTimeoutMills;
+	private int maxConnectionWaiters;
+	private long acquireTimeoutMills = -1;
+	private boolean isFlushBatching;
+	private long flushMaxDelayMicros;
+	private int flushMaxBytes;
+	private int flushMaxCommands;
+	private boolean isResp3;
+	private PushListener pushListener;
 
 	public ShardedNedis(List<ServerNode> nodes) {
 		nodeSharder = new NodeSharder<>(nodes);
@@ -106,705 +120,1138 @@ public class ShardedNedis implements ClientConfig<ShardedNedis> {
 		}
 	}
 
-	public void expire(ResponseCallback<ShardedResponse<Boolean>> respCallBack,
-			String key, long seconds) {
+	public NedisFuture<ShardedResponse<Boolean>> expire(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack, String key,
+			long seconds) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).expire(
-				wrapShardedCallBack(respCallBack, serverNode), key, seconds);
+				wrapShardedCallBack(future, serverNode), key, seconds);
+		return future;
 	}
 
-	public void expireAt(
-			ResponseCallback<ShardedResponse<Boolean>> respCallBack,
-			String key, long ts) {
+	public NedisFuture<ShardedResponse<Boolean>> expireAt(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack, String key,
+			long ts) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).expireAt(
-				wrapShardedCallBack(respCallBack, serverNode), key, ts);
+				wrapShardedCallBack(future, serverNode), key, ts);
+		return future;
 	}
 
-	public void move(ResponseCallback<ShardedResponse<Boolean>> respCallBack,
-			String key, int destDb) {
+	public NedisFuture<ShardedResponse<Boolean>> move(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack, String key,
+			int destDb) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).move(
-				wrapShardedCallBack(respCallBack, serverNode), key, destDb);
+				wrapShardedCallBack(future, serverNode), key, destDb);
+		return future;
 	}
 
-	public void objectRefcount(
+	public NedisFuture<ShardedResponse<Long>> objectRefcount(
 			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).objectRefcount(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void objectIdletime(
+	public NedisFuture<ShardedResponse<Long>> objectIdletime(
 			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).objectIdletime(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void objectEncoding(
-			ResponseCallback<ShardedResponse<String>> respCallBack, String key) {
+	public NedisFuture<ShardedResponse<String>> objectEncoding(
+			ResponseCallback<ShardedResponse<String>> respCallBack,
+			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).objectEncoding(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void persist(
-			ResponseCallback<ShardedResponse<Boolean>> respCallBack, String key) {
+	public NedisFuture<ShardedResponse<Boolean>> persist(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack,
+			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).persist(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void pExpire(
-			ResponseCallback<ShardedResponse<Boolean>> respCallBack,
-			String key, long millSeconds) {
+	public NedisFuture<ShardedResponse<Boolean>> pExpire(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack, String key,
+			long millSeconds) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode)
-				.pExpire(wrapShardedCallBack(respCallBack, serverNode), key,
+				.pExpire(wrapShardedCallBack(future, serverNode), key,
 						millSeconds);
+		return future;
 	}
 
-	public void pExpireAt(
-			ResponseCallback<ShardedResponse<Boolean>> respCallBack,
-			String key, long millTs) {
+	public NedisFuture<ShardedResponse<Boolean>> pExpireAt(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack, String key,
+			long millTs) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).pExpireAt(
-				wrapShardedCallBack(respCallBack, serverNode), key, millTs);
+				wrapShardedCallBack(future, serverNode), key, millTs);
+		return future;
 	}
 
-	public void pTTL(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key) {
+	public NedisFuture<ShardedResponse<Long>> pTTL(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).pTTL(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void sort(ResponseCallback<ShardedResponse<String[]>> respCallBack,
+	public NedisFuture<ShardedResponse<String[]>> sort(
+			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).sort(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void sort(ResponseCallback<ShardedResponse<String[]>> respCallBack,
+	public NedisFuture<ShardedResponse<String[]>> sort(
+			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key, SortingParams params) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).sort(
-				wrapShardedCallBack(respCallBack, serverNode), key, params);
+				wrapShardedCallBack(future, serverNode), key, params);
+		return future;
 	}
 
-	public void ttl(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key) {
+	public NedisFuture<ShardedResponse<Long>> ttl(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).ttl(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void type(ResponseCallback<ShardedResponse<String>> respCallBack,
+	public NedisFuture<ShardedResponse<String>> type(
+			ResponseCallback<ShardedResponse<String>> respCallBack,
 			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).type(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void set(ResponseCallback<ShardedResponse<String>> respCallBack,
-			String key, String value) {
+	public NedisFuture<ShardedResponse<String>> set(
+			ResponseCallback<ShardedResponse<String>> respCallBack, String key,
+			String value) {
+		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
+		getClient(serverNode).set(
+				wrapShardedCallBack(future, serverNode), key, value);
+		return future;
+	}
+
+	public NedisFuture<ShardedResponse<String>> set(
+			ResponseCallback<ShardedResponse<String>> respCallBack, String key,
+			byte[] value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).set(
-				wrapShardedCallBack(respCallBack, serverNode), key, value);
+				wrapShardedCallBack(future, serverNode), key, value);
+		return future;
 	}
 
-	public void get(ResponseCallback<ShardedResponse<String>> respCallBack,
+	public NedisFuture<ShardedResponse<String>> get(
+			ResponseCallback<ShardedResponse<String>> respCallBack,
 			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).get(
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
+	}
+
+	public void getBuffer(
+			ResponseCallback<ShardedResponse<ByteBuf>> respCallBack, String key) {
+		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		getClient(serverNode).getBuffer(
 				wrapShardedCallBack(respCallBack, serverNode), key);
 	}
 
-	public void del(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key) {
+	public void getStream(BulkChunkConsumer consumer, String key) {
+		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		getClient(serverNode).getStream(consumer, key);
+	}
+
+	public void dumpStream(BulkChunkConsumer consumer, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		getClient(serverNode).dumpStream(consumer, key);
+	}
+
+	public NedisFuture<ShardedResponse<Long>> del(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
+		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).del(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void exists(ResponseCallback<ShardedResponse<Boolean>> respCallBack,
+	public NedisFuture<ShardedResponse<Boolean>> exists(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack,
 			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).exists(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void append(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String value) {
+	public NedisFuture<ShardedResponse<Long>> append(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).append(
-				wrapShardedCallBack(respCallBack, serverNode), key, value);
+				wrapShardedCallBack(future, serverNode), key, value);
+		return future;
 	}
 
-	public void setBit(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, long offset, int value) {
+	public NedisFuture<ShardedResponse<Long>> setBit(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			long offset, int value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).setBit(
-				wrapShardedCallBack(respCallBack, serverNode), key, offset,
+				wrapShardedCallBack(future, serverNode), key, offset,
 				value);
+		return future;
 	}
 
-	public void getBit(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, long offset) {
+	public NedisFuture<ShardedResponse<Long>> getBit(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			long offset) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).getBit(
-				wrapShardedCallBack(respCallBack, serverNode), key, offset);
+				wrapShardedCallBack(future, serverNode), key, offset);
+		return future;
 	}
 
-	public void bitCount(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key) {
+	public NedisFuture<ShardedResponse<Long>> bitCount(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).bitCount(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void bitCount(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, long start, long end) {
+	public NedisFuture<ShardedResponse<Long>> bitCount(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			long start, long end) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).bitCount(
-				wrapShardedCallBack(respCallBack, serverNode), key, start, end);
+				wrapShardedCallBack(future, serverNode), key, start, end);
+		return future;
 	}
 
-	public void incr(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key) {
+	public NedisFuture<ShardedResponse<Long>> incr(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).incr(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void incrBy(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, long increment) {
+	public NedisFuture<ShardedResponse<Long>> incrBy(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			long increment) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).incrBy(
-				wrapShardedCallBack(respCallBack, serverNode), key, increment);
+				wrapShardedCallBack(future, serverNode), key, increment);
+		return future;
 	}
 
-	public void incrByFloat(
+	public NedisFuture<ShardedResponse<Double>> incrByFloat(
 			ResponseCallback<ShardedResponse<Double>> respCallBack, String key,
 			double increment) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Double>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).incrByFloat(
-				wrapShardedCallBack(respCallBack, serverNode), key, increment);
+				wrapShardedCallBack(future, serverNode), key, increment);
+		return future;
 	}
 
-	public void decr(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key) {
+	public NedisFuture<ShardedResponse<Long>> decr(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).decr(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void decrBy(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, long increment) {
+	public NedisFuture<ShardedResponse<Long>> decrBy(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			long increment) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).decrBy(
-				wrapShardedCallBack(respCallBack, serverNode), key, increment);
+				wrapShardedCallBack(future, serverNode), key, increment);
+		return future;
 	}
 
-	public void getRange(
+	public NedisFuture<ShardedResponse<String>> getRange(
 			ResponseCallback<ShardedResponse<String>> respCallBack, String key,
 			long start, long end) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).getRange(
-				wrapShardedCallBack(respCallBack, serverNode), key, start, end);
+				wrapShardedCallBack(future, serverNode), key, start, end);
+		return future;
 	}
 
-	public void getSet(ResponseCallback<ShardedResponse<String>> respCallBack,
-			String key, String value) {
+	public NedisFuture<ShardedResponse<String>> getSet(
+			ResponseCallback<ShardedResponse<String>> respCallBack, String key,
+			String value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).getSet(
-				wrapShardedCallBack(respCallBack, serverNode), key, value);
+				wrapShardedCallBack(future, serverNode), key, value);
+		return future;
 	}
 
-	public void setNX(ResponseCallback<ShardedResponse<Boolean>> respCallBack,
-			String key, String value) {
+	public NedisFuture<ShardedResponse<Boolean>> setNX(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack, String key,
+			String value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).setNX(
-				wrapShardedCallBack(respCallBack, serverNode), key, value);
+				wrapShardedCallBack(future, serverNode), key, value);
+		return future;
 	}
 
-	public void setEX(ResponseCallback<ShardedResponse<String>> respCallBack,
-			String key, long seconds, String value) {
+	public NedisFuture<ShardedResponse<String>> setEX(
+			ResponseCallback<ShardedResponse<String>> respCallBack, String key,
+			long seconds, String value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).setEX(
-				wrapShardedCallBack(respCallBack, serverNode), key, seconds,
+				wrapShardedCallBack(future, serverNode), key, seconds,
 				value);
+		return future;
 	}
 
-	public void pSetEX(ResponseCallback<ShardedResponse<String>> respCallBack,
-			String key, long millSeconds, String value) {
+	public NedisFuture<ShardedResponse<String>> pSetEX(
+			ResponseCallback<ShardedResponse<String>> respCallBack, String key,
+			long millSeconds, String value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).pSetEX(
-				wrapShardedCallBack(respCallBack, serverNode), key,
+				wrapShardedCallBack(future, serverNode), key,
 				millSeconds, value);
+		return future;
 	}
 
-	public void setRange(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, long offset, String value) {
+	public NedisFuture<ShardedResponse<Long>> setRange(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			long offset, String value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).setRange(
-				wrapShardedCallBack(respCallBack, serverNode), key, offset,
+				wrapShardedCallBack(future, serverNode), key, offset,
 				value);
+		return future;
 	}
 
-	public void strLen(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key) {
+	public NedisFuture<ShardedResponse<Long>> strLen(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).strLen(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void hSet(ResponseCallback<ShardedResponse<Boolean>> respCallBack,
-			String key, String field, String value) {
+	public NedisFuture<ShardedResponse<Boolean>> hSet(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack, String key,
+			String field, String value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).hSet(
-				wrapShardedCallBack(respCallBack, serverNode), key, field,
+				wrapShardedCallBack(future, serverNode), key, field,
 				value);
+		return future;
 	}
 
-	public void hSetNX(ResponseCallback<ShardedResponse<Boolean>> respCallBack,
-			String key, String field, String value) {
+	public NedisFuture<ShardedResponse<Boolean>> hSetNX(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack, String key,
+			String field, String value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).hSetNX(
-				wrapShardedCallBack(respCallBack, serverNode), key, field,
+				wrapShardedCallBack(future, serverNode), key, field,
 				value);
+		return future;
 	}
 
-	public void hGet(ResponseCallback<ShardedResponse<String>> respCallBack,
-			String key, String field) {
+	public NedisFuture<ShardedResponse<String>> hGet(
+			ResponseCallback<ShardedResponse<String>> respCallBack, String key,
+			String field) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).hGet(
-				wrapShardedCallBack(respCallBack, serverNode), key, field);
+				wrapShardedCallBack(future, serverNode), key, field);
+		return future;
 	}
 
-	public void hGetAll(
+	public NedisFuture<ShardedResponse<Map<String, String>>> hGetAll(
 			ResponseCallback<ShardedResponse<Map<String, String>>> respCallBack,
 			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Map<String, String>>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).hGetAll(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
+	}
+
+	public void hGetAllStream(ElementConsumer<KeyValuePair> consumer,
+			String key) {
+		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		getClient(serverNode).hGetAllStream(consumer, key);
 	}
 
-	public void hDel(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String field) {
+	public NedisFuture<ShardedResponse<Long>> hDel(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String field) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).hDel(
-				wrapShardedCallBack(respCallBack, serverNode), key, field);
+				wrapShardedCallBack(future, serverNode), key, field);
+		return future;
 	}
 
-	public void hExist(ResponseCallback<ShardedResponse<Boolean>> respCallBack,
-			String key, String field) {
+	public NedisFuture<ShardedResponse<Boolean>> hExist(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack, String key,
+			String field) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).hExist(
-				wrapShardedCallBack(respCallBack, serverNode), key, field);
+				wrapShardedCallBack(future, serverNode), key, field);
+		return future;
 	}
 
-	public void hIncrBy(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String field, long increment) {
+	public NedisFuture<ShardedResponse<Long>> hIncrBy(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String field, long increment) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).hIncrBy(
-				wrapShardedCallBack(respCallBack, serverNode), key, field,
+				wrapShardedCallBack(future, serverNode), key, field,
 				increment);
+		return future;
 	}
 
-	public void hIncrByFloat(
+	public NedisFuture<ShardedResponse<Double>> hIncrByFloat(
 			ResponseCallback<ShardedResponse<Double>> respCallBack, String key,
 			String field, double increment) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Double>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).hIncrByFloat(
-				wrapShardedCallBack(respCallBack, serverNode), key, field,
+				wrapShardedCallBack(future, serverNode), key, field,
 				increment);
+		return future;
 	}
 
-	public void hKeys(ResponseCallback<ShardedResponse<String[]>> respCallBack,
+	public NedisFuture<ShardedResponse<String[]>> hKeys(
+			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).hKeys(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void hVals(ResponseCallback<ShardedResponse<String[]>> respCallBack,
+	public NedisFuture<ShardedResponse<String[]>> hVals(
+			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).hVals(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void hLen(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key) {
+	public NedisFuture<ShardedResponse<Long>> hLen(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).hLen(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void lPush(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String value, String... morvalue) {
+	public NedisFuture<ShardedResponse<Long>> lPush(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String value, String... morvalue) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).lPush(
-				wrapShardedCallBack(respCallBack, serverNode), key, value,
+				wrapShardedCallBack(future, serverNode), key, value,
 				morvalue);
+		return future;
 	}
 
-	public void lPushX(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String value) {
+	public NedisFuture<ShardedResponse<Long>> lPushX(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).lPushX(
-				wrapShardedCallBack(respCallBack, serverNode), key, value);
+				wrapShardedCallBack(future, serverNode), key, value);
+		return future;
 	}
 
-	public void lPop(ResponseCallback<ShardedResponse<String>> respCallBack,
+	public NedisFuture<ShardedResponse<String>> lPop(
+			ResponseCallback<ShardedResponse<String>> respCallBack,
 			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).lPop(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void rPush(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String value, String... moreValues) {
+	public NedisFuture<ShardedResponse<Long>> rPush(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String value, String... moreValues) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).rPush(
-				wrapShardedCallBack(respCallBack, serverNode), key, value,
+				wrapShardedCallBack(future, serverNode), key, value,
 				moreValues);
+		return future;
 	}
 
-	public void rPushX(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String value) {
+	public NedisFuture<ShardedResponse<Long>> rPushX(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).rPushX(
-				wrapShardedCallBack(respCallBack, serverNode), key, value);
+				wrapShardedCallBack(future, serverNode), key, value);
+		return future;
 	}
 
-	public void rPop(ResponseCallback<ShardedResponse<String>> respCallBack,
+	public NedisFuture<ShardedResponse<String>> rPop(
+			ResponseCallback<ShardedResponse<String>> respCallBack,
 			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).rPop(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void blPop(ResponseCallback<ShardedResponse<String[]>> respCallBack,
+	public NedisFuture<ShardedResponse<String[]>> blPop(
+			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			long timeout, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).blPop(
-				wrapShardedCallBack(respCallBack, serverNode), timeout, key);
+				wrapShardedCallBack(future, serverNode), timeout, key);
+		return future;
 	}
 
-	public void brPop(ResponseCallback<ShardedResponse<String[]>> respCallBack,
+	public NedisFuture<ShardedResponse<String[]>> brPop(
+			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			long timeout, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).brPop(
-				wrapShardedCallBack(respCallBack, serverNode), timeout, key);
+				wrapShardedCallBack(future, serverNode), timeout, key);
+		return future;
 	}
 
-	public void lRange(
+	public NedisFuture<ShardedResponse<String[]>> lRange(
 			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key, long start, long end) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).lRange(
-				wrapShardedCallBack(respCallBack, serverNode), key, start, end);
+				wrapShardedCallBack(future, serverNode), key, start, end);
+		return future;
 	}
 
-	public void lIndex(ResponseCallback<ShardedResponse<String>> respCallBack,
-			String key, long index) {
+	public void lRangeStream(ElementConsumer<String> consumer, String key,
+			long start, long end) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		getClient(serverNode).lRangeStream(consumer, key, start, end);
+	}
+
+	public NedisFuture<ShardedResponse<String>> lIndex(
+			ResponseCallback<ShardedResponse<String>> respCallBack, String key,
+			long index) {
+		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).lIndex(
-				wrapShardedCallBack(respCallBack, serverNode), key, index);
+				wrapShardedCallBack(future, serverNode), key, index);
+		return future;
 	}
 
-	public void lInsert(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String value, String pivot, boolean before) {
+	public NedisFuture<ShardedResponse<Long>> lInsert(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String value, String pivot, boolean before) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).lInsert(
-				wrapShardedCallBack(respCallBack, serverNode), key, value,
+				wrapShardedCallBack(future, serverNode), key, value,
 				pivot, before);
+		return future;
 	}
 
-	public void lLen(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key) {
+	public NedisFuture<ShardedResponse<Long>> lLen(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).lLen(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void lREM(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String value, long count) {
+	public NedisFuture<ShardedResponse<Long>> lREM(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String value, long count) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).lREM(
-				wrapShardedCallBack(respCallBack, serverNode), key, value,
+				wrapShardedCallBack(future, serverNode), key, value,
 				count);
+		return future;
 	}
 
-	public void lSet(ResponseCallback<ShardedResponse<String>> respCallBack,
-			String key, long index, String value) {
+	public NedisFuture<ShardedResponse<String>> lSet(
+			ResponseCallback<ShardedResponse<String>> respCallBack, String key,
+			long index, String value) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).lSet(
-				wrapShardedCallBack(respCallBack, serverNode), key, index,
+				wrapShardedCallBack(future, serverNode), key, index,
 				value);
+		return future;
 	}
 
-	public void lTrim(ResponseCallback<ShardedResponse<String>> respCallBack,
-			String key, long start, long end) {
+	public NedisFuture<ShardedResponse<String>> lTrim(
+			ResponseCallback<ShardedResponse<String>> respCallBack, String key,
+			long start, long end) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).lTrim(
-				wrapShardedCallBack(respCallBack, serverNode), key, start, end);
+				wrapShardedCallBack(future, serverNode), key, start, end);
+		return future;
 	}
 
-	public void sAdd(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String member, String... moreMember) {
+	public NedisFuture<ShardedResponse<Long>> sAdd(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String member, String... moreMember) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).sAdd(
-				wrapShardedCallBack(respCallBack, serverNode), key, member,
+				wrapShardedCallBack(future, serverNode), key, member,
 				moreMember);
+		return future;
 	}
 
-	public void sCard(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key) {
+	public NedisFuture<ShardedResponse<Long>> sCard(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).sCard(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void sPop(ResponseCallback<ShardedResponse<String>> respCallBack,
+	public NedisFuture<ShardedResponse<String>> sPop(
+			ResponseCallback<ShardedResponse<String>> respCallBack,
 			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).sPop(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void sRandMember(
-			ResponseCallback<ShardedResponse<String[]>> respCallBack, String key) {
+	public NedisFuture<ShardedResponse<String[]>> sRandMember(
+			ResponseCallback<ShardedResponse<String[]>> respCallBack,
+			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).sRandMember(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void sRandMember(
+	public NedisFuture<ShardedResponse<String[]>> sRandMember(
 			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key, int count) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).sRandMember(
-				wrapShardedCallBack(respCallBack, serverNode), key, count);
+				wrapShardedCallBack(future, serverNode), key, count);
+		return future;
 	}
 
-	public void sMembers(
-			ResponseCallback<ShardedResponse<String[]>> respCallBack, String key) {
+	public NedisFuture<ShardedResponse<String[]>> sMembers(
+			ResponseCallback<ShardedResponse<String[]>> respCallBack,
+			String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).sMembers(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void sisMember(
-			ResponseCallback<ShardedResponse<Boolean>> respCallBack,
-			String key, String member) {
+	public void sMembersStream(ElementConsumer<String> consumer, String key) {
+		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		getClient(serverNode).sMembersStream(consumer, key);
+	}
+
+	public NedisFuture<ShardedResponse<Boolean>> sisMember(
+			ResponseCallback<ShardedResponse<Boolean>> respCallBack, String key,
+			String member) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Boolean>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).sisMember(
-				wrapShardedCallBack(respCallBack, serverNode), key, member);
+				wrapShardedCallBack(future, serverNode), key, member);
+		return future;
 	}
 
-	public void sRem(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String member, String... moreMembers) {
+	public NedisFuture<ShardedResponse<Long>> sRem(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String member, String... moreMembers) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).sRem(
-				wrapShardedCallBack(respCallBack, serverNode), key, member,
+				wrapShardedCallBack(future, serverNode), key, member,
 				moreMembers);
+		return future;
 	}
 
-	public void zAdd(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, double score, String member) {
+	public NedisFuture<ShardedResponse<Long>> zAdd(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			double score, String member) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zAdd(
-				wrapShardedCallBack(respCallBack, serverNode), key, score,
+				wrapShardedCallBack(future, serverNode), key, score,
 				member);
+		return future;
 	}
 
-	public void zAdd(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, ScoreMemberPair scoreMember,
-			ScoreMemberPair... moreScoreMembers) {
+	public NedisFuture<ShardedResponse<Long>> zAdd(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			ScoreMemberPair scoreMember, ScoreMemberPair... moreScoreMembers) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zAdd(
-				wrapShardedCallBack(respCallBack, serverNode), key,
+				wrapShardedCallBack(future, serverNode), key,
 				scoreMember, moreScoreMembers);
+		return future;
 	}
 
-	public void zCard(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key) {
+	public NedisFuture<ShardedResponse<Long>> zCard(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zCard(
-				wrapShardedCallBack(respCallBack, serverNode), key);
+				wrapShardedCallBack(future, serverNode), key);
+		return future;
 	}
 
-	public void zCount(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, double min, double max) {
+	public NedisFuture<ShardedResponse<Long>> zCount(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			double min, double max) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zCount(
-				wrapShardedCallBack(respCallBack, serverNode), key, min, max);
+				wrapShardedCallBack(future, serverNode), key, min, max);
+		return future;
 	}
 
-	public void zIncrBy(ResponseCallback<ShardedResponse<Double>> respCallBack,
-			String key, String member, double increment) {
+	public NedisFuture<ShardedResponse<Double>> zIncrBy(
+			ResponseCallback<ShardedResponse<Double>> respCallBack, String key,
+			String member, double increment) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Double>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zIncrBy(
-				wrapShardedCallBack(respCallBack, serverNode), key, member,
+				wrapShardedCallBack(future, serverNode), key, member,
 				increment);
+		return future;
 	}
 
-	public void zRange(
+	public NedisFuture<ShardedResponse<String[]>> zRange(
 			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key, long start, long end) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRange(
-				wrapShardedCallBack(respCallBack, serverNode), key, start, end);
+				wrapShardedCallBack(future, serverNode), key, start, end);
+		return future;
 	}
 
-	public void zRangeWithScores(
+	public NedisFuture<ShardedResponse<ScoreMemberPair[]>> zRangeWithScores(
 			ResponseCallback<ShardedResponse<ScoreMemberPair[]>> respCallBack,
 			String key, long start, long end) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<ScoreMemberPair[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRangeWithScores(
-				wrapShardedCallBack(respCallBack, serverNode), key, start, end);
+				wrapShardedCallBack(future, serverNode), key, start, end);
+		return future;
 	}
 
-	public void zRangeByScore(
+	public void zRangeWithScoresStream(ElementConsumer<ScoreMemberPair> consumer,
+			String key, long start, long end) {
+		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		getClient(serverNode).zRangeWithScoresStream(consumer, key, start, end);
+	}
+
+	public NedisFuture<ShardedResponse<String[]>> zRangeByScore(
 			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key, double min, double max) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRangeByScore(
-				wrapShardedCallBack(respCallBack, serverNode), key, min, max);
+				wrapShardedCallBack(future, serverNode), key, min, max);
+		return future;
 	}
 
-	public void zRangeByScore(
+	public NedisFuture<ShardedResponse<String[]>> zRangeByScore(
 			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key, double min, double max, int offset, int count) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRangeByScore(
-				wrapShardedCallBack(respCallBack, serverNode), key, min, max,
+				wrapShardedCallBack(future, serverNode), key, min, max,
 				offset, count);
+		return future;
 	}
 
-	public void zRangeByScoreWithScores(
+	public NedisFuture<ShardedResponse<ScoreMemberPair[]>> zRangeByScoreWithScores(
 			ResponseCallback<ShardedResponse<ScoreMemberPair[]>> respCallBack,
 			String key, double min, double max) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<ScoreMemberPair[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRangeByScoreWithScores(
-				wrapShardedCallBack(respCallBack, serverNode), key, min, max);
+				wrapShardedCallBack(future, serverNode), key, min, max);
+		return future;
 	}
 
-	public void zRangeByScoreWithScores(
+	public NedisFuture<ShardedResponse<ScoreMemberPair[]>> zRangeByScoreWithScores(
 			ResponseCallback<ShardedResponse<ScoreMemberPair[]>> respCallBack,
 			String key, double min, double max, int offset, int count) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<ScoreMemberPair[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRangeByScoreWithScores(
-				wrapShardedCallBack(respCallBack, serverNode), key, min, max,
+				wrapShardedCallBack(future, serverNode), key, min, max,
 				offset, count);
+		return future;
 	}
 
-	public void zRank(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String member) {
+	public NedisFuture<ShardedResponse<Long>> zRank(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String member) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRank(
-				wrapShardedCallBack(respCallBack, serverNode), key, member);
+				wrapShardedCallBack(future, serverNode), key, member);
+		return future;
 	}
 
-	public void zRem(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String member, String... moreMembers) {
+	public NedisFuture<ShardedResponse<Long>> zRem(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String member, String... moreMembers) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRem(
-				wrapShardedCallBack(respCallBack, serverNode), key, member,
+				wrapShardedCallBack(future, serverNode), key, member,
 				moreMembers);
+		return future;
 	}
 
-	public void zRemRangeByRank(
+	public NedisFuture<ShardedResponse<Long>> zRemRangeByRank(
 			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
 			long start, long end) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRemRangeByRank(
-				wrapShardedCallBack(respCallBack, serverNode), key, start, end);
+				wrapShardedCallBack(future, serverNode), key, start, end);
+		return future;
 	}
 
-	public void zRemRangeByScore(
+	public NedisFuture<ShardedResponse<Long>> zRemRangeByScore(
 			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
 			double min, double max) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRemRangeByScore(
-				wrapShardedCallBack(respCallBack, serverNode), key, min, max);
+				wrapShardedCallBack(future, serverNode), key, min, max);
+		return future;
 	}
 
-	public void zRevRange(
+	public NedisFuture<ShardedResponse<String[]>> zRevRange(
 			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key, long start, long end) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRevRange(
-				wrapShardedCallBack(respCallBack, serverNode), key, start, end);
+				wrapShardedCallBack(future, serverNode), key, start, end);
+		return future;
 	}
 
-	public void zRevRangeWithScores(
+	public NedisFuture<ShardedResponse<ScoreMemberPair[]>> zRevRangeWithScores(
 			ResponseCallback<ShardedResponse<ScoreMemberPair[]>> respCallBack,
 			String key, long start, long end) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<ScoreMemberPair[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRevRangeWithScores(
-				wrapShardedCallBack(respCallBack, serverNode), key, start, end);
+				wrapShardedCallBack(future, serverNode), key, start, end);
+		return future;
 	}
 
-	public void zRevRangeByScore(
+	public NedisFuture<ShardedResponse<String[]>> zRevRangeByScore(
 			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key, double max, double min) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRevRangeByScore(
-				wrapShardedCallBack(respCallBack, serverNode), key, max, min);
+				wrapShardedCallBack(future, serverNode), key, max, min);
+		return future;
 	}
 
-	public void zRevRangeByScore(
+	public NedisFuture<ShardedResponse<String[]>> zRevRangeByScore(
 			ResponseCallback<ShardedResponse<String[]>> respCallBack,
 			String key, double max, double min, int offset, int count) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<String[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRevRangeByScore(
-				wrapShardedCallBack(respCallBack, serverNode), key, max, min,
+				wrapShardedCallBack(future, serverNode), key, max, min,
 				offset, count);
+		return future;
 	}
 
-	public void zRevRangeByScoreWithScores(
+	public NedisFuture<ShardedResponse<ScoreMemberPair[]>> zRevRangeByScoreWithScores(
 			ResponseCallback<ShardedResponse<ScoreMemberPair[]>> respCallBack,
 			String key, double max, double min) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<ScoreMemberPair[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRevRangeByScoreWithScores(
-				wrapShardedCallBack(respCallBack, serverNode), key, max, min);
+				wrapShardedCallBack(future, serverNode), key, max, min);
+		return future;
 	}
 
-	public void zRevRangeByScoreWithScores(
+	public NedisFuture<ShardedResponse<ScoreMemberPair[]>> zRevRangeByScoreWithScores(
 			ResponseCallback<ShardedResponse<ScoreMemberPair[]>> respCallBack,
 			String key, double max, double min, int offset, int count) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<ScoreMemberPair[]>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRevRangeByScoreWithScores(
-				wrapShardedCallBack(respCallBack, serverNode), key, max, min,
+				wrapShardedCallBack(future, serverNode), key, max, min,
 				offset, count);
+		return future;
 	}
 
-	public void zRevRank(ResponseCallback<ShardedResponse<Long>> respCallBack,
-			String key, String member) {
+	public NedisFuture<ShardedResponse<Long>> zRevRank(
+			ResponseCallback<ShardedResponse<Long>> respCallBack, String key,
+			String member) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Long>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).zRevRank(
-				wrapShardedCallBack(respCallBack, serverNode), key, member);
+				wrapShardedCallBack(future, serverNode), key, member);
+		return future;
 	}
 
-	public void zScore(ResponseCallback<ShardedResponse<Double>> respCallBack,
-			String key, String member) {
+	public NedisFuture<ShardedResponse<Double>> zScore(
+			ResponseCallback<ShardedResponse<Double>> respCallBack, String key,
+			String member) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(key);
+		NedisFuture<ShardedResponse<Double>> future = new NedisFuture<>(
+				respCallBack);
 		NedisClient nedisClient = getClient(serverNode);
-		nedisClient.zScore(wrapShardedCallBack(respCallBack, serverNode), key,
+		nedisClient.zScore(wrapShardedCallBack(future, serverNode), key,
 				member);
+		return future;
 	}
 
-	public void echo(ResponseCallback<ShardedResponse<String>> respCallBack,
+	public NedisFuture<ShardedResponse<String>> echo(
+			ResponseCallback<ShardedResponse<String>> respCallBack,
 			String message) {
 		ServerNode serverNode = nodeSharder.getShardNodeInfo(message);
+		NedisFuture<ShardedResponse<String>> future = new NedisFuture<>(
+				respCallBack);
 		getClient(serverNode).echo(
-				wrapShardedCallBack(respCallBack, serverNode), message);
+				wrapShardedCallBack(future, serverNode), message);
+		return future;
+	}
+
+	/**
+	 * Run the script on the node of its first key, all of its keys must be on
+	 * that node
+	 * 
+	 * @param respCallBack
+	 * @param script
+	 * @param keys
+	 * @param args
+	 * @return
+	 */
+	public NedisFuture<ShardedResponse<Object>> evalSha(
+			ResponseCallback<ShardedResponse<Object>> respCallBack,
+			Script script, String[] keys, String... args) {
+		if (keys == null || keys.length == 0) {
+			IllegalArgumentException cause = new IllegalArgumentException(
+					"The script is routed by its first key, but it has no key.");
+			if (respCallBack != null) {
+				respCallBack.failed(cause);
+			}
+			return NedisFuture.failedFuture(cause);
+		}
+		ServerNode serverNode = nodeSharder.getShardNodeInfo(keys[0]);
+		NedisFuture<ShardedResponse<Object>> future = new NedisFuture<>(
+				respCallBack);
+		getClient(serverNode).evalSha(
+				wrapShardedCallBack(future, serverNode), script, keys, args);
+		return future;
+	}
+
+	/**
+	 * Register the script to the clients of all nodes
+	 * 
+	 * @param respCallBack
+	 * @param script
+	 */
+	public void registerScript(
+			ResponseCallback<ShardedResponse<String>> respCallBack,
+			Script script) {
+		if (this.nodes == null) {
+			return;
+		}
+		for (ServerNode node : nodes) {
+			NedisClient client = getClient(node);
+			client.registerScript(wrapShardedCallBack(respCallBack, node),
+					script);
+		}
 	}
 
 	// private NedisClient getClient(String key) {
@@ -825,12 +1272,25 @@ public class ShardedNedis implements ClientConfig<ShardedNedis> {
 				.setServerNode(serverNode)
 				.setConnectTimeoutMills(connectTimeoutMills)
 				.setEventLoopGroupSize(eventLoopGroupSize)
-				.setTcpNoDelay(isTcpNoDelay).setByteBufAllocator(allocator)
+				.setTcpNoDelay(isTcpNoDelay).setEpollEnabled(isEpollEnabled)
+				.setTcpQuickAck(isTcpQuickAck)
+				.setEpollEdgeTriggered(isEpollEdgeTriggered)
+				.setByteBufAllocator(allocator)
 				.setRecvByteBufAllocator(recvAllocator)
 				.setMessageSizeEstimator(estimator)
 				.setConnectionPoolSize(connectionPoolSize)
 				.setMaxConnectionIdleTimeInMills(maxConnectionIdleTimeInMills)
-				.setMinIdleConnections(minIdleConnection);
+				.setMinIdleConnections(minIdleConnection)
+				.setMultiplexConnections(multiplexConnections)
+				.setResponseTimeoutMills(responseTimeoutMills)
+				.setMaxConnectionWaiters(maxConnectionWaiters)
+				.setAcquireTimeoutMills(acquireTimeoutMills)
+				.setFlushBatching(isFlushBatching)
+				.setFlushMaxDelayMicros(flushMaxDelayMicros)
+				.setFlushMaxBytes(flushMaxBytes)
+				.setFlushMaxCommands(flushMaxCommands)
+				.setResp3(isResp3)
+				.setPushListener(pushListener);
 		client = builder.build();
 		serverClientMapping.put(serverStr, client);
 		return client;
@@ -842,6 +1302,24 @@ public class ShardedNedis implements ClientConfig<ShardedNedis> {
 		return this;
 	}
 
+	@Override
+	public ShardedNedis setEpollEnabled(boolean flag) {
+		this.isEpollEnabled = flag;
+		return this;
+	}
+
+	@Override
+	public ShardedNedis setTcpQuickAck(boolean flag) {
+		this.isTcpQuickAck = flag;
+		return this;
+	}
+
+	@Override
+	public ShardedNedis setEpollEdgeTriggered(boolean flag) {
+		this.isEpollEdgeTriggered = flag;
+		return this;
+	}
+
 	@Override
 	public ShardedNedis setByteBufAllocator(ByteBufAllocator allocator) {
 		this.allocator = allocator;
@@ -878,4 +1356,64 @@ public class ShardedNedis implements ClientConfig<ShardedNedis> {
 		this.minIdleConnection = minIdle;
 		return this;
 	}
+
+	@Override
+	public ShardedNedis setMultiplexConnections(int connections) {
+		this.multiplexConnections = connections;
+		return this;
+	}
+
+	@Override
+	public ShardedNedis setResponseTimeoutMills(long mills) {
+		this.responseTimeoutMills = mills;
+		return this;
+	}
+
+	@Override
+	public ShardedNedis setMaxConnectionWaiters(int waiters) {
+		this.maxConnectionWaiters = waiters;
+		return this;
+	}
+
+	@Override
+	public ShardedNedis setAcquireTimeoutMills(long mills) {
+		this.acquireTimeoutMills = mills;
+		return this;
+	}
+
+	@Override
+	public ShardedNedis setFlushBatching(boolean flag) {
+		this.isFlushBatching = flag;
+		return this;
+	}
+
+	@Override
+	public ShardedNedis setFlushMaxDelayMicros(long micros) {
+		this.flushMaxDelayMicros = micros;
+		return this;
+	}
+
+	@Override
+	public ShardedNedis setFlushMaxBytes(int bytes) {
+		this.flushMaxBytes = bytes;
+		return this;
+	}
+
+	@Override
+	public ShardedNedis setFlushMaxCommands(int commands) {
+		this.flushMaxCommands = commands;
+		return this;
+	}
+
+	@Override
+	public ShardedNedis setResp3(boolean flag) {
+		this.isResp3 = flag;
+		return this;
+	}
+
+	@Override
+	public ShardedNedis setPushListener(PushListener listener) {
+		this.pushListener = listener;
+		return this;
+	}
 }
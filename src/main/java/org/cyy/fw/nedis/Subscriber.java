@@ -0,0 +1,432 @@
+package org.cyy.fw.nedis;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.util.CharsetUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.cyy.fw.nedis.util.TextEncoder;
+
+/**
+ * Subscribe the channels and the patterns on a dedicated connection, the
+ * connection is kept out of the pool of the client because the server
+ * accepts nothing but the subscribing commands on it.
+ * <p>
+ * The messages are passed to the listeners in the event loop of the
+ * connection. The subscribing commands sent at the same time are merged and
+ * written by one write, and all the channels and the patterns are subscribed
+ * again when the connection is lost and connected again.
+ * 
+ * <pre>
+ * Subscriber subscriber = client.subscriber();
+ * subscriber.subscribe(new PubSubListener() {
+ * 
+ * 	&#064;Override
+ * 	public void onMessage(PubSubMessage message) {
+ * 		System.out.println(message.getPayloadText());
+ * 	}
+ * }, &quot;news&quot;);
+ * client.publish(null, &quot;news&quot;, &quot;hello&quot;);
+ * </pre>
+ * 
+ * The subscriber is created by {@link NedisClient#subscriber()}, it is closed
+ * by {@link #close()} or with its client.
+ * 
+ * @author yunyun
+ * 
+ */
+public class Subscriber implements AutoCloseable {
+
+	/**
+	 * The subscribing command of some channels or patterns
+	 */
+	private static final class Subscription {
+		private final RedisCommand command;
+		private final String[] names;
+
+		Subscription(RedisCommand command, String[] names) {
+			super();
+			this.command = command;
+			this.names = names;
+		}
+	}
+
+	@Sharable
+	private final class MessageHandler extends ChannelInboundHandlerAdapter {
+
+		@Override
+		public void channelActive(ChannelHandlerContext ctx) throws Exception {
+			super.channelActive(ctx);
+			if (isClosed) {
+				ctx.close();
+				return;
+			}
+			connected(ctx.channel());
+		}
+
+		@Override
+		public void channelInactive(ChannelHandlerContext ctx)
+				throws Exception {
+			super.channelInactive(ctx);
+			channel = null;
+			if (!isClosed) {
+				LOGGER.log(Level.WARNING, ctx.channel()
+						+ " has been closed, reconnect it.");
+				reconnect(ctx.channel().eventLoop());
+			}
+		}
+
+		@Override
+		public void channelRead(ChannelHandlerContext ctx, Object msg)
+				throws Exception {
+			Object content = msg instanceof PushMessage ? ((PushMessage) msg)
+					.getContent() : msg;
+			try {
+				if (content instanceof List) {
+					dispatch((List<?>) content);
+				} else if (content instanceof RedisErrorReply) {
+					LOGGER.log(Level.WARNING,
+							((RedisErrorReply) content).getMessage());
+				}
+			} finally {
+				ProtocolDecoder.releaseAll(content);
+			}
+		}
+
+		@Override
+		public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause)
+				throws Exception {
+			LOGGER.log(Level.WARNING, cause.getMessage(), cause);
+			ctx.close();
+		}
+	}
+
+	private static final Logger LOGGER = Logger.getLogger(Subscriber.class
+			.getSimpleName());
+	private static final String MESSAGE = RedisKeyword.MESSAGE.name()
+			.toLowerCase();
+	private static final String PMESSAGE = RedisKeyword.PMESSAGE.name()
+			.toLowerCase();
+	private static final long MIN_RECONNECT_DELAY_MILLIS = 100;
+	private static final long MAX_RECONNECT_DELAY_MILLIS = 10000;
+	private final ConnectionPool connectionPool;
+	private final boolean isZeroCopy;
+	private final MessageHandler handler = new MessageHandler();
+	private final ConcurrentMap<String, List<PubSubListener>> channelListeners = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, List<PubSubListener>> patternListeners = new ConcurrentHashMap<>();
+	private final Queue<Subscription> subscriptions = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean isFlushScheduled = new AtomicBoolean();
+	private final Runnable flushTask = new Runnable() {
+
+		@Override
+		public void run() {
+			isFlushScheduled.set(false);
+			Channel ch = channel;
+			if (ch != null && ch.isActive()) {
+				flush(ch);
+			}
+		}
+	};
+	private final Runnable connectTask = new Runnable() {
+
+		@Override
+		public void run() {
+			connect();
+		}
+	};
+	private volatile Channel channel;
+	private volatile boolean isClosed;
+	private volatile long reconnectDelayMillis = MIN_RECONNECT_DELAY_MILLIS;
+
+	Subscriber(ConnectionPool connectionPool, boolean isZeroCopy) {
+		super();
+		this.connectionPool = connectionPool;
+		this.isZeroCopy = isZeroCopy;
+		connect();
+	}
+
+	/**
+	 * Subscribe the channels, the listener is added to the channels subscribed
+	 * already
+	 * 
+	 * @param listener
+	 * @param channel
+	 * @param moreChannels
+	 */
+	public void subscribe(PubSubListener listener, String channel,
+			String... moreChannels) {
+		addListener(channelListeners, RedisCommand.SUBSCRIBE, listener,
+				CmdArgumentTool.combineArgs(channel, moreChannels));
+	}
+
+	/**
+	 * Subscribe the channels matching the patterns, e.g. news.*
+	 * 
+	 * @param listener
+	 * @param pattern
+	 * @param morePatterns
+	 */
+	public void pSubscribe(PubSubListener listener, String pattern,
+			String... morePatterns) {
+		addListener(patternListeners, RedisCommand.PSUBSCRIBE, listener,
+				CmdArgumentTool.combineArgs(pattern, morePatterns));
+	}
+
+	/**
+	 * Unsubscribe the channels, all the listeners of them are removed
+	 * 
+	 * @param channel
+	 * @param moreChannels
+	 */
+	public void unsubscribe(String channel, String... moreChannels) {
+		removeListeners(channelListeners, RedisCommand.UNSUBSCRIBE,
+				CmdArgumentTool.combineArgs(channel, moreChannels));
+	}
+
+	/**
+	 * Unsubscribe the patterns, all the listeners of them are removed
+	 * 
+	 * @param pattern
+	 * @param morePatterns
+	 */
+	public void pUnsubscribe(String pattern, String... morePatterns) {
+		removeListeners(patternListeners, RedisCommand.PUNSUBSCRIBE,
+				CmdArgumentTool.combineArgs(pattern, morePatterns));
+	}
+
+	public boolean isConnected() {
+		Channel ch = channel;
+		return ch != null && ch.isActive();
+	}
+
+	/**
+	 * Close the connection, it is not connected again
+	 */
+	@Override
+	public void close() {
+		isClosed = true;
+		Channel ch = channel;
+		if (ch != null) {
+			ch.close();
+		}
+	}
+
+	private synchronized void addListener(
+			ConcurrentMap<String, List<PubSubListener>> listeners,
+			RedisCommand command, PubSubListener listener, String[] names) {
+		if (listener == null) {
+			throw new NullPointerException("The listener is null.");
+		}
+		checkOpen();
+		List<String> newNames = new ArrayList<>(names.length);
+		for (String name : names) {
+			List<PubSubListener> nameListeners = listeners.get(name);
+			if (nameListeners == null) {
+				nameListeners = new CopyOnWriteArrayList<>();
+				listeners.put(name, nameListeners);
+				newNames.add(name);
+			}
+			nameListeners.add(listener);
+		}
+		if (!newNames.isEmpty()) {
+			send(new Subscription(command,
+					newNames.toArray(new String[newNames.size()])));
+		}
+	}
+
+	private synchronized void removeListeners(
+			ConcurrentMap<String, List<PubSubListener>> listeners,
+			RedisCommand command, String[] names) {
+		checkOpen();
+		for (String name : names) {
+			listeners.remove(name);
+		}
+		send(new Subscription(command, names));
+	}
+
+	/**
+	 * The subscriptions made at the same time are flushed by one task, the
+	 * ones made while the connection is lost are covered by
+	 * {@link #connected(Channel)}
+	 * 
+	 * @param subscription
+	 */
+	private void send(Subscription subscription) {
+		subscriptions.offer(subscription);
+		Channel ch = channel;
+		if (ch != null && isFlushScheduled.compareAndSet(false, true)) {
+			try {
+				ch.eventLoop().execute(flushTask);
+			} catch (Throwable e) {
+				isFlushScheduled.set(false);
+				LOGGER.log(Level.WARNING, e.getMessage(), e);
+			}
+		}
+	}
+
+	private void flush(Channel ch) {
+		List<BinaryCommand> commands = new ArrayList<>();
+		RedisCommand command = null;
+		List<String> names = new ArrayList<>();
+		Subscription subscription = subscriptions.poll();
+		while (subscription != null) {
+			// the consecutive ones of the same command are merged
+			if (subscription.command != command && !names.isEmpty()) {
+				commands.add(toCommand(command, names));
+				names.clear();
+			}
+			command = subscription.command;
+			for (String name : subscription.names) {
+				names.add(name);
+			}
+			subscription = subscriptions.poll();
+		}
+		if (!names.isEmpty()) {
+			commands.add(toCommand(command, names));
+		}
+		write(ch, commands);
+	}
+
+	/**
+	 * Subscribe all the channels and the patterns again on the new connection
+	 * 
+	 * @param ch
+	 */
+	private void connected(Channel ch) {
+		LOGGER.log(Level.INFO, ch + " has been connected for subscribing.");
+		reconnectDelayMillis = MIN_RECONNECT_DELAY_MILLIS;
+		subscriptions.clear();
+		channel = ch;
+		List<BinaryCommand> commands = new ArrayList<>(2);
+		if (!channelListeners.isEmpty()) {
+			commands.add(toCommand(RedisCommand.SUBSCRIBE,
+					new ArrayList<>(channelListeners.keySet())));
+		}
+		if (!patternListeners.isEmpty()) {
+			commands.add(toCommand(RedisCommand.PSUBSCRIBE,
+					new ArrayList<>(patternListeners.keySet())));
+		}
+		write(ch, commands);
+	}
+
+	private void connect() {
+		if (isClosed) {
+			return;
+		}
+		final ChannelFuture connectFuture;
+		try {
+			connectFuture = connectionPool.connectSubscriber(isZeroCopy,
+					handler);
+		} catch (IllegalStateException e) {
+			LOGGER.log(Level.WARNING, e.getMessage());
+			return;
+		}
+		connectFuture.addListener(new ChannelFutureListener() {
+
+			@Override
+			public void operationComplete(ChannelFuture future)
+					throws Exception {
+				if (!future.isSuccess()) {
+					LOGGER.log(Level.WARNING, "connect failed",
+							future.cause());
+					reconnect(future.channel().eventLoop());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Connect again after a delay, the delay is doubled by each failure
+	 * 
+	 * @param eventLoop
+	 */
+	private void reconnect(EventLoop eventLoop) {
+		long delay = reconnectDelayMillis;
+		reconnectDelayMillis = Math.min(delay * 2, MAX_RECONNECT_DELAY_MILLIS);
+		try {
+			eventLoop.schedule(connectTask, delay, TimeUnit.MILLISECONDS);
+		} catch (Throwable e) {
+			// the event loop has been shut down with the client
+			LOGGER.log(Level.WARNING, e.getMessage());
+		}
+	}
+
+	private void dispatch(List<?> content) {
+		if (content.isEmpty()) {
+			return;
+		}
+		String kind = toText(content.get(0));
+		if (MESSAGE.equals(kind) && content.size() == 3) {
+			PubSubMessage message = new PubSubMessage(toText(content.get(1)),
+					null, content.get(2));
+			notify(channelListeners.get(message.getChannel()), message);
+		} else if (PMESSAGE.equals(kind) && content.size() == 4) {
+			PubSubMessage message = new PubSubMessage(toText(content.get(2)),
+					toText(content.get(1)), content.get(3));
+			notify(patternListeners.get(message.getPattern()), message);
+		} else {
+			// the confirmation of a subscribing command
+			LOGGER.log(Level.FINE, kind + " has been confirmed.");
+		}
+	}
+
+	private void notify(List<PubSubListener> listeners, PubSubMessage message) {
+		if (listeners == null) {
+			return;
+		}
+		for (PubSubListener listener : listeners) {
+			try {
+				listener.onMessage(message);
+			} catch (Throwable e) {
+				LOGGER.log(Level.WARNING, e.getMessage(), e);
+			}
+		}
+	}
+
+	private void checkOpen() {
+		if (isClosed) {
+			throw new IllegalStateException(
+					"The subscriber has already been closed.");
+		}
+	}
+
+	private static BinaryCommand toCommand(RedisCommand command,
+			List<String> names) {
+		return new BinaryCommand(command, names.toArray(new String[names
+				.size()]));
+	}
+
+	private static void write(Channel ch, List<BinaryCommand> commands) {
+		if (commands.isEmpty()) {
+			return;
+		}
+		ch.writeAndFlush(RedisProtocol.generateRequests(commands, ch.alloc()));
+	}
+
+	private static String toText(Object element) {
+		if (element instanceof ByteBuf) {
+			return ((ByteBuf) element).toString(CharsetUtil.UTF_8);
+		}
+		if (element instanceof byte[]) {
+			return TextEncoder.decode((byte[]) element);
+		}
+		return String.valueOf(element);
+	}
+}
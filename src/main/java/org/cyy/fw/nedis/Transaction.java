@@ -0,0 +1,388 @@
+package org.cyy.fw.nedis;
+
+import io.netty.buffer.Unpooled;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.cyy.fw.nedis.util.NedisException;
+import org.cyy.fw.nedis.util.TextEncoder;
+
+/**
+ * Execute a batch of commands atomically by MULTI and EXEC. A transaction
+ * keeps one connection until it is closed, the server binds WATCH and MULTI
+ * to the connection which sends them.
+ * <p>
+ * The commands sent before {@link #multi()} are sent at once, e.g. to read
+ * the watched keys, and the commands sent after it are held until
+ * {@link #exec()}, then MULTI, the commands and EXEC are written together by
+ * one write. The result of each command is passed to its own callback and
+ * future, and {@link #exec()} returns the future of all the results in order,
+ * or null if a watched key was modified, the transaction can be retried on
+ * the same handle in that case:
+ * 
+ * <pre>
+ * Transaction transaction = client.transaction();
+ * try {
+ * 	List&lt;Object&gt; results = null;
+ * 	while (results == null) {
+ * 		transaction.watch(null, &quot;counter&quot;).get();
+ * 		long value = Long.parseLong(transaction.get(null, &quot;counter&quot;).get());
+ * 		transaction.multi();
+ * 		transaction.set(null, &quot;counter&quot;, String.valueOf(value * 2));
+ * 		results = transaction.exec().get();
+ * 	}
+ * } finally {
+ * 	transaction.close();
+ * }
+ * </pre>
+ * 
+ * The transaction is created by {@link NedisClient#transaction()}, it shares
+ * the connections of the client like {@link Pipeline}. It is used by one
+ * thread, and it has no streamed commands, see {@link NedisStreamingCommands}.
+ * A script held by it fails on the NOSCRIPT reply instead of being sent again
+ * by EVAL, which would run out of the transaction.
+ * 
+ * @author yunyun
+ * 
+ */
+public class Transaction extends NedisCommands implements AutoCloseable {
+
+	/**
+	 * The reply of MULTI or the QUEUED reply of a command, a failed command is
+	 * recorded for the reply of EXEC
+	 */
+	private static final class QueuedResponseAdapter implements
+			ResponeAdapter<Object, Object> {
+		private final ExecResponseAdapter execAdapter;
+		private final int index;
+
+		QueuedResponseAdapter(ExecResponseAdapter execAdapter, int index) {
+			super();
+			this.execAdapter = execAdapter;
+			this.index = index;
+		}
+
+		@Override
+		public void setResponseCallback(ResponseCallback<Object> respCallBack) {
+			// NOOP
+		}
+
+		@Override
+		public void done(Object source) {
+			// NOOP
+		}
+
+		@Override
+		public void failed(Throwable cause) {
+			execAdapter.queueFailed(index, cause);
+		}
+	}
+
+	/**
+	 * Pass the elements of the EXEC reply to the adapters of the commands, the
+	 * elements are parsed in the same way as the top level replies of the
+	 * commands.
+	 */
+	private static final class ExecResponseAdapter extends
+			BaseResponseAdapter<Object, Object> {
+		private static final byte[] NIL = TextEncoder
+				.encode(RedisProtocol.NULL);
+		private final List<ResponeAdapter<?, ?>> responseAdapters;
+		private final Throwable[] queueCauses;
+		private final NedisFuture<List<Object>> future;
+
+		ExecResponseAdapter(List<ResponeAdapter<?, ?>> responseAdapters,
+				NedisFuture<List<Object>> future) {
+			super(null);
+			this.responseAdapters = responseAdapters;
+			this.queueCauses = new Throwable[responseAdapters.size()];
+			this.future = future;
+		}
+
+		void queueFailed(int index, Throwable cause) {
+			if (index >= 0) {
+				queueCauses[index] = cause;
+			}
+		}
+
+		/**
+		 * The aborted EXEC is told from the one of no command by the nil
+		 * reply
+		 */
+		@Override
+		ReplyShape getReplyShape() {
+			return ReplyShape.NULLABLE_MULTI_BULK;
+		}
+
+		@Override
+		public void done(Object source) {
+			if (!(source instanceof List)
+					|| ((List<?>) source).size() != responseAdapters.size()) {
+				// the nil reply
+				failAll(new NedisException(
+						"The transaction has been aborted, a watched key was modified."));
+				future.done(null);
+				return;
+			}
+			Pipeline.collectResults(responseAdapters, future);
+			List<?> elements = (List<?>) source;
+			for (int i = 0; i < elements.size(); i++) {
+				deliver(responseAdapters.get(i), elements.get(i));
+			}
+		}
+
+		/**
+		 * e.g. EXECABORT, a command failed to be queued
+		 */
+		@Override
+		public void failed(Throwable cause) {
+			failAll(cause);
+			future.failed(cause);
+		}
+
+		/**
+		 * The elements are passed to the adapters of the commands instead
+		 */
+		@Override
+		protected Object adjust(Object source) {
+			return source;
+		}
+
+		private void failAll(Throwable cause) {
+			for (int i = 0; i < responseAdapters.size(); i++) {
+				responseAdapters.get(i).failed(
+						queueCauses[i] != null ? queueCauses[i] : cause);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void deliver(ResponeAdapter<?, ?> responseAdapter,
+				Object element) {
+			ResponeAdapter<Object, Object> adapter = (ResponeAdapter<Object, Object>) responseAdapter;
+			if (element instanceof RedisErrorReply) {
+				adapter.failed(((RedisErrorReply) element).toException());
+				return;
+			}
+			// the shape of a nested reply is not adjusted by the decoder
+			if (adapter instanceof BaseResponseAdapter
+					&& ((BaseResponseAdapter<?, ?>) adapter).getReplyShape() == ReplyShape.BUFFER
+					&& element instanceof byte[]
+					&& !Arrays.equals(NIL, (byte[]) element)) {
+				element = Unpooled.wrappedBuffer((byte[]) element);
+			}
+			adapter.done(element);
+		}
+	}
+
+	private static final Logger LOGGER = Logger.getLogger(Transaction.class
+			.getSimpleName());
+	private static final String[] NO_ARGS = new String[0];
+	private static final BinaryCommand MULTI_COMMAND = new BinaryCommand(
+			RedisCommand.MULTI, NO_ARGS);
+	private static final BinaryCommand EXEC_COMMAND = new BinaryCommand(
+			RedisCommand.EXEC, NO_ARGS);
+	private final ConnectionPool connectionPool;
+	private final ChannelPin pin = new ChannelPin();
+	private final List<BinaryCommand> messages = new ArrayList<>();
+	private final List<ResponeAdapter<?, ?>> responseAdapters = new ArrayList<>();
+	private boolean isQueuing;
+	private boolean isWatching;
+	private boolean isClosed;
+
+	Transaction(ConnectionPool connectionPool) {
+		super();
+		this.connectionPool = connectionPool;
+	}
+
+	@Override
+	<S, T> void dispatch(BinaryCommand message,
+			ResponeAdapter<S, T> responseAdapter) {
+		if (!isQueuing) {
+			send(message, responseAdapter);
+			return;
+		}
+		// EVAL after the NOSCRIPT reply would run out of the transaction
+		if (responseAdapter instanceof ScriptResponseAdapter) {
+			((ScriptResponseAdapter) responseAdapter).setFallback(null);
+		}
+		messages.add(message);
+		responseAdapters.add(responseAdapter);
+	}
+
+	/**
+	 * Watch the keys, the next {@link #exec()} is aborted if any of them is
+	 * modified by others before it
+	 * 
+	 * @param respCallBack
+	 * @param key
+	 * @param moreKeys
+	 * @return
+	 */
+	public NedisFuture<String> watch(ResponseCallback<String> respCallBack,
+			String key, String... moreKeys) {
+		if (isQueuing) {
+			throw new IllegalStateException(
+					"WATCH inside MULTI is not allowed.");
+		}
+		isWatching = true;
+		String[] keys = CmdArgumentTool.combineArgs(key, moreKeys);
+		return sendWithStringResponseAdapter(respCallBack, new BinaryCommand(
+				RedisCommand.WATCH, keys));
+	}
+
+	/**
+	 * Forget all the watched keys
+	 * 
+	 * @param respCallBack
+	 * @return
+	 */
+	public NedisFuture<String> unwatch(ResponseCallback<String> respCallBack) {
+		if (isQueuing) {
+			throw new IllegalStateException(
+					"UNWATCH inside MULTI is not allowed.");
+		}
+		isWatching = false;
+		return sendWithStringResponseAdapter(respCallBack, new BinaryCommand(
+				RedisCommand.UNWATCH, NO_ARGS));
+	}
+
+	/**
+	 * Start the transaction, the commands sent after it are held until
+	 * {@link #exec()} or {@link #discard()}
+	 */
+	public void multi() {
+		checkStatus();
+		if (isQueuing) {
+			throw new IllegalStateException("MULTI calls can not be nested.");
+		}
+		isQueuing = true;
+	}
+
+	/**
+	 * Write MULTI, the commands held and EXEC together
+	 * 
+	 * @return the future of the results of the commands in order, a failed
+	 *         command has its exception in place of its result, the result is
+	 *         null if a watched key was modified, and all the commands fail
+	 */
+	public NedisFuture<List<Object>> exec() {
+		checkStatus();
+		if (!isQueuing) {
+			throw new IllegalStateException("EXEC without MULTI.");
+		}
+		isQueuing = false;
+		// EXEC forgets the watched keys whatever the result is
+		isWatching = false;
+		List<ResponeAdapter<?, ?>> commandAdapters = new ArrayList<>(
+				responseAdapters);
+		NedisFuture<List<Object>> future = new NedisFuture<>();
+		ExecResponseAdapter execAdapter = new ExecResponseAdapter(
+				commandAdapters, future);
+		List<BinaryCommand> batchMessages = new ArrayList<>(
+				messages.size() + 2);
+		List<ResponeAdapter<?, ?>> batchAdapters = new ArrayList<>(
+				messages.size() + 2);
+		batchMessages.add(MULTI_COMMAND);
+		batchAdapters.add(new QueuedResponseAdapter(execAdapter, -1));
+		for (int i = 0; i < messages.size(); i++) {
+			batchMessages.add(messages.get(i));
+			batchAdapters.add(new QueuedResponseAdapter(execAdapter, i));
+		}
+		batchMessages.add(EXEC_COMMAND);
+		batchAdapters.add(execAdapter);
+		messages.clear();
+		responseAdapters.clear();
+		try {
+			connectionPool.sendCommands(batchMessages, batchAdapters, pin);
+		} catch (Throwable e) {
+			LOGGER.log(Level.WARNING, e.getMessage(), e);
+			execAdapter.failed(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Drop the commands held, they fail, and forget the watched keys
+	 */
+	public void discard() {
+		checkStatus();
+		if (!isQueuing) {
+			throw new IllegalStateException("DISCARD without MULTI.");
+		}
+		isQueuing = false;
+		NedisException cause = new NedisException(
+				"The transaction has been discarded.");
+		for (ResponeAdapter<?, ?> responseAdapter : responseAdapters) {
+			responseAdapter.failed(cause);
+		}
+		messages.clear();
+		responseAdapters.clear();
+		if (isWatching) {
+			unwatch(null);
+		}
+	}
+
+	/**
+	 * Discard the commands held, forget the watched keys and give back the
+	 * connection to the client
+	 */
+	@Override
+	public void close() {
+		if (isClosed) {
+			return;
+		}
+		if (isQueuing) {
+			discard();
+		} else if (isWatching) {
+			unwatch(null);
+		}
+		isClosed = true;
+		connectionPool.releaseChannel(pin);
+	}
+
+	private NedisFuture<String> sendWithStringResponseAdapter(
+			ResponseCallback<String> respCallBack, BinaryCommand message) {
+		checkStatus();
+		NedisFuture<String> future = new NedisFuture<>(respCallBack);
+		ResponeAdapter<Object, String> respAdapter = new StringResponseAdapter(
+				future);
+		send(message, respAdapter);
+		return future;
+	}
+
+	private void send(BinaryCommand message,
+			ResponeAdapter<?, ?> responseAdapter) {
+		List<ResponeAdapter<?, ?>> adapters = Collections
+				.<ResponeAdapter<?, ?>> singletonList(responseAdapter);
+		connectionPool.sendCommands(Collections.singletonList(message),
+				adapters, pin);
+	}
+
+	@Override
+	ConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
+
+	/**
+	 * The EVAL after the NOSCRIPT reply runs on the connection of the
+	 * transaction too
+	 */
+	@Override
+	<S, T> void sendFallback(BinaryCommand message,
+			ResponeAdapter<S, T> responseAdapter) {
+		send(message, responseAdapter);
+	}
+
+	@Override
+	void checkStatus() {
+		if (isClosed) {
+			throw new IllegalStateException(
+					"The transaction has already been closed.");
+		}
+	}
+}
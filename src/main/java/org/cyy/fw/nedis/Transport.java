@@ -0,0 +1,98 @@
+package org.cyy.fw.nedis;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.cyy.fw.nedis.util.NedisException;
+
+/**
+ * The transport of the connections, the native epoll transport is used on
+ * Linux if it is enabled and available, otherwise the NIO transport.
+ * 
+ * @author yunyun
+ * 
+ */
+enum Transport {
+
+	NIO {
+		@Override
+		EventLoopGroup newEventLoopGroup(int threads) {
+			return new NioEventLoopGroup(threads);
+		}
+
+		@Override
+		Class<? extends Channel> socketChannelClass() {
+			return NioSocketChannel.class;
+		}
+
+		@Override
+		Class<? extends Channel> domainSocketChannelClass() {
+			throw new NedisException(
+					"The unix domain socket requires the epoll transport.");
+		}
+	},
+	EPOLL {
+		@Override
+		EventLoopGroup newEventLoopGroup(int threads) {
+			return new EpollEventLoopGroup(threads);
+		}
+
+		@Override
+		Class<? extends Channel> socketChannelClass() {
+			return EpollSocketChannel.class;
+		}
+
+		@Override
+		Class<? extends Channel> domainSocketChannelClass() {
+			return EpollDomainSocketChannel.class;
+		}
+	};
+
+	private static final Logger LOGGER = Logger.getLogger(Transport.class
+			.getSimpleName());
+
+	abstract EventLoopGroup newEventLoopGroup(int threads);
+
+	abstract Class<? extends Channel> socketChannelClass();
+
+	abstract Class<? extends Channel> domainSocketChannelClass();
+
+	/**
+	 * Select the transport
+	 * 
+	 * @param isEpollEnabled
+	 *            whether the epoll transport is preferred
+	 * @return
+	 */
+	static Transport select(boolean isEpollEnabled) {
+		if (!isEpollEnabled) {
+			return NIO;
+		}
+		if (Epoll.isAvailable()) {
+			return EPOLL;
+		}
+		LOGGER.log(Level.INFO, "The epoll transport is unavailable, use NIO: "
+				+ Epoll.unavailabilityCause());
+		return NIO;
+	}
+
+	/**
+	 * The transport of the event loop group, the channels must match the
+	 * group they are registered to.
+	 * 
+	 * @param group
+	 * @return
+	 */
+	static Transport of(EventLoopGroup group) {
+		return group instanceof EpollEventLoopGroup ? EPOLL : NIO;
+	}
+}
@@ -0,0 +1,34 @@
+package org.cyy.fw.nedis.util;
+
+/**
+ * The error reply of the redis server, e.g. WRONGTYPE or NOSCRIPT. It is a
+ * reply rather than a failure of the client, so it has no stack trace, and
+ * the instances of the common errors are shared.
+ * 
+ * @author yunyun
+ * 
+ */
+public class RedisErrorException extends NedisException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -6385920871264310532L;
+
+	private final String code;
+
+	public RedisErrorException(String code, String message) {
+		super(message, null, false, false);
+		this.code = code;
+	}
+
+	/**
+	 * The first word of the error, e.g. ERR, WRONGTYPE or NOSCRIPT
+	 * 
+	 * @return
+	 */
+	public String getCode() {
+		return code;
+	}
+
+}
@@ -0,0 +1,24 @@
+package org.cyy.fw.nedis.util;
+
+/**
+ * The response of a command has not arrived before its deadline.
+ * 
+ * @author yunyun
+ * 
+ */
+public class ResponseTimeoutException extends NedisException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -2386158125961780452L;
+
+	public ResponseTimeoutException() {
+		super();
+	}
+
+	public ResponseTimeoutException(String message) {
+		super(message);
+	}
+
+}
@@ -1,13 +1,20 @@
 package org.cyy.fw.nedis.util;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 public class TextEncoder {
 
 	public static final String DEFAULT_CHARSET = "UTF-8";
+	// the charset is not looked up by its name for every call
+	private static final Charset UTF_8 = StandardCharsets.UTF_8;
 
 	public static byte[] encode(String text) {
-		return encode(text, DEFAULT_CHARSET);
+		if (text == null) {
+			return null;
+		}
+		return text.getBytes(UTF_8);
 	}
 
 	public static byte[] encode(String text, String charset) {
@@ -22,7 +29,10 @@ public class TextEncoder {
 	}
 
 	public static String decode(byte[] data) {
-		return decode(data, DEFAULT_CHARSET);
+		if (data == null) {
+			return null;
+		}
+		return new String(data, UTF_8);
 	}
 
 	public static String decode(byte[] data, String charset) {
@@ -0,0 +1,103 @@
+package org.cyy.fw.nedis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.util.CharsetUtil;
+
+import org.junit.Test;
+
+public class CommandArgsTest {
+
+	private static final ByteBufAllocator ALLOC = UnpooledByteBufAllocator
+			.DEFAULT;
+	private static final long[] LONGS = { 0, 1, -1, 9, 10, -10, 99, 100,
+			Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE + 1L,
+			Integer.MIN_VALUE - 1L, 999999999999999999L, 1000000000000000000L,
+			Long.MAX_VALUE, Long.MIN_VALUE + 1, Long.MIN_VALUE };
+	private static final double[] DOUBLES = { 0.0, -0.0, 1.0, -1.0, 1.5,
+			-2.25, 0.1, 1e-10, 4.9e-324, 1e14, 1e15, -1e15, 1e16, 1e300,
+			123456789012345.0, 1234567890123456.0, Double.MAX_VALUE,
+			-Double.MAX_VALUE, Double.MIN_VALUE, Double.MIN_NORMAL,
+			Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+
+	@Test
+	public void testWriteLong() {
+		for (long value : LONGS) {
+			ByteBuf buf = Unpooled.buffer();
+			RedisProtocol.writeLong(value, buf);
+			assertEquals(String.valueOf(value),
+					buf.toString(CharsetUtil.US_ASCII));
+			assertEquals(String.valueOf(value).length(),
+					RedisProtocol.longLength(value));
+		}
+	}
+
+	@Test
+	public void testLongArgs() {
+		for (long value : LONGS) {
+			assertSameRequest(new CommandArgs().add("key").add(value),
+					"key", String.valueOf(value));
+		}
+	}
+
+	@Test
+	public void testDoubleArgs() {
+		for (double value : DOUBLES) {
+			assertSameRequest(new CommandArgs().add("key").add(value),
+					"key", doubleText(value));
+		}
+		assertSameRequest(new CommandArgs().add(-0.0), "-0.0");
+		assertSameRequest(new CommandArgs().add(Double.NaN), "NaN");
+	}
+
+	@Test
+	public void testMixedArgs() {
+		byte[] binary = { 0, (byte) 0xff, '\r', '\n' };
+		CommandArgs args = new CommandArgs(1).add("key").add(binary)
+				.add("été").add(RedisKeyword.WITHSCORES).add(-5L)
+				.add(2.5);
+		BinaryCommand expected = new BinaryCommand(RedisCommand.ZADD,
+				"key".getBytes(CharsetUtil.US_ASCII), binary,
+				"été".getBytes(CharsetUtil.UTF_8),
+				"withscores".getBytes(CharsetUtil.US_ASCII),
+				"-5".getBytes(CharsetUtil.US_ASCII),
+				"2.5".getBytes(CharsetUtil.US_ASCII));
+		assertEquals(6, args.size());
+		assertArrayEquals(encode(expected), encode(new BinaryCommand(
+				RedisCommand.ZADD, args)));
+	}
+
+	/**
+	 * The integral doubles are written as the integers, the others by
+	 * {@link String#valueOf(double)}
+	 */
+	private static String doubleText(double value) {
+		if (value == (long) value && Math.abs(value) < 1e15
+				&& Double.doubleToRawLongBits(value) != Long.MIN_VALUE) {
+			return String.valueOf((long) value);
+		}
+		return String.valueOf(value);
+	}
+
+	private static void assertSameRequest(CommandArgs args,
+			String... expected) {
+		assertArrayEquals(encode(new BinaryCommand(RedisCommand.ZADD,
+				expected)), encode(new BinaryCommand(RedisCommand.ZADD, args)));
+	}
+
+	private static byte[] encode(BinaryCommand command) {
+		ByteBuf request = RedisProtocol.generateRequest(command, ALLOC);
+		try {
+			byte[] bytes = new byte[request.readableBytes()];
+			request.getBytes(request.readerIndex(), bytes);
+			return bytes;
+		} finally {
+			request.release();
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package org.cyy.fw.nedis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class IdleChannelStackTest {
+
+	@Test
+	public void testLifo() {
+		IdleChannelStack stack = new IdleChannelStack();
+		assertNull(stack.pop());
+		Channel first = new EmbeddedChannel();
+		Channel second = new EmbeddedChannel();
+		Channel third = new EmbeddedChannel();
+		stack.push(first);
+		stack.push(second);
+		stack.push(third);
+		assertEquals(3, stack.size());
+		assertSame(third, stack.pop());
+		// the returned channel is borrowed again first
+		stack.push(third);
+		assertSame(third, stack.pop());
+		assertSame(second, stack.pop());
+		assertSame(first, stack.pop());
+		assertNull(stack.pop());
+		assertEquals(0, stack.size());
+		closeAll(first, second, third);
+	}
+
+	@Test
+	public void testRemoveClosed() {
+		IdleChannelStack stack = new IdleChannelStack();
+		Channel first = new EmbeddedChannel();
+		Channel second = new EmbeddedChannel();
+		Channel third = new EmbeddedChannel();
+		stack.push(first);
+		stack.push(second);
+		stack.push(third);
+		second.close();
+		assertTrue(stack.remove(second));
+		assertEquals(2, stack.size());
+		// removed once only, and the popped channel is not in the stack
+		assertFalse(stack.remove(second));
+		assertSame(third, stack.pop());
+		assertFalse(stack.remove(third));
+		assertEquals(1, stack.size());
+		// the removed node is skipped
+		assertSame(first, stack.pop());
+		assertNull(stack.pop());
+		assertEquals(0, stack.size());
+		// a channel never pushed
+		assertFalse(stack.remove(new EmbeddedChannel()));
+		closeAll(first, third);
+	}
+
+	@Test
+	public void testPurge() throws Exception {
+		IdleChannelStack stack = new IdleChannelStack();
+		Channel[] channels = new Channel[5];
+		for (int i = 0; i < channels.length; i++) {
+			channels[i] = new EmbeddedChannel();
+			stack.push(channels[i]);
+		}
+		// 2 removed, 3 live: only marked
+		assertTrue(stack.remove(channels[0]));
+		assertTrue(stack.remove(channels[1]));
+		assertEquals(3, stack.size());
+		assertEquals(5, linkedNodes(stack));
+		// 3 removed, 2 live: unlinked
+		assertTrue(stack.remove(channels[2]));
+		assertEquals(2, stack.size());
+		assertEquals(2, linkedNodes(stack));
+		assertSame(channels[4], stack.pop());
+		assertSame(channels[3], stack.pop());
+		assertNull(stack.pop());
+
+		// the removed top is skipped by pop while its next links are purged
+		for (Channel ch : channels) {
+			stack.push(ch);
+		}
+		assertTrue(stack.remove(channels[4]));
+		assertTrue(stack.remove(channels[2]));
+		assertTrue(stack.remove(channels[1]));
+		assertEquals(2, stack.size());
+		assertEquals(3, linkedNodes(stack));
+		assertSame(channels[3], stack.pop());
+		assertSame(channels[0], stack.pop());
+		assertNull(stack.pop());
+		closeAll(channels);
+	}
+
+	@Test
+	public void testConcurrentPushPop() throws Exception {
+		final int threads = 8;
+		final int loops = 20000;
+		final IdleChannelStack stack = new IdleChannelStack();
+		final Set<Channel> all = Collections
+				.synchronizedSet(new HashSet<Channel>());
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Future<?>[] futures = new Future<?>[threads];
+		for (int i = 0; i < threads; i++) {
+			final Channel initial = new EmbeddedChannel();
+			all.add(initial);
+			futures[i] = executor.submit(new Callable<Channel>() {
+
+				@Override
+				public Channel call() throws Exception {
+					start.await();
+					Channel owned = initial;
+					for (int j = 0; j < loops; j++) {
+						stack.push(owned);
+						// every thread pops after its push, so the stack
+						// is never empty here
+						if (j % 3 == 0 && stack.remove(owned)) {
+							continue;
+						}
+						owned = stack.pop();
+						assertNotNull(owned);
+					}
+					return owned;
+				}
+			});
+		}
+		start.countDown();
+		Set<Channel> owned = new HashSet<>();
+		try {
+			for (Future<?> future : futures) {
+				// a channel is never borrowed by two threads
+				assertTrue(owned.add((Channel) future.get(30,
+						TimeUnit.SECONDS)));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(all, owned);
+		assertEquals(0, stack.size());
+		assertNull(stack.pop());
+		closeAll(all.toArray(new Channel[all.size()]));
+	}
+
+	private static int linkedNodes(IdleChannelStack stack) throws Exception {
+		Field headField = IdleChannelStack.class.getDeclaredField("head");
+		headField.setAccessible(true);
+		Object node = ((AtomicReference<?>) headField.get(stack)).get();
+		int count = 0;
+		while (node != null) {
+			count++;
+			Field nextField = node.getClass().getDeclaredField("next");
+			nextField.setAccessible(true);
+			node = nextField.get(node);
+		}
+		return count;
+	}
+
+	private static void closeAll(Channel... channels) {
+		for (Channel ch : channels) {
+			ch.close();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package org.cyy.fw.nedis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class NedisFutureTest {
+
+	private static final class ThrowingCallback implements
+			ResponseCallback<String> {
+
+		@Override
+		public void done(String result) {
+			throw new IllegalStateException("done");
+		}
+
+		@Override
+		public void failed(Throwable cause) {
+			throw new IllegalStateException("failed");
+		}
+	}
+
+	@Test
+	public void testThrowingCallback() throws InterruptedException,
+			ExecutionException, TimeoutException {
+		final NedisFuture<String> future = new NedisFuture<>(
+				new ThrowingCallback());
+		final AtomicInteger notified = new AtomicInteger();
+		future.addListener(new ThrowingCallback());
+		future.addListener(new ResponseCallback<String>() {
+
+			@Override
+			public void done(String result) {
+				notified.incrementAndGet();
+			}
+
+			@Override
+			public void failed(Throwable cause) {
+			}
+		});
+		// a waiter blocked before the future is completed
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> waiter = executor.submit(new Callable<String>() {
+
+				@Override
+				public String call() throws Exception {
+					return future.get(10, TimeUnit.SECONDS);
+				}
+			});
+			Thread.sleep(100);
+			future.done("value");
+			assertEquals("value", waiter.get(10, TimeUnit.SECONDS));
+			assertEquals("value", future.get());
+			assertEquals(1, notified.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testThrowingCallbackFailed() throws InterruptedException {
+		NedisFuture<String> future = new NedisFuture<>(new ThrowingCallback());
+		Exception cause = new Exception("cause");
+		future.failed(cause);
+		assertTrue(future.isDone());
+		try {
+			future.get();
+		} catch (ExecutionException e) {
+			assertEquals(cause, e.getCause());
+			return;
+		}
+		throw new AssertionError("the future should fail");
+	}
+}
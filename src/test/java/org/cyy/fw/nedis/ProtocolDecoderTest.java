@@ -0,0 +1,408 @@
+package org.cyy.fw.nedis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import org.cyy.fw.nedis.ConnectionPool.ConnectionPoolConfig;
+import org.junit.Test;
+
+public class ProtocolDecoderTest {
+
+	@Test
+	public void testResp2() {
+		assertDecoded("OK", "+OK\r\n");
+		assertDecoded("custom status", "+custom status\r\n");
+		assertDecoded(-42L, ":-42\r\n");
+		assertDecoded("hello", "$5\r\nhello\r\n");
+		assertDecoded("", "$0\r\n\r\n");
+		assertDecoded(RedisProtocol.NULL, "$-1\r\n");
+		assertDecoded(list(), "*0\r\n");
+		assertDecoded(list(), "*-1\r\n");
+		assertDecoded(list("a", 1L, RedisProtocol.NULL),
+				"*3\r\n$1\r\na\r\n:1\r\n$-1\r\n");
+	}
+
+	@Test
+	public void testError() {
+		for (Object reply : decodeAll("-ERR unknown command 'foo'\r\n")) {
+			RedisErrorReply error = (RedisErrorReply) reply;
+			assertEquals("ERR", error.getCode());
+			assertEquals("ERR unknown command 'foo'", error.getMessage());
+		}
+		// a nested error stays an element
+		for (Object reply : decodeAll("*2\r\n:1\r\n-WRONGTYPE Operation "
+				+ "against a key holding the wrong kind of value\r\n")) {
+			List<?> elements = (List<?>) reply;
+			assertEquals(1L, elements.get(0));
+			assertEquals("WRONGTYPE",
+					((RedisErrorReply) elements.get(1)).getCode());
+		}
+	}
+
+	@Test
+	public void testMap() {
+		Map<Object, Object> map = new LinkedHashMap<>();
+		map.put("first", 1L);
+		map.put("second", "two");
+		assertDecoded(map, "%2\r\n+first\r\n:1\r\n+second\r\n$3\r\ntwo\r\n");
+		assertDecoded(new LinkedHashMap<>(), "%0\r\n");
+	}
+
+	@Test
+	public void testSet() {
+		Set<Object> set = new LinkedHashSet<>();
+		set.add("orange");
+		set.add("apple");
+		set.add(100L);
+		assertDecoded(set, "~3\r\n+orange\r\n+apple\r\n:100\r\n");
+	}
+
+	@Test
+	public void testDouble() {
+		assertDecoded(1.23, ",1.23\r\n");
+		assertDecoded(-0.5, ",-0.5\r\n");
+		assertDecoded(10.0, ",10\r\n");
+		assertDecoded(1.5e300, ",1.5e300\r\n");
+		assertDecoded(Double.POSITIVE_INFINITY, ",inf\r\n");
+		assertDecoded(Double.NEGATIVE_INFINITY, ",-inf\r\n");
+		for (Object reply : decodeAll(",nan\r\n")) {
+			assertTrue(((Double) reply).isNaN());
+		}
+	}
+
+	@Test
+	public void testBoolean() {
+		assertDecoded(Boolean.TRUE, "#t\r\n");
+		assertDecoded(Boolean.FALSE, "#f\r\n");
+	}
+
+	@Test
+	public void testNull() {
+		assertDecoded(RedisProtocol.NULL, "_\r\n");
+	}
+
+	@Test
+	public void testBigNumber() {
+		assertDecoded(new BigInteger(
+				"3492890328409238509324850943850943825024385"),
+				"(3492890328409238509324850943850943825024385\r\n");
+		assertDecoded(new BigInteger("-12345678901234567890"),
+				"(-12345678901234567890\r\n");
+	}
+
+	@Test
+	public void testVerbatimString() {
+		// the format prefix is dropped
+		assertDecoded("Some string", "=15\r\ntxt:Some string\r\n");
+		assertDecoded("", "=4\r\ntxt:\r\n");
+	}
+
+	@Test
+	public void testBlobError() {
+		for (Object reply : decodeAll("!21\r\nSYNTAX invalid syntax\r\n")) {
+			RedisErrorReply error = (RedisErrorReply) reply;
+			assertEquals("SYNTAX", error.getCode());
+			assertEquals("SYNTAX invalid syntax", error.getMessage());
+		}
+	}
+
+	@Test
+	public void testAttribute() {
+		// the attribute is skipped, the reply it describes is decoded
+		assertDecoded(list(2039123L, 9543892L),
+				"|1\r\n+key-popularity\r\n%2\r\n$1\r\na\r\n,0.1923\r\n"
+						+ "$1\r\nb\r\n,0.0012\r\n"
+						+ "*2\r\n:2039123\r\n:9543892\r\n");
+		// an attribute of a nested element
+		assertDecoded(list(1L, 2L),
+				"*2\r\n|1\r\n+ttl\r\n:3600\r\n:1\r\n:2\r\n");
+	}
+
+	@Test
+	public void testPush() {
+		for (Object reply : decodeAll(">3\r\n$7\r\nmessage\r\n"
+				+ "$7\r\nchannel\r\n$5\r\nhello\r\n")) {
+			PushMessage push = (PushMessage) reply;
+			assertEquals("message", push.getKind());
+			assertEquals(list("message", "channel", "hello"),
+					normalize(push.getContent()));
+		}
+	}
+
+	@Test
+	public void testNestedAggregates() {
+		Map<Object, Object> map = new LinkedHashMap<>();
+		map.put("k1", list(1L, list("x", Boolean.TRUE)));
+		Set<Object> set = new LinkedHashSet<>();
+		set.add("m");
+		map.put("k2", set);
+		map.put("k3", new LinkedHashMap<>());
+		assertDecoded(list(list(list()), map, 3.5, RedisProtocol.NULL),
+				"*4\r\n*1\r\n*0\r\n"
+						+ "%3\r\n+k1\r\n*2\r\n:1\r\n*2\r\n$1\r\nx\r\n#t\r\n"
+						+ "+k2\r\n~1\r\n$1\r\nm\r\n+k3\r\n%0\r\n"
+						+ ",3.5\r\n_\r\n");
+	}
+
+	@Test
+	public void testSeveralReplies() {
+		// only one reply is decoded in a call, the others follow
+		for (int step : new int[] { 0, 1, 3 }) {
+			EmbeddedChannel channel = new EmbeddedChannel(
+					new ProtocolDecoder());
+			write(channel,
+					"+OK\r\n:1\r\n*2\r\n$1\r\na\r\n$1\r\nb\r\n$3\r\nend\r\n",
+					step);
+			assertEquals("OK", normalize(channel.readInbound()));
+			assertEquals(1L, normalize(channel.readInbound()));
+			assertEquals(list("a", "b"), normalize(channel.readInbound()));
+			assertEquals("end", normalize(channel.readInbound()));
+			assertNull(channel.readInbound());
+			channel.finish();
+		}
+	}
+
+	@Test
+	public void testBooleanShape() {
+		ResponeAdapter<?, ?> adapter = new BooleanResponseAdapter(null);
+		assertDecoded(Boolean.TRUE, adapter, ":1\r\n");
+		assertDecoded(Boolean.FALSE, adapter, ":0\r\n");
+		assertDecoded(Boolean.FALSE, adapter, ":2\r\n");
+		// only the integer reply is shaped
+		assertDecoded(Boolean.TRUE, adapter, "#t\r\n");
+		assertDecoded("OK", adapter, "+OK\r\n");
+		assertDecoded(list(1L, 0L), adapter, "*2\r\n:1\r\n:0\r\n");
+	}
+
+	@Test
+	public void testDoubleShape() {
+		ResponeAdapter<?, ?> adapter = new DoubleResponseAdapter(null);
+		assertDecoded(2.5, adapter, "$4\r\n2.50\r\n");
+		assertDecoded(-1e-3, adapter, "$6\r\n-0.001\r\n");
+		assertDecoded(Double.POSITIVE_INFINITY, adapter, "$3\r\ninf\r\n");
+		assertDecoded(Double.NEGATIVE_INFINITY, adapter, "$4\r\n-inf\r\n");
+		assertDecoded(3.0, adapter, ",3\r\n");
+		// the invalid number is left to the adapter
+		assertDecoded("abc", adapter, "$3\r\nabc\r\n");
+		assertDecoded(RedisProtocol.NULL, adapter, "$-1\r\n");
+		// only the top level bulk is shaped
+		assertDecoded(list("1.5"), adapter, "*1\r\n$3\r\n1.5\r\n");
+	}
+
+	@Test
+	public void testNullableMultiBulkShape() {
+		ResponeAdapter<?, ?> adapter = new StringResponseAdapter(null) {
+
+			@Override
+			ReplyShape getReplyShape() {
+				return ReplyShape.NULLABLE_MULTI_BULK;
+			}
+		};
+		// the aborted EXEC and the EXEC of no command
+		assertDecoded(RedisProtocol.NULL, adapter, "*-1\r\n");
+		assertDecoded(list(), adapter, "*0\r\n");
+		assertDecoded(list(list()), adapter, "*1\r\n*-1\r\n");
+	}
+
+	@Test
+	public void testReturnToPoolWhenQueueEmpty() {
+		final List<Channel> returned = new ArrayList<>();
+		ConnectionPool pool = new ConnectionPool(null, new ServerNode(),
+				new ConnectionPoolConfig()) {
+
+			@Override
+			public void returnToPool(Channel ch) {
+				returned.add(ch);
+			}
+		};
+		ResponseReceiver receiver = new ResponseReceiver();
+		receiver.setConnectionPool(pool);
+		EmbeddedChannel channel = new EmbeddedChannel(new ProtocolDecoder(),
+				receiver);
+		Queue<PendingCommand> pendingCommands = new ArrayDeque<>();
+		channel.attr(ConnectionPool.RESP_QUEUE_ATTR_KEY).set(pendingCommands);
+		NedisFuture<String> first = new NedisFuture<>();
+		NedisFuture<String> second = new NedisFuture<>();
+		pendingCommands.add(new PendingCommand(null,
+				new StringResponseAdapter(first), 0));
+		pendingCommands.add(new PendingCommand(null,
+				new StringResponseAdapter(second), 0));
+
+		channel.writeInbound(Unpooled.copiedBuffer("+OK\r\n",
+				CharsetUtil.US_ASCII));
+		assertTrue(first.isDone());
+		// the reply of the second command is still pending on the channel
+		assertTrue(returned.isEmpty());
+
+		channel.writeInbound(Unpooled.copiedBuffer("$5\r\nhello\r\n",
+				CharsetUtil.US_ASCII));
+		assertTrue(second.isDone());
+		assertEquals(1, returned.size());
+		assertTrue(returned.get(0) == channel);
+		channel.finish();
+	}
+
+	@Test
+	public void testCloseOnDecodeFailure() {
+		final List<Channel> returned = new ArrayList<>();
+		ConnectionPool pool = new ConnectionPool(null, new ServerNode(),
+				new ConnectionPoolConfig()) {
+
+			@Override
+			public void returnToPool(Channel ch) {
+				returned.add(ch);
+			}
+		};
+		ResponseReceiver receiver = new ResponseReceiver();
+		receiver.setConnectionPool(pool);
+		EmbeddedChannel channel = new EmbeddedChannel(new ProtocolDecoder(),
+				receiver);
+		Queue<PendingCommand> pendingCommands = new ArrayDeque<>();
+		channel.attr(ConnectionPool.RESP_QUEUE_ATTR_KEY).set(pendingCommands);
+		pendingCommands.add(new PendingCommand(null, new StringResponseAdapter(
+				new NedisFuture<String>()), 0));
+
+		channel.writeInbound(Unpooled.copiedBuffer("$x\r\n",
+				CharsetUtil.US_ASCII));
+		// the later replies would be passed to the wrong commands
+		assertFalse(channel.isOpen());
+		assertTrue(returned.isEmpty());
+		channel.finish();
+	}
+
+	/**
+	 * The input is decoded at once, byte by byte, and in the chunks of a few
+	 * bytes, all of them must be the same
+	 * 
+	 * @param expected
+	 * @param input
+	 */
+	private static void assertDecoded(Object expected, String input) {
+		for (Object reply : decodeAll(input)) {
+			assertEquals(expected, normalize(reply));
+		}
+	}
+
+	/**
+	 * The reply is decoded for the command of the adapter, which is the head
+	 * of the pending queue
+	 * 
+	 * @param expected
+	 * @param adapter
+	 * @param input
+	 */
+	private static void assertDecoded(Object expected,
+			ResponeAdapter<?, ?> adapter, String input) {
+		for (Object reply : decodeAll(input, adapter)) {
+			assertEquals(expected, normalize(reply));
+		}
+	}
+
+	private static List<Object> decodeAll(String input) {
+		return decodeAll(input, null);
+	}
+
+	private static List<Object> decodeAll(String input,
+			ResponeAdapter<?, ?> adapter) {
+		List<Object> replies = new ArrayList<>();
+		for (int step : new int[] { 0, 1, 2, 3, 7 }) {
+			replies.add(decode(input, adapter, step));
+		}
+		return replies;
+	}
+
+	/**
+	 * @param input
+	 * @param adapter
+	 *            the adapter of the pending command, it can be null
+	 * @param step
+	 *            the bytes of each read, 0 for all of them in one read
+	 * @return
+	 */
+	private static Object decode(String input, ResponeAdapter<?, ?> adapter,
+			int step) {
+		EmbeddedChannel channel = new EmbeddedChannel(new ProtocolDecoder());
+		if (adapter != null) {
+			Queue<PendingCommand> pendingCommands = new ArrayDeque<>();
+			pendingCommands.add(new PendingCommand(null, adapter, 0));
+			channel.attr(ConnectionPool.RESP_QUEUE_ATTR_KEY).set(
+					pendingCommands);
+		}
+		write(channel, input, step);
+		Object reply = channel.readInbound();
+		assertTrue("no reply of " + input + " in steps of " + step,
+				reply != null);
+		assertNull(channel.readInbound());
+		channel.finish();
+		return reply;
+	}
+
+	private static void write(EmbeddedChannel channel, String input, int step) {
+		byte[] bytes = input.getBytes(CharsetUtil.UTF_8);
+		if (step <= 0) {
+			channel.writeInbound(Unpooled.wrappedBuffer(bytes));
+			return;
+		}
+		for (int i = 0; i < bytes.length; i += step) {
+			channel.writeInbound(Unpooled.wrappedBuffer(bytes, i,
+					Math.min(step, bytes.length - i)));
+		}
+	}
+
+	/**
+	 * The bulks are decoded into the bytes, they are compared as the strings
+	 * 
+	 * @param reply
+	 * @return
+	 */
+	private static Object normalize(Object reply) {
+		if (reply instanceof byte[]) {
+			return new String((byte[]) reply, CharsetUtil.UTF_8);
+		}
+		if (reply instanceof Map) {
+			Map<Object, Object> map = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) reply).entrySet()) {
+				map.put(normalize(entry.getKey()), normalize(entry.getValue()));
+			}
+			return map;
+		}
+		if (reply instanceof Set) {
+			Set<Object> set = new LinkedHashSet<>();
+			for (Object element : (Set<?>) reply) {
+				set.add(normalize(element));
+			}
+			return set;
+		}
+		if (reply instanceof Collection) {
+			List<Object> elements = new ArrayList<>();
+			for (Object element : (Collection<?>) reply) {
+				elements.add(normalize(element));
+			}
+			return elements;
+		}
+		return reply;
+	}
+
+	private static List<Object> list(Object... elements) {
+		return Arrays.asList(elements);
+	}
+}
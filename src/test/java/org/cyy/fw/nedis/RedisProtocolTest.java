@@ -0,0 +1,159 @@
+package org.cyy.fw.nedis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.util.CharsetUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class RedisProtocolTest {
+
+	/**
+	 * Record the commands instead of sending them
+	 */
+	private static final class RecordingCommands extends NedisCommands {
+
+		private final List<BinaryCommand> messages = new ArrayList<>();
+
+		@Override
+		<S, T> void dispatch(BinaryCommand message,
+				ResponeAdapter<S, T> responseAdapter) {
+			messages.add(message);
+		}
+
+		@Override
+		void checkStatus() {
+		}
+
+		@Override
+		ConnectionPool getConnectionPool() {
+			return null;
+		}
+	}
+
+	private static final ByteBufAllocator ALLOC = UnpooledByteBufAllocator
+			.DEFAULT;
+	private static final String[] TEXTS = { "", "key", "été", "日本",
+			"😀", "\ud83d", "a\ude00b", "\ud83dx", "߿ࠀ" };
+
+	@Test
+	public void testUtf8Length() {
+		for (String text : TEXTS) {
+			assertEquals(text, text.getBytes(CharsetUtil.UTF_8).length,
+					RedisProtocol.utf8Length(text));
+		}
+	}
+
+	@Test
+	public void testRequests() {
+		List<BinaryCommand> commands = Arrays.asList(new BinaryCommand(
+				RedisCommand.PING, new String[0]), new BinaryCommand(
+				RedisCommand.MSET, TEXTS), new BinaryCommand(RedisCommand.SET,
+				new CommandArgs().add("key").add(42L).add(1.5)),
+				new BinaryCommand(RedisCommand.SET, "key".getBytes(),
+						new byte[] { 0, '\r', '\n' }));
+		ByteBuf request = RedisProtocol.generateRequests(commands, ALLOC);
+		try {
+			assertFalse(request instanceof CompositeByteBuf);
+			assertEquals(request.capacity(), request.readableBytes());
+			assertArrayEquals(concat(commands), bytes(request));
+		} finally {
+			request.release();
+		}
+	}
+
+	@Test
+	public void testLargeArgs() {
+		byte[] large = new byte[64 * 1024];
+		Arrays.fill(large, (byte) 'v');
+		List<BinaryCommand> commands = Arrays.asList(new BinaryCommand(
+				RedisCommand.GET, "key"), new BinaryCommand(RedisCommand.MSET,
+				"key1".getBytes(), large, "key2".getBytes(), large),
+				new BinaryCommand(RedisCommand.SET, "key".getBytes(), large),
+				new BinaryCommand(RedisCommand.GET, "key"), new BinaryCommand(
+						RedisCommand.SET, "key", new String(large,
+								CharsetUtil.US_ASCII)));
+		ByteBuf request = RedisProtocol.generateRequests(commands, ALLOC);
+		CompositeByteBuf composite = (CompositeByteBuf) request;
+		// the large arguments between the slices of one buffer
+		assertEquals(7, composite.numComponents());
+		ByteBuf buffer = composite.component(0).unwrap();
+		for (int i = 0; i < composite.numComponents(); i++) {
+			ByteBuf component = composite.component(i);
+			if (i % 2 == 0) {
+				assertSame(buffer, component.unwrap());
+			} else {
+				assertSame(large, component.array());
+			}
+		}
+		assertArrayEquals(concat(commands), bytes(request));
+		request.release();
+		assertEquals(0, buffer.refCnt());
+	}
+
+	@Test
+	public void testBinaryValues() {
+		byte[] large = new byte[64 * 1024];
+		Arrays.fill(large, (byte) 'v');
+		String text = new String(large, CharsetUtil.US_ASCII);
+		Map<String, byte[]> hash = new LinkedHashMap<>();
+		hash.put("field1", "small".getBytes(CharsetUtil.US_ASCII));
+		hash.put("field2", large);
+		RecordingCommands commands = new RecordingCommands();
+		commands.set(null, "key", large);
+		commands.hMSet(null, "hash", "field", large);
+		commands.hMSet(null, "hash", hash);
+		List<BinaryCommand> expected = Arrays.asList(new BinaryCommand(
+				RedisCommand.SET, "key", text), new BinaryCommand(
+				RedisCommand.HMSET, "hash", "field", text), new BinaryCommand(
+				RedisCommand.HMSET, "hash", "field1", "small", "field2", text));
+		assertEquals(expected.size(), commands.messages.size());
+		for (int i = 0; i < expected.size(); i++) {
+			ByteBuf request = RedisProtocol.generateRequest(
+					commands.messages.get(i), ALLOC);
+			try {
+				// the large value is not copied
+				CompositeByteBuf composite = (CompositeByteBuf) request;
+				assertSame(large, composite.component(1).array());
+				assertArrayEquals(concat(expected.subList(i, i + 1)),
+						bytes(request));
+			} finally {
+				request.release();
+			}
+		}
+	}
+
+	private static byte[] concat(List<BinaryCommand> commands) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (BinaryCommand command : commands) {
+			ByteBuf request = RedisProtocol.generateRequest(command, ALLOC);
+			try {
+				byte[] bytes = bytes(request);
+				out.write(bytes, 0, bytes.length);
+			} finally {
+				request.release();
+			}
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] bytes(ByteBuf request) {
+		byte[] bytes = new byte[request.readableBytes()];
+		request.getBytes(request.readerIndex(), bytes);
+		return bytes;
+	}
+}
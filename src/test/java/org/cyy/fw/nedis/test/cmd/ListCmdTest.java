@@ -2,6 +2,11 @@ package org.cyy.fw.nedis.test.cmd;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cyy.fw.nedis.ElementConsumer;
 import org.cyy.fw.nedis.RedisProtocol;
 import org.cyy.fw.nedis.ResponseCallback;
 import org.cyy.fw.nedis.util.NedisException;
@@ -404,6 +409,50 @@ public class ListCmdTest extends BaseCmdTest {
 		});
 	}
 
+	@Test
+	public void testLRangeStream() {
+		doCmdTest(new TestAction() {
+
+			@Override
+			public void doTest() throws InterruptedException, NedisException {
+
+				client.flushAll(null);
+				Thread.sleep(CMD_PAUSE_TIME);
+
+				client.rPush(null, "llkey1", "llvalue1", "llvalue2");
+				Thread.sleep(CMD_PAUSE_TIME);
+
+				client.lRangeStream(new ElementConsumer<String>() {
+					private List<String> elements = new ArrayList<>();
+
+					@Override
+					public void start(int size) {
+						assertEquals(2, size);
+					}
+
+					@Override
+					public void element(String element) {
+						elements.add(element);
+					}
+
+					@Override
+					public void end() {
+						assertEquals(Arrays.asList("llvalue1", "llvalue2"),
+								elements);
+						controller.countDown();
+					}
+
+					@Override
+					public void failed(Throwable cause) {
+						fail(cause);
+						controller.countDown();
+					}
+				}, "llkey1", 0, -1);
+
+			}
+		});
+	}
+
 	@Test
 	public void testRPOPLPUSH() {
 		doCmdTest(new TestAction() {
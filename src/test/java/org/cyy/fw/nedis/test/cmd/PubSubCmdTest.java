@@ -0,0 +1,89 @@
+package org.cyy.fw.nedis.test.cmd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.cyy.fw.nedis.PubSubListener;
+import org.cyy.fw.nedis.PubSubMessage;
+import org.cyy.fw.nedis.Subscriber;
+import org.cyy.fw.nedis.util.NedisException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PubSubCmdTest extends BaseCmdTest {
+
+	@Test
+	public void testSubscribe() {
+		doCmdTest(new TestAction() {
+
+			@Override
+			public void doTest() throws InterruptedException, NedisException {
+				final BlockingQueue<String[]> received = new LinkedBlockingQueue<>();
+				Subscriber subscriber = client.subscriber();
+				try {
+					subscriber.subscribe(newListener(received), "channel1");
+					Thread.sleep(CMD_PAUSE_TIME);
+					assertEquals(Long.valueOf(1),
+							client.publish(null, "channel1", "message1").get(
+									5, TimeUnit.SECONDS));
+					// the listener runs in the event loop, the message is
+					// asserted here
+					String[] message = received.poll(5, TimeUnit.SECONDS);
+					assertTrue(message != null);
+					assertEquals("channel1", message[0]);
+					assertNull(message[1]);
+					assertEquals("message1", message[2]);
+				} catch (ExecutionException | TimeoutException e) {
+					Assert.fail(e.getMessage());
+				} finally {
+					subscriber.close();
+				}
+				controller.countDown();
+			}
+		});
+	}
+
+	@Test
+	public void testPSubscribe() {
+		doCmdTest(new TestAction() {
+
+			@Override
+			public void doTest() throws InterruptedException, NedisException {
+				final BlockingQueue<String[]> received = new LinkedBlockingQueue<>();
+				Subscriber subscriber = client.subscriber(true);
+				try {
+					subscriber.pSubscribe(newListener(received), "news.*");
+					Thread.sleep(CMD_PAUSE_TIME);
+					client.publish(null, "news.1", "message1");
+					String[] message = received.poll(5, TimeUnit.SECONDS);
+					assertTrue(message != null);
+					assertEquals("news.1", message[0]);
+					assertEquals("news.*", message[1]);
+					assertEquals("message1", message[2]);
+				} finally {
+					subscriber.close();
+				}
+				controller.countDown();
+			}
+		});
+	}
+
+	private PubSubListener newListener(final BlockingQueue<String[]> received) {
+		return new PubSubListener() {
+
+			@Override
+			public void onMessage(PubSubMessage message) {
+				// the payload of a zero-copy subscriber is valid only here
+				received.add(new String[] { message.getChannel(),
+						message.getPattern(), message.getPayloadText() });
+			}
+		};
+	}
+}
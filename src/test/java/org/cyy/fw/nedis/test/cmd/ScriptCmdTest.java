@@ -0,0 +1,65 @@
+package org.cyy.fw.nedis.test.cmd;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.cyy.fw.nedis.ResponseCallback;
+import org.cyy.fw.nedis.Script;
+import org.cyy.fw.nedis.util.NedisException;
+import org.junit.Test;
+
+public class ScriptCmdTest extends BaseCmdTest {
+
+	@Test
+	public void testEvalSha() {
+		doCmdTest(new TestAction() {
+
+			@Override
+			public void doTest() throws InterruptedException, NedisException {
+				client.flushAll(null);
+				Thread.sleep(CMD_PAUSE_TIME);
+				Script script = new Script(
+						"return redis.call('incrby', KEYS[1], ARGV[1])");
+				// the server does not have it, it is sent by EVAL
+				Script listScript = new Script("return {KEYS[1], ARGV[1], "
+						+ System.nanoTime() + "}");
+				try {
+					assertEquals(script.getSha1(),
+							client.registerScript(null, script).get());
+					assertEquals(Long.valueOf(2),
+							client.evalSha(null, script,
+									new String[] { "key1" }, "2").get(5,
+									TimeUnit.SECONDS));
+					List<?> result = (List<?>) client.evalSha(null,
+							listScript, new String[] { "key1" }, "arg1").get(
+							5, TimeUnit.SECONDS);
+					assertEquals(Arrays.asList("key1", "arg1"),
+							result.subList(0, 2));
+				} catch (ExecutionException | TimeoutException e) {
+					fail(e);
+				}
+				ResponseCallback<Object> respCallBack = new ResponseCallback<Object>() {
+
+					@Override
+					public void done(Object result) {
+						assertEquals(Long.valueOf(5), result);
+						controller.countDown();
+					}
+
+					@Override
+					public void failed(Throwable cause) {
+						fail(cause);
+						controller.countDown();
+					}
+				};
+				client.evalSha(respCallBack, script, new String[] { "key1" },
+						"3");
+			}
+		});
+	}
+}
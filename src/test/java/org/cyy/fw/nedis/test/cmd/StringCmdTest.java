@@ -1,13 +1,28 @@
 package org.cyy.fw.nedis.test.cmd;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.cyy.fw.nedis.BitOP;
+import org.cyy.fw.nedis.BulkChunkConsumer;
+import org.cyy.fw.nedis.BulkChunkControl;
 import org.cyy.fw.nedis.KeyValuePair;
+import org.cyy.fw.nedis.NedisFuture;
+import org.cyy.fw.nedis.NedisFuture.Function;
 import org.cyy.fw.nedis.RedisProtocol;
 import org.cyy.fw.nedis.ResponseCallback;
 import org.cyy.fw.nedis.util.NedisException;
+import org.cyy.fw.nedis.util.RedisErrorException;
 import org.junit.Test;
 
 public class StringCmdTest extends BaseCmdTest {
@@ -102,6 +117,199 @@ public class StringCmdTest extends BaseCmdTest {
 
 	}
 
+	@Test
+	public void testGetBuffer() {
+		doCmdTest(new TestAction() {
+
+			@Override
+			public void doTest() throws InterruptedException, NedisException {
+
+				client.flushAll(null);
+				Thread.sleep(CMD_PAUSE_TIME);
+				client.set(null, "key1", "value1");
+				ResponseCallback<ByteBuf> respCallback = new ResponseCallback<ByteBuf>() {
+
+					@Override
+					public void done(ByteBuf result) {
+						try {
+							assertEquals("value1",
+									result.toString(CharsetUtil.UTF_8));
+						} finally {
+							result.release();
+						}
+					}
+
+					@Override
+					public void failed(Throwable cause) {
+						fail(cause);
+					}
+				};
+				Thread.sleep(CMD_PAUSE_TIME);
+				client.getBuffer(respCallback, "key1");
+
+				respCallback = new ResponseCallback<ByteBuf>() {
+
+					@Override
+					public void done(ByteBuf result) {
+						assertNull(result);
+						controller.countDown();
+					}
+
+					@Override
+					public void failed(Throwable cause) {
+						fail(cause);
+						controller.countDown();
+					}
+				};
+
+				client.getBuffer(respCallback, "key2");
+
+			}
+		});
+
+	}
+
+	@Test
+	public void testErrorReply() {
+		doCmdTest(new TestAction() {
+
+			@Override
+			public void doTest() throws InterruptedException, NedisException {
+
+				client.flushAll(null);
+				Thread.sleep(CMD_PAUSE_TIME);
+				client.set(null, "key1", "value1");
+				Thread.sleep(CMD_PAUSE_TIME);
+				client.incr(new ResponseCallback<Long>() {
+
+					@Override
+					public void done(Long result) {
+						assertTrue(false);
+						controller.countDown();
+					}
+
+					@Override
+					public void failed(Throwable cause) {
+						assertTrue(cause instanceof RedisErrorException);
+						assertEquals("ERR",
+								((RedisErrorException) cause).getCode());
+						// a reply, not a failure of the client
+						assertEquals(0, cause.getStackTrace().length);
+						controller.countDown();
+					}
+				}, "key1");
+
+			}
+		});
+
+	}
+
+	@Test
+	public void testFuture() {
+		doCmdTest(new TestAction() {
+
+			@Override
+			public void doTest() throws InterruptedException, NedisException {
+
+				client.flushAll(null);
+				Thread.sleep(CMD_PAUSE_TIME);
+				NedisFuture<String> getFuture = client.set(null, "key1",
+						"value1").thenCompose(
+						new Function<String, NedisFuture<String>>() {
+
+							@Override
+							public NedisFuture<String> apply(String result) {
+								assertEquals("OK", result);
+								return client.get(null, "key1");
+							}
+						});
+				NedisFuture<Integer> lenFuture = client.append(null, "key2",
+						"abc").thenApply(new Function<Long, Integer>() {
+
+					@Override
+					public Integer apply(Long result) {
+						return result.intValue();
+					}
+				});
+				NedisFuture<List<Object>> allFuture = NedisFuture
+						.<Object> allOf(getFuture, lenFuture);
+				try {
+					assertEquals(Arrays.<Object> asList("value1", 3),
+							allFuture.get(5, TimeUnit.SECONDS));
+					assertEquals("value1", getFuture.getNow());
+				} catch (ExecutionException | TimeoutException e) {
+					fail(e);
+				}
+				controller.countDown();
+			}
+		});
+
+	}
+
+	@Test
+	public void testGetStream() {
+		doCmdTest(new TestAction() {
+
+			@Override
+			public void doTest() throws InterruptedException, NedisException {
+
+				client.flushAll(null);
+				Thread.sleep(CMD_PAUSE_TIME);
+				client.set(null, "key1", "value1");
+				Thread.sleep(CMD_PAUSE_TIME);
+				client.getStream(new BulkChunkConsumer() {
+					private StringBuilder value = new StringBuilder();
+
+					@Override
+					public void start(int length, BulkChunkControl control) {
+						assertEquals(6, length);
+					}
+
+					@Override
+					public void chunk(ByteBuf chunk) {
+						value.append(chunk.toString(CharsetUtil.UTF_8));
+					}
+
+					@Override
+					public void end() {
+						assertEquals("value1", value.toString());
+					}
+
+					@Override
+					public void failed(Throwable cause) {
+						fail(cause);
+					}
+				}, "key1");
+
+				client.getStream(new BulkChunkConsumer() {
+
+					@Override
+					public void start(int length, BulkChunkControl control) {
+						assertEquals(-1, length);
+					}
+
+					@Override
+					public void chunk(ByteBuf chunk) {
+						fail(new NedisException("No chunk of the nil reply."));
+					}
+
+					@Override
+					public void end() {
+						controller.countDown();
+					}
+
+					@Override
+					public void failed(Throwable cause) {
+						fail(cause);
+						controller.countDown();
+					}
+				}, "key2");
+
+			}
+		});
+
+	}
+
 	@Test
 	public void testDel() {
 		doCmdTest(new TestAction() {
@@ -2,11 +2,33 @@ package org.cyy.fw.nedis.test.connection;
 
 import static org.junit.Assert.*;
 
-import java.util.concurrent.CountDownLatch;
+import io.netty.buffer.ByteBuf;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cyy.fw.nedis.BulkChunkConsumer;
+import org.cyy.fw.nedis.BulkChunkControl;
 import org.cyy.fw.nedis.NedisClient;
 import org.cyy.fw.nedis.NedisClientBuilder;
+import org.cyy.fw.nedis.NedisFuture;
+import org.cyy.fw.nedis.Pipeline;
 import org.cyy.fw.nedis.ResponseCallback;
+import org.cyy.fw.nedis.ResponseTimeoutCallback;
+import org.cyy.fw.nedis.Script;
+import org.cyy.fw.nedis.Transaction;
+import org.cyy.fw.nedis.util.NedisException;
+import org.cyy.fw.nedis.util.RedisErrorException;
+import org.cyy.fw.nedis.util.ResponseTimeoutException;
 import org.junit.Test;
 
 public class ConnectionPoolTest {
@@ -303,4 +325,585 @@ public class ConnectionPoolTest {
 		} finally {
 		}
 	}
+
+	@Test
+	public void testMultiplexed() {
+		String host = "192.168.1.107";
+		int port = 6379;
+		int multiplexConnections = 2;
+
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setMultiplexConnections(multiplexConnections).build();
+		try {
+			int repeats = 1000;
+			final CountDownLatch latch = new CountDownLatch(repeats);
+			final AtomicInteger mismatch = new AtomicInteger();
+			for (int i = 0; i < repeats; i++) {
+				final String message = "message-" + i;
+				client.echo(new ResponseCallback<String>() {
+
+					@Override
+					public void failed(Throwable cause) {
+						mismatch.incrementAndGet();
+						latch.countDown();
+					}
+
+					@Override
+					public void done(String result) {
+						if (!message.equals(result)) {
+							mismatch.incrementAndGet();
+						}
+						latch.countDown();
+					}
+				}, message);
+			}
+			latch.await();
+			assertEquals(0, mismatch.get());
+			assertEquals(0, client.getIdleConnections());
+
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testMultiplexedBlocking() {
+		String host = "192.168.1.107";
+		int port = 6379;
+
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setMultiplexConnections(1).build();
+		try {
+			client.del(null, "multiplexed-list").get();
+			// the blocking pop does not hold up the shared connection
+			NedisFuture<String[]> blocking = client.blPop(null, 2,
+					"multiplexed-list");
+			assertEquals("hello",
+					client.echo(null, "hello").get(1, TimeUnit.SECONDS));
+			assertFalse(blocking.isDone());
+			blocking.get(10, TimeUnit.SECONDS);
+			// the shared connections can not be switched to another database
+			try {
+				client.select(null, 1).get(10, TimeUnit.SECONDS);
+				fail("SELECT should be rejected");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof NedisException);
+			}
+			assertEquals("hello",
+					client.echo(null, "hello").get(10, TimeUnit.SECONDS));
+
+		} catch (InterruptedException | ExecutionException
+				| TimeoutException e) {
+			fail(e.getMessage());
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testFlushBatching() {
+		String host = "192.168.1.107";
+		int port = 6379;
+		int multiplexConnections = 2;
+
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setMultiplexConnections(multiplexConnections)
+				.setFlushBatching(true).setFlushMaxCommands(16).build();
+		try {
+			int repeats = 1000;
+			final CountDownLatch latch = new CountDownLatch(repeats);
+			final AtomicInteger mismatch = new AtomicInteger();
+			for (int i = 0; i < repeats; i++) {
+				final String message = "message-" + i;
+				client.echo(new ResponseCallback<String>() {
+
+					@Override
+					public void failed(Throwable cause) {
+						mismatch.incrementAndGet();
+						latch.countDown();
+					}
+
+					@Override
+					public void done(String result) {
+						if (!message.equals(result)) {
+							mismatch.incrementAndGet();
+						}
+						latch.countDown();
+					}
+				}, message);
+			}
+			// the callbacks run in the event loop, the results are asserted here
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+			assertEquals(0, mismatch.get());
+
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testConnectionWaiters() {
+		String host = "192.168.1.107";
+		int port = 6379;
+		int connectionPoolSize = 1;
+		int maxConnectionWaiters = 10;
+
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setConnectionPoolSize(connectionPoolSize)
+				.setMaxConnectionWaiters(maxConnectionWaiters)
+				.setAcquireTimeoutMills(0).build();
+		try {
+			client.del(null, "waiters-list").get();
+			// the blocking pop holds the only connection, the commands beyond
+			// the max waiters fail without blocking, the waiters are served
+			// when it returns
+			NedisFuture<String[]> blocking = client.blPop(null, 1,
+					"waiters-list");
+			int repeats = 100;
+			List<NedisFuture<String>> futures = new ArrayList<>();
+			for (int i = 0; i < repeats; i++) {
+				futures.add(client.echo(null, "message-" + i));
+			}
+			int succeeded = 0;
+			int failed = 0;
+			for (int i = 0; i < repeats; i++) {
+				try {
+					assertEquals("message-" + i,
+							futures.get(i).get(10, TimeUnit.SECONDS));
+					succeeded++;
+				} catch (ExecutionException e) {
+					failed++;
+				}
+			}
+			blocking.get(10, TimeUnit.SECONDS);
+			assertEquals(maxConnectionWaiters, succeeded);
+			assertEquals(repeats - maxConnectionWaiters, failed);
+
+		} catch (InterruptedException | ExecutionException
+				| TimeoutException e) {
+			fail(e.getMessage());
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testAcquireTimeout() {
+		String host = "192.168.1.107";
+		int port = 6379;
+
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setConnectionPoolSize(1).setAcquireTimeoutMills(200)
+				.build();
+		try {
+			client.del(null, "waiters-list").get();
+			// the waiter gives up before the blocking pop returns
+			NedisFuture<String[]> blocking = client.blPop(null, 2,
+					"waiters-list");
+			NedisFuture<String> waiting = client.echo(null, "hello");
+			try {
+				waiting.get(10, TimeUnit.SECONDS);
+				fail("the waiter should timeout");
+			} catch (ExecutionException e) {
+				assertEquals("Obtain channel from pool timeout.", e
+						.getCause().getMessage());
+			}
+			assertFalse(blocking.isDone());
+			blocking.get(10, TimeUnit.SECONDS);
+
+		} catch (InterruptedException | ExecutionException
+				| TimeoutException e) {
+			fail(e.getMessage());
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testConnectRefusedWithWaiters() {
+		String host = "192.168.1.107";
+		// no server listens on this port
+		int port = 1;
+
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setConnectionPoolSize(1).setAcquireTimeoutMills(0).build();
+		try {
+			// the first command takes the only permit, the others wait, and
+			// they never timeout
+			List<NedisFuture<String>> futures = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				futures.add(client.echo(null, "hello"));
+			}
+			for (NedisFuture<String> future : futures) {
+				try {
+					future.get(10, TimeUnit.SECONDS);
+					fail("the connect should be refused");
+				} catch (ExecutionException e) {
+					// the waiter is woken up by the failed connect
+				}
+			}
+
+		} catch (InterruptedException | TimeoutException e) {
+			fail(e.getMessage());
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testDomainSocket() {
+		// the redis server must be co-located and listen on this socket
+		String socketPath = "/tmp/redis.sock";
+
+		final NedisClient client = new NedisClientBuilder()
+				.setSocketPath(socketPath).setEpollEnabled(true)
+				.setConnectTimeoutMills(5000).build();
+		try {
+			String message = "hello";
+			assertEquals(message,
+					client.echo(null, message).get(10, TimeUnit.SECONDS));
+
+		} catch (InterruptedException | ExecutionException
+				| TimeoutException e) {
+			fail(e.getMessage());
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testResponseTimeout() {
+		String host = "192.168.1.107";
+		int port = 6379;
+
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setResponseTimeoutMills(300).build();
+		try {
+			// blocks longer than the default deadline
+			NedisFuture<String[]> timedOut = client.blPop(null, 2,
+					"blpop-timeout-key");
+			// overrides the default deadline
+			NedisFuture<String[]> overridden = client.blPop(
+					new ResponseTimeoutCallback<String[]>() {
+
+						@Override
+						public long getResponseTimeoutMills() {
+							return 3000;
+						}
+
+						@Override
+						public void failed(Throwable cause) {
+						}
+
+						@Override
+						public void done(String[] result) {
+						}
+					}, 1, "blpop-timeout-key");
+			try {
+				timedOut.get(10, TimeUnit.SECONDS);
+				fail("the default deadline should expire");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof ResponseTimeoutException);
+			}
+			overridden.get(10, TimeUnit.SECONDS);
+
+		} catch (InterruptedException | ExecutionException
+				| TimeoutException e) {
+			fail(e.getMessage());
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testResponseTimeoutMidStream() {
+		String host = "192.168.1.107";
+		int port = 6379;
+
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setConnectionPoolSize(1).setResponseTimeoutMills(300)
+				.build();
+		try {
+			char[] value = new char[8 * 1024 * 1024];
+			Arrays.fill(value, 'x');
+			// the large value may take longer than the deadline to be written
+			client.set(new ResponseTimeoutCallback<String>() {
+
+				@Override
+				public long getResponseTimeoutMills() {
+					return 10000;
+				}
+
+				@Override
+				public void failed(Throwable cause) {
+				}
+
+				@Override
+				public void done(String result) {
+				}
+			}, "stream-timeout-key", new String(value)).get();
+			final BlockingQueue<Throwable> failures = new LinkedBlockingQueue<>();
+			// the consumer pauses the reading after the bulk starts, so the
+			// deadline expires in the middle of the bulk
+			client.getStream(new BulkChunkConsumer() {
+
+				@Override
+				public void start(int length, BulkChunkControl control) {
+					control.pause();
+				}
+
+				@Override
+				public void chunk(ByteBuf chunk) {
+				}
+
+				@Override
+				public void end() {
+				}
+
+				@Override
+				public void failed(Throwable cause) {
+					failures.add(cause);
+				}
+			}, "stream-timeout-key");
+			Throwable cause = failures.poll(10, TimeUnit.SECONDS);
+			assertTrue(cause instanceof ResponseTimeoutException);
+			// the rest of the bulk is discarded and the channel is returned
+			// to the pool instead of being closed
+			long deadline = System.currentTimeMillis() + 10000;
+			while (client.getIdleConnections() == 0
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(1, client.getIdleConnections());
+			assertEquals("hello",
+					client.echo(null, "hello").get(10, TimeUnit.SECONDS));
+			assertEquals(Long.valueOf(1),
+					client.del(null, "stream-timeout-key").get());
+
+		} catch (InterruptedException | ExecutionException
+				| TimeoutException e) {
+			fail(e.getMessage());
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testResp3() {
+		String host = "192.168.1.107";
+		int port = 6379;
+
+		// the server before 6.0 rejects the HELLO, the client keeps RESP2
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000).setResp3(true)
+				.build();
+		try {
+			client.hSet(null, "resp3-key", "field1", "value1").get(10,
+					TimeUnit.SECONDS);
+			Map<String, String> result = client.hGetAll(null, "resp3-key").get(
+					10, TimeUnit.SECONDS);
+			assertEquals("value1", result.get("field1"));
+
+		} catch (InterruptedException | ExecutionException
+				| TimeoutException e) {
+			fail(e.getMessage());
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testPipeline() {
+		String host = "192.168.1.107";
+		int port = 6379;
+
+		// one connection is enough for all the commands of a pipeline
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setConnectionPoolSize(1).build();
+		try {
+			client.del(null, "pipeline-key", "pipeline-string-key").get();
+			Pipeline pipeline = client.pipelined();
+			for (int i = 0; i < 500; i++) {
+				pipeline.hSet(null, "pipeline-key", "field" + i, "value" + i);
+			}
+			pipeline.set(null, "pipeline-string-key", "value");
+			NedisFuture<Long> incrFuture = pipeline.incr(null,
+					"pipeline-string-key");
+			NedisFuture<Long> lenFuture = pipeline.hLen(null, "pipeline-key");
+			assertEquals(503, pipeline.size());
+			List<Object> results = pipeline.execute().get();
+			assertEquals(503, results.size());
+			assertEquals(Boolean.TRUE, results.get(0));
+			assertEquals("OK", results.get(500));
+			// the failure of one command does not fail the others
+			assertTrue(results.get(501) instanceof RedisErrorException);
+			assertTrue(incrFuture.cause() instanceof RedisErrorException);
+			assertEquals(Long.valueOf(500), results.get(502));
+			assertEquals(Long.valueOf(500), lenFuture.get());
+		} catch (InterruptedException | ExecutionException e) {
+			fail(e.getMessage());
+		} finally {
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testTransaction() {
+		String host = "192.168.1.107";
+		int port = 6379;
+
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setConnectionPoolSize(2).build();
+		Transaction transaction = client.transaction();
+		try {
+			client.del(null, "tx-key", "tx-string-key").get();
+			transaction.multi();
+			NedisFuture<String> setFuture = transaction.set(null, "tx-key",
+					"1");
+			NedisFuture<Long> incrFuture = transaction.incr(null, "tx-key");
+			transaction.set(null, "tx-string-key", "value");
+			NedisFuture<Long> badFuture = transaction.incr(null,
+					"tx-string-key");
+			List<Object> results = transaction.exec().get();
+			assertEquals(4, results.size());
+			assertEquals("OK", setFuture.get());
+			assertEquals(Long.valueOf(2), incrFuture.get());
+			// the failure of one command does not roll back the others
+			assertTrue(results.get(3) instanceof RedisErrorException);
+			assertTrue(badFuture.cause() instanceof RedisErrorException);
+
+			// the watched key is modified by another connection
+			transaction.watch(null, "tx-key").get();
+			assertEquals("2", transaction.get(null, "tx-key").get());
+			client.set(null, "tx-key", "10").get();
+			transaction.multi();
+			NedisFuture<Long> abortedFuture = transaction.incr(null, "tx-key");
+			assertNull(transaction.exec().get());
+			assertNotNull(abortedFuture.cause());
+			assertEquals("10", client.get(null, "tx-key").get());
+
+			// retry
+			transaction.watch(null, "tx-key").get();
+			transaction.multi();
+			transaction.incr(null, "tx-key");
+			results = transaction.exec().get();
+			assertEquals(Long.valueOf(11), results.get(0));
+
+			// an aborted EXEC of no command is not an empty result
+			transaction.watch(null, "tx-key").get();
+			client.set(null, "tx-key", "20").get();
+			transaction.multi();
+			assertNull(transaction.exec().get());
+			transaction.multi();
+			assertEquals(0, transaction.exec().get().size());
+		} catch (InterruptedException | ExecutionException e) {
+			fail(e.getMessage());
+		} finally {
+			transaction.close();
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testTransactionScriptFallback() {
+		String host = "192.168.1.107";
+		int port = 6379;
+
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setConnectionPoolSize(2).build();
+		Transaction transaction = client.transaction();
+		// the server does not have it, it is sent by EVAL
+		Script script = new Script("local unique = " + System.nanoTime()
+				+ " return redis.call('get', KEYS[1])");
+		try {
+			client.del(null, "tx-script-key").get();
+			// the key is in the database of the connection of the transaction
+			// only
+			transaction.select(null, 1).get();
+			transaction.set(null, "tx-script-key", "db1").get();
+			transaction.watch(null, "tx-script-key").get();
+			assertEquals("db1", transaction.evalSha(null, script,
+					new String[] { "tx-script-key" }).get());
+			transaction.multi();
+			transaction.del(null, "tx-script-key");
+			assertEquals(Arrays.<Object> asList(1L), transaction.exec().get());
+			transaction.select(null, 0).get();
+		} catch (InterruptedException | ExecutionException e) {
+			fail(e.getMessage());
+		} finally {
+			transaction.close();
+			client.shutdown();
+		}
+	}
+
+	@Test
+	public void testWaitersAfterChannelClosed() {
+		String host = "192.168.1.107";
+		int port = 6379;
+
+		final NedisClient client = new NedisClientBuilder().setServerHost(host)
+				.setPort(port).setConnectTimeoutMills(5000)
+				.setConnectionPoolSize(1).setMaxConnectionWaiters(1000)
+				.build();
+		try {
+			// the slot freed by the channel closed by QUIT may be taken by a
+			// new command before the waiter, then the waiter waits again
+			final AtomicInteger failed = new AtomicInteger();
+			Thread[] threads = new Thread[4];
+			for (int i = 0; i < threads.length; i++) {
+				threads[i] = new Thread(new Runnable() {
+
+					@Override
+					public void run() {
+						for (int j = 0; j < 300; j++) {
+							try {
+								client.echo(null, "message-" + j).get();
+							} catch (InterruptedException e) {
+								return;
+							} catch (ExecutionException e) {
+								// sent to the channel closed by QUIT
+								String message = e.getCause().getMessage();
+								if (message == null
+										|| !message.endsWith(" closed.")) {
+									failed.incrementAndGet();
+								}
+							}
+						}
+					}
+				});
+				threads[i].start();
+			}
+			for (int i = 0; i < 100; i++) {
+				try {
+					client.quit(null).get();
+				} catch (ExecutionException e) {
+					// NOOP
+				}
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			assertEquals(0, failed.get());
+
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		} finally {
+			client.shutdown();
+		}
+	}
 }
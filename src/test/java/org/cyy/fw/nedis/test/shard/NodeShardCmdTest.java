@@ -1,11 +1,17 @@
 package org.cyy.fw.nedis.test.shard;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.cyy.fw.nedis.NedisFuture;
 import org.cyy.fw.nedis.ResponseCallback;
+import org.cyy.fw.nedis.Script;
 import org.cyy.fw.nedis.ServerNode;
 import org.cyy.fw.nedis.ShardedNedis;
 import org.cyy.fw.nedis.ShardedResponse;
@@ -864,4 +870,32 @@ public class NodeShardCmdTest extends BaseTest {
 			}
 		});
 	}
+
+	@Test
+	public void testEvalShaWithoutKeys() {
+		// fails like any command instead of throwing to the caller
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		NedisFuture<ShardedResponse<Object>> future = shardedNedis.evalSha(
+				new ResponseCallback<ShardedResponse<Object>>() {
+
+					@Override
+					public void failed(Throwable cause) {
+						failure.set(cause);
+					}
+
+					@Override
+					public void done(ShardedResponse<Object> result) {
+					}
+				}, new Script("return 1"), new String[0]);
+		assertTrue(future.isDone());
+		assertTrue(failure.get() instanceof IllegalArgumentException);
+		try {
+			future.get();
+			org.junit.Assert.fail("the script without key should fail");
+		} catch (InterruptedException e) {
+			org.junit.Assert.fail(e.getMessage());
+		} catch (ExecutionException e) {
+			assertSame(failure.get(), e.getCause());
+		}
+	}
 }